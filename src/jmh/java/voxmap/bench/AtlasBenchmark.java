@@ -0,0 +1,67 @@
+package voxmap.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import voxmap.render.BlockRegistry;
+import voxmap.render.ExposedFaceMesher.Face;
+import voxmap.texture.TextureAtlasService;
+
+import java.util.concurrent.TimeUnit;
+
+/** Atlas lookups; the mesher does one per emitted face. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtlasBenchmark {
+
+    private static final Face[] FACES = Face.values();
+
+    // the blocks a typical overworld chunk is made of, plus the special-cased ones
+    private static final String[] NAMES = {
+            "stone", "dirt", "grass_block", "deepslate", "water", "sand", "oak_leaves", "oak_log",
+            "gravel", "lava", "coal_ore", "snow_block", "farmland", "glass"
+    };
+
+    // annotation values must be constants; setup() checks them against the arrays
+    private static final int BLOCK_COUNT = 14;
+    private static final int FACE_COUNT = 6;
+    private static final int ALL_FACES_OPS = BLOCK_COUNT * FACE_COUNT;
+
+    private TextureAtlasService atlas;
+    private int[] blocks;
+    private int i;
+
+    @Setup
+    public void setup() {
+        if (NAMES.length != BLOCK_COUNT || FACES.length != FACE_COUNT) {
+            throw new IllegalStateException("BLOCK_COUNT/FACE_COUNT out of date: " + NAMES.length + " blocks, "
+                    + FACES.length + " faces");
+        }
+        atlas = Fixtures.atlas();
+        blocks = new int[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) blocks[i] = BlockRegistry.id(NAMES[i]);
+    }
+
+    @Benchmark
+    public TextureAtlasService.UVRect uvFor() {
+        int k = i++;
+        return atlas.uvFor(blocks[k % blocks.length], FACES[k % FACES.length]);
+    }
+
+    @Benchmark
+    public int tileFor() {
+        int k = i++;
+        return atlas.tileFor(blocks[k % blocks.length], FACES[k % FACES.length]);
+    }
+
+    /** All six faces of every material, as one cube costs the mesher. */
+    @Benchmark
+    @OperationsPerInvocation(ALL_FACES_OPS)
+    public void tileForAllFaces(Blackhole bh) {
+        for (int b : blocks)
+            for (Face f : FACES) bh.consume(atlas.tileFor(b, f));
+    }
+}
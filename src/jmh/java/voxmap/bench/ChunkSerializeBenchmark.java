@@ -0,0 +1,57 @@
+package voxmap.bench;
+
+import org.openjdk.jmh.annotations.*;
+import voxmap.render.BlockVolume;
+import voxmap.render.ChunkMesh;
+import voxmap.render.ChunkMeshCodec;
+import voxmap.render.ExposedFaceMesher;
+
+import java.util.concurrent.TimeUnit;
+
+/** The /api/chunk response body: a full column, a one-section delta, and the legacy single blob. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkSerializeBenchmark {
+
+    @Param({"plains", "ocean", "jungle", "mountain_caves", "city"})
+    public String fixture;
+
+    private ChunkMesh mesh;
+    private long[] haveAllButOne;
+    private int minSection;
+
+    @Setup
+    public void setup() throws Exception {
+        BlockVolume chunk = Fixtures.load(fixture);
+        ChunkMesh built = ExposedFaceMesher.mesh(chunk, chunk.minY(), chunk.maxY(), Fixtures.atlas());
+
+        int n = built.sections.count();
+        long[] versions = new long[n];
+        for (int i = 0; i < n; i++) versions[i] = i + 1;
+        mesh = built.withSectionVersions(versions);
+        minSection = built.sections.minSection();
+
+        // client holds everything except the section at sea level
+        haveAllButOne = versions.clone();
+        haveAllButOne[Math.min(n - 1, Math.max(0, (64 >> 4) - minSection))] = 0;
+    }
+
+    @Benchmark
+    public byte[] fullColumn() {
+        return ChunkMeshCodec.encodeSections(mesh, null, 0);
+    }
+
+    @Benchmark
+    public byte[] oneSectionDelta() {
+        return ChunkMeshCodec.encodeSections(mesh, haveAllButOne, minSection);
+    }
+
+    @Benchmark
+    public byte[] singleBlob() {
+        return ChunkMeshCodec.encode(mesh);
+    }
+}
@@ -0,0 +1,261 @@
+package voxmap.bench;
+
+import voxmap.render.BlockRegistry;
+import voxmap.render.BlockVolume;
+import voxmap.render.ChunkFixture;
+import voxmap.texture.TextureAtlasService;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Benchmark inputs.
+ *
+ * A fixture named X is read from src/jmh/resources/fixtures/X.vxf when present (record one
+ * in game with /voxmap fixture X). Otherwise a deterministic synthetic column of the same
+ * archetype is generated, so the suite runs on a clean checkout.
+ */
+public final class Fixtures {
+
+    public static final int MIN_Y = -64;
+    public static final int HEIGHT = 384;
+
+    private Fixtures() {}
+
+    public static BlockVolume load(String name) throws IOException {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name + ".vxf")) {
+            if (in != null) return ChunkFixture.read(in);
+        }
+        return switch (name) {
+            case "plains" -> plains(1);
+            case "ocean" -> ocean(2);
+            case "jungle" -> jungle(3);
+            case "mountain_caves" -> mountainCaves(4);
+            case "city" -> city(5);
+            default -> throw new IllegalArgumentException("Unknown fixture: " + name);
+        };
+    }
+
+    /** Atlas with one flat-colored tile per block name used by the fixtures plus the special face keys. */
+    public static TextureAtlasService atlas() {
+        Map<String, BufferedImage> textures = new HashMap<>();
+        BufferedImage tile = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        for (String b : BLOCKS) textures.put(b, tile);
+        for (String k : List.of("grass_block_top", "grass_block_side", "dirt_path_top", "dirt_path_side",
+                "farmland_top", "farmland_side", "water_still", "water_flow", "lava_still", "lava_flow")) {
+            textures.put(k, tile);
+        }
+        TextureAtlasService atlas = new TextureAtlasService(16, 32);
+        atlas.loadFromTextures(textures);
+        return atlas;
+    }
+
+    // --- synthetic archetypes ---
+
+    // Synthetic fixtures rely on BlockTraits.guess for these, which matches vanilla for all of them.
+    static final String[] BLOCKS = {
+            "stone", "deepslate", "bedrock", "dirt", "grass_block", "sand", "gravel", "clay", "water", "lava",
+            "short_grass", "tall_grass", "fern", "seagrass", "kelp", "vine", "jungle_log", "jungle_leaves",
+            "granite", "andesite", "diorite", "tuff", "coal_ore", "iron_ore", "copper_ore", "diamond_ore",
+            "snow", "snow_block", "smooth_stone", "stone_bricks", "bricks", "white_concrete", "gray_concrete",
+            "polished_andesite", "oak_planks", "oak_slab", "oak_stairs", "glass", "glass_pane", "cobblestone",
+            "glowstone", "lantern", "oak_leaves", "oak_log"
+    };
+
+    private static final int AIR = BlockRegistry.AIR, CAVE_AIR = BlockRegistry.CAVE_AIR;
+    private static final int STONE = BlockRegistry.id("stone"), DEEPSLATE = BlockRegistry.id("deepslate"),
+            BEDROCK = BlockRegistry.id("bedrock"), DIRT = BlockRegistry.id("dirt"), GRASS_BLOCK = BlockRegistry.GRASS_BLOCK,
+            SAND = BlockRegistry.id("sand"), GRAVEL = BlockRegistry.id("gravel"), CLAY = BlockRegistry.id("clay"),
+            WATER = BlockRegistry.WATER, LAVA = BlockRegistry.LAVA, SHORT_GRASS = BlockRegistry.id("short_grass"),
+            TALL_GRASS = BlockRegistry.id("tall_grass"), FERN = BlockRegistry.id("fern"),
+            SEAGRASS = BlockRegistry.id("seagrass"), KELP = BlockRegistry.id("kelp"), VINE = BlockRegistry.id("vine"),
+            JUNGLE_LOG = BlockRegistry.id("jungle_log"), JUNGLE_LEAVES = BlockRegistry.id("jungle_leaves"),
+            GRANITE = BlockRegistry.id("granite"), ANDESITE = BlockRegistry.id("andesite"),
+            DIORITE = BlockRegistry.id("diorite"), TUFF = BlockRegistry.id("tuff"), COAL_ORE = BlockRegistry.id("coal_ore"),
+            IRON_ORE = BlockRegistry.id("iron_ore"), COPPER_ORE = BlockRegistry.id("copper_ore"),
+            DIAMOND_ORE = BlockRegistry.id("diamond_ore"), SNOW = BlockRegistry.id("snow"),
+            SNOW_BLOCK = BlockRegistry.id("snow_block"), SMOOTH_STONE = BlockRegistry.id("smooth_stone"),
+            STONE_BRICKS = BlockRegistry.id("stone_bricks"), BRICKS = BlockRegistry.id("bricks"),
+            WHITE_CONCRETE = BlockRegistry.id("white_concrete"), GRAY_CONCRETE = BlockRegistry.id("gray_concrete"),
+            POLISHED_ANDESITE = BlockRegistry.id("polished_andesite"), OAK_PLANKS = BlockRegistry.id("oak_planks"),
+            OAK_SLAB = BlockRegistry.id("oak_slab"), OAK_STAIRS = BlockRegistry.id("oak_stairs"),
+            GLASS = BlockRegistry.id("glass"), GLASS_PANE = BlockRegistry.id("glass_pane"),
+            COBBLESTONE = BlockRegistry.id("cobblestone"), GLOWSTONE = BlockRegistry.id("glowstone"),
+            LANTERN = BlockRegistry.id("lantern");
+
+    /** Generator helpers over a fresh volume. */
+    private static final class Column {
+        final BlockVolume v = new BlockVolume(MIN_Y, HEIGHT);
+
+        boolean in(int x, int y, int z) { return v.contains(x, y, z); }
+
+        void set(int x, int y, int z, int id) {
+            if (in(x, y, z)) v.set(x, y, z, id);
+        }
+
+        int get(int x, int y, int z) { return v.blockId(x, y, z); }
+
+        void fill(int x, int z, int y0, int y1, int id) {
+            for (int y = y0; y <= y1; y++) set(x, y, z, id);
+        }
+
+        BlockVolume build() { return v; }
+    }
+
+    /** Cheap smooth 2D noise in [0,1): a few summed sines with seeded phases. */
+    private static double noise(Random r, double[] phase, double x, double z) {
+        if (phase[0] == 0) for (int i = 0; i < phase.length; i++) phase[i] = r.nextDouble() * Math.PI * 2;
+        double v = Math.sin(x * 0.21 + phase[0]) * Math.cos(z * 0.17 + phase[1])
+                + 0.5 * Math.sin((x + z) * 0.43 + phase[2])
+                + 0.25 * Math.cos((x - z) * 0.77 + phase[3]);
+        return (v / 1.75 + 1) / 2;
+    }
+
+    private static void baseTerrain(Column c, int x, int z, int surface, Random r) {
+        c.set(x, MIN_Y, z, BEDROCK);
+        c.fill(x, z, MIN_Y + 1, -1, DEEPSLATE);
+        c.fill(x, z, 0, surface - 4, STONE);
+        for (int y = MIN_Y + 1; y < surface - 4; y++) {
+            if (r.nextInt(90) == 0) c.set(x, y, z, y < 0 ? DIAMOND_ORE : COAL_ORE);
+            else if (r.nextInt(60) == 0) c.set(x, y, z, IRON_ORE);
+            else if (y >= 0 && r.nextInt(40) == 0) c.set(x, y, z, GRANITE);
+        }
+    }
+
+    static BlockVolume plains(long seed) {
+        Random r = new Random(seed);
+        double[] ph = new double[4];
+        Column c = new Column();
+        for (int z = 0; z < 16; z++) for (int x = 0; x < 16; x++) {
+            int surface = 64 + (int) (noise(r, ph, x, z) * 4);
+            baseTerrain(c, x, z, surface, r);
+            c.fill(x, z, surface - 3, surface - 1, DIRT);
+            c.set(x, surface, z, GRASS_BLOCK);
+            int p = r.nextInt(10);
+            if (p < 3) c.set(x, surface + 1, z, SHORT_GRASS);
+            else if (p == 3) c.fill(x, z, surface + 1, surface + 2, TALL_GRASS);
+        }
+        return c.build();
+    }
+
+    static BlockVolume ocean(long seed) {
+        Random r = new Random(seed);
+        double[] ph = new double[4];
+        Column c = new Column();
+        for (int z = 0; z < 16; z++) for (int x = 0; x < 16; x++) {
+            int floor = 40 + (int) (noise(r, ph, x, z) * 8);
+            baseTerrain(c, x, z, floor, r);
+            c.fill(x, z, floor - 3, floor - 1, r.nextBoolean() ? SAND : GRAVEL);
+            c.set(x, floor, z, r.nextInt(6) == 0 ? CLAY : SAND);
+            c.fill(x, z, floor + 1, 62, WATER);
+            int p = r.nextInt(8);
+            if (p == 0) c.set(x, floor + 1, z, SEAGRASS);
+            else if (p == 1) c.fill(x, z, floor + 1, floor + 1 + r.nextInt(12), KELP);
+        }
+        return c.build();
+    }
+
+    static BlockVolume jungle(long seed) {
+        Random r = new Random(seed);
+        double[] ph = new double[4];
+        Column c = new Column();
+        int[] surface = new int[256];
+        for (int z = 0; z < 16; z++) for (int x = 0; x < 16; x++) {
+            int s = 70 + (int) (noise(r, ph, x, z) * 6);
+            surface[z * 16 + x] = s;
+            baseTerrain(c, x, z, s, r);
+            c.fill(x, z, s - 3, s - 1, DIRT);
+            c.set(x, s, z, GRASS_BLOCK);
+            if (r.nextInt(3) == 0) c.set(x, s + 1, z, r.nextBoolean() ? FERN : SHORT_GRASS);
+        }
+        // trees: tall trunks with big canopies, leaf blobs overlapping the chunk edges
+        for (int t = 0; t < 7; t++) {
+            int tx = r.nextInt(16), tz = r.nextInt(16);
+            int base = surface[tz * 16 + tx] + 1;
+            int top = base + 12 + r.nextInt(14);
+            c.fill(tx, tz, base, top, JUNGLE_LOG);
+            int rad = 3 + r.nextInt(3);
+            for (int dy = -2; dy <= 2; dy++)
+                for (int dz = -rad; dz <= rad; dz++)
+                    for (int dx = -rad; dx <= rad; dx++) {
+                        if (dx * dx + dz * dz + dy * dy * 4 > rad * rad) continue;
+                        int x = tx + dx, y = top + dy, z = tz + dz;
+                        if (c.in(x, y, z) && c.get(x, y, z) == AIR) c.set(x, y, z, JUNGLE_LEAVES);
+                    }
+        }
+        // vines hanging off leaves
+        for (int z = 0; z < 16; z++) for (int x = 0; x < 16; x++)
+            for (int y = MIN_Y + HEIGHT - 2; y > 70; y--)
+                if (c.get(x, y, z) == JUNGLE_LEAVES && c.get(x, y - 1, z) == AIR && r.nextInt(4) == 0) {
+                    int len = 1 + r.nextInt(6);
+                    for (int i = 1; i <= len && c.get(x, y - i, z) == AIR; i++) c.set(x, y - i, z, VINE);
+                }
+        return c.build();
+    }
+
+    static BlockVolume mountainCaves(long seed) {
+        Random r = new Random(seed);
+        double[] ph = new double[4];
+        Column c = new Column();
+        for (int z = 0; z < 16; z++) for (int x = 0; x < 16; x++) {
+            int s = 100 + (int) (noise(r, ph, x, z) * 70);
+            baseTerrain(c, x, z, s + 3, r);
+            for (int y = 0; y <= s; y++) {
+                int k = r.nextInt(30);
+                c.set(x, y, z, k == 0 ? ANDESITE : k == 1 ? DIORITE : k == 2 ? TUFF
+                        : k == 3 ? COPPER_ORE : STONE);
+            }
+            c.set(x, s, z, s > 150 ? SNOW_BLOCK : STONE);
+            if (s > 150) c.set(x, s + 1, z, SNOW);
+        }
+        // caves: carve where a few 3D waves line up, plus lava at the bottom
+        for (int y = MIN_Y + 1; y < 160; y++)
+            for (int z = 0; z < 16; z++)
+                for (int x = 0; x < 16; x++) {
+                    double v = Math.sin(x * 0.45 + y * 0.12) + Math.sin(z * 0.39 - y * 0.21) + Math.sin((x + z + y) * 0.18);
+                    if (v > 1.6 && c.get(x, y, z) != BEDROCK)
+                        c.set(x, y, z, y < -54 ? LAVA : CAVE_AIR);
+                }
+        return c.build();
+    }
+
+    static BlockVolume city(long seed) {
+        Random r = new Random(seed);
+        Column c = new Column();
+        for (int z = 0; z < 16; z++) for (int x = 0; x < 16; x++) {
+            baseTerrain(c, x, z, 63, r);
+            c.fill(x, z, 60, 62, DIRT);
+            boolean road = x < 3 || z < 3;
+            c.set(x, 63, z, road ? POLISHED_ANDESITE : SMOOTH_STONE);
+            if (road && (x == 1 || z == 1) && (x + z) % 6 == 0) {
+                c.fill(x, z, 64, 67, COBBLESTONE);
+                c.set(x, 68, z, LANTERN);
+            }
+        }
+        // two buildings: walls with windows, a floor every 5 blocks, lights inside
+        int[] walls = {STONE_BRICKS, BRICKS, WHITE_CONCRETE, GRAY_CONCRETE};
+        int[][] lots = {{4, 4, 9, 15}, {11, 4, 15, 15}};
+        for (int[] lot : lots) {
+            int wall = walls[r.nextInt(walls.length)];
+            int top = 64 + 15 + r.nextInt(40);
+            for (int y = 64; y <= top; y++)
+                for (int z = lot[1]; z <= lot[3]; z++)
+                    for (int x = lot[0]; x <= lot[2]; x++) {
+                        boolean edge = x == lot[0] || x == lot[2] || z == lot[1] || z == lot[3];
+                        boolean floor = (y - 64) % 5 == 0 || y == top;
+                        if (floor) c.set(x, y, z, y == top ? SMOOTH_STONE : OAK_PLANKS);
+                        else if (edge) {
+                            boolean window = (y - 64) % 5 >= 2 && (x + z) % 3 != 0;
+                            c.set(x, y, z, window ? (r.nextBoolean() ? GLASS : GLASS_PANE) : wall);
+                        } else if ((y - 64) % 5 == 4 && x == (lot[0] + lot[2]) / 2 && z % 4 == 0) {
+                            c.set(x, y, z, GLOWSTONE);
+                        } else if ((y - 64) % 5 == 1 && r.nextInt(20) == 0) {
+                            c.set(x, y, z, r.nextBoolean() ? OAK_STAIRS : OAK_SLAB);
+                        }
+                    }
+        }
+        return c.build();
+    }
+}
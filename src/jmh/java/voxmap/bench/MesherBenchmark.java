@@ -0,0 +1,62 @@
+package voxmap.bench;
+
+import org.openjdk.jmh.annotations.*;
+import voxmap.render.BlockVolume;
+import voxmap.render.ChunkMesh;
+import voxmap.render.CullRules;
+import voxmap.render.ExposedFaceMesher;
+import voxmap.render.VisibilityMask;
+import voxmap.texture.TextureAtlasService;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/** Full-column meshing of one fixture chunk. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MesherBenchmark {
+
+    @Param({"plains", "ocean", "jungle", "mountain_caves", "city"})
+    public String fixture;
+
+    /** Include the cave-culling pass (surface-only worlds). */
+    @Param({"false", "true"})
+    public boolean surfaceOnly;
+
+    private BlockVolume chunk;
+    private TextureAtlasService atlas;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws Exception {
+        chunk = Fixtures.load(fixture);
+        atlas = Fixtures.atlas();
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public ChunkMesh mesh() {
+        VisibilityMask mask = surfaceOnly ? VisibilityMask.surface(chunk, chunk.minY(), chunk.maxY(), 8) : null;
+        return ExposedFaceMesher.mesh(chunk, chunk.minY(), chunk.maxY(), atlas, mask);
+    }
+
+    /** One chunk on an otherwise idle pool, its sections spread over the workers. */
+    @Benchmark
+    public ChunkMesh meshSections() {
+        return pool.invoke(ForkJoinTask.adapt(() -> {
+            VisibilityMask mask = surfaceOnly ? VisibilityMask.surface(chunk, chunk.minY(), chunk.maxY(), 8) : null;
+            return ExposedFaceMesher.meshSections(chunk, chunk.minY(), chunk.maxY(), atlas, mask,
+                    CullRules.DEFAULT, true, true, false);
+        }));
+    }
+}
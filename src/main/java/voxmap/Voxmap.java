@@ -1,15 +1,23 @@
 package voxmap;
 
+import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 import voxmap.command.VoxmapCommand;
 import voxmap.config.MarkerStore;
 import voxmap.config.WorldsConfig;
+import voxmap.http.StaticExporter;
 import voxmap.http.WebServer;
-import voxmap.render.ChunkMeshCache;
 import voxmap.render.ChunkMeshService;
+import voxmap.render.ChunkSnapshotSource;
 import voxmap.texture.TextureAtlasService;
 import voxmap.listeners.ChunkDirtyListener;
+import voxmap.listeners.WarmListener;
 import voxmap.render.ChunkMeshCacheService;
+import voxmap.render.DirtyRegionJournal;
+import voxmap.render.MeshStore;
+import voxmap.render.MeshWarmer;
+
+import java.io.File;
 
 
 
@@ -22,6 +30,9 @@ public final class Voxmap extends JavaPlugin {
     private TextureAtlasService atlasService;
 
     private ChunkMeshCacheService chunkCache;
+    private DirtyRegionJournal dirtyJournal;
+    private StaticExporter exporter;
+    private MeshWarmer warmer;
 
     @Override
     public void onEnable() {
@@ -44,18 +55,36 @@ public final class Voxmap extends JavaPlugin {
         markerStore = new MarkerStore(this);
         markerStore.loadOrCreate();
 
+        ChunkSnapshotSource.init(); // block ids and traits for every material, before any other thread uses them
         atlasService = new TextureAtlasService(this);
-        // builds atlas from resource pack or fallback
-        try {
-            atlasService.loadOrCreate();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        // builds atlas from resource pack (or atlas cache, or fallback) in the background;
+        // meshing waits for it and the web server answers 503 meanwhile
+        var atlasReady = atlasService.loadOrCreateAsync();
+        meshService = new ChunkMeshService(this, worldsConfig, atlasService);
+        MeshStore meshStore = null;
+        if (getConfig().getBoolean("meshStore.enabled", true)) {
+            File dir = new File(getDataFolder(), getConfig().getString("meshStore.directory", "meshcache"));
+            meshStore = new MeshStore(dir, atlasService::fingerprint, getLogger());
         }
-        chunkCache = new ChunkMeshCacheService(this, atlasService);
-        getServer().getPluginManager().registerEvents(new ChunkDirtyListener(chunkCache), this);
-        meshService = new ChunkMeshService(this, new ChunkMeshCache(this), worldsConfig, atlasService);
+        chunkCache = new ChunkMeshCacheService(this, meshService, meshStore);
+        exporter = new StaticExporter(this, worldsConfig, markerStore, atlasService, chunkCache, meshStore);
+        chunkCache.addListener(exporter);
+        warmer = new MeshWarmer(this, chunkCache, meshService);
+        atlasReady.thenRun(() -> {
+            if (isEnabled()) Bukkit.getScheduler().runTask(this, () -> {
+                exporter.start();
+                warmer.start();
+            });
+        });
+        dirtyJournal = new DirtyRegionJournal(this, chunkCache);
+        dirtyJournal.start();
+        getServer().getPluginManager().registerEvents(new ChunkDirtyListener(chunkCache, dirtyJournal), this);
+        if (getConfig().getBoolean("render.dirtyOnPhysics", false)) {
+            getServer().getPluginManager().registerEvents(new ChunkDirtyListener.Physics(dirtyJournal), this);
+        }
+        if (warmer.enabled()) getServer().getPluginManager().registerEvents(new WarmListener(warmer), this);
 
-        VoxmapCommand cmd = new VoxmapCommand(this, worldsConfig, markerStore, meshService);
+        VoxmapCommand cmd = new VoxmapCommand(this, worldsConfig, markerStore, meshService, dirtyJournal);
         var c = getCommand("voxmap");
         if (c != null) {
             c.setExecutor(cmd);
@@ -78,10 +107,20 @@ public final class Voxmap extends JavaPlugin {
     @Override
     public void onDisable() {
         if (webServer != null) webServer.stop();
+        if (warmer != null) warmer.stop();
+        if (dirtyJournal != null) dirtyJournal.stop();
+        if (exporter != null) exporter.stop();
         if (meshService != null) meshService.shutdown();
+        if (chunkCache != null) chunkCache.close();
+        if (markerStore != null) markerStore.close();
         getLogger().info("Voxmap disabled.");
     }
 
+    /** Lets other plugins (e.g. after a WorldEdit operation) invalidate a region of the map. */
+    public DirtyRegionJournal getDirtyJournal() { return dirtyJournal; }
+
+    public StaticExporter getStaticExporter() { return exporter; }
+
     public void restartWebServer() throws Exception {
         if (webServer != null) webServer.stop();
         webServer = new WebServer(this, worldsConfig, markerStore, meshService, atlasService, chunkCache);
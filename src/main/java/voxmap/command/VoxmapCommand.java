@@ -1,16 +1,24 @@
 package voxmap.command;
 
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.*;
 import org.bukkit.entity.Player;
 import voxmap.Voxmap;
 import voxmap.config.MarkerStore;
 import voxmap.config.WorldsConfig;
+import voxmap.metrics.LatencyHistogram;
+import voxmap.metrics.RenderMetrics;
+import voxmap.render.ChunkFixture;
+import voxmap.render.ChunkSnapshotSource;
 import voxmap.render.ChunkMeshService;
+import voxmap.render.DirtyRegionJournal;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 
 public class VoxmapCommand implements CommandExecutor, TabCompleter {
 
@@ -18,12 +26,14 @@ public class VoxmapCommand implements CommandExecutor, TabCompleter {
     private final WorldsConfig worlds;
     private final MarkerStore markers;
     private final ChunkMeshService meshes;
+    private final DirtyRegionJournal journal;
 
-    public VoxmapCommand(Voxmap plugin, WorldsConfig worlds, MarkerStore markers, ChunkMeshService meshes) {
+    public VoxmapCommand(Voxmap plugin, WorldsConfig worlds, MarkerStore markers, ChunkMeshService meshes, DirtyRegionJournal journal) {
         this.plugin = plugin;
         this.worlds = worlds;
         this.markers = markers;
         this.meshes = meshes;
+        this.journal = journal;
     }
 
     private boolean admin(CommandSender s) { return s.hasPermission("voxmap.admin"); }
@@ -37,6 +47,10 @@ public class VoxmapCommand implements CommandExecutor, TabCompleter {
             sender.sendMessage(ChatColor.GRAY + "/" + label + " marker add <name> [label...]");
             sender.sendMessage(ChatColor.GRAY + "/" + label + " marker del <name>");
             sender.sendMessage(ChatColor.GRAY + "/" + label + " marker list");
+            sender.sendMessage(ChatColor.GRAY + "/" + label + " invalidate [radiusChunks]");
+            sender.sendMessage(ChatColor.GRAY + "/" + label + " stats");
+            sender.sendMessage(ChatColor.GRAY + "/" + label + " fixture <name>");
+            sender.sendMessage(ChatColor.GRAY + "/" + label + " export <world>");
             return true;
         }
 
@@ -65,6 +79,84 @@ public class VoxmapCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
+        if (args[0].equalsIgnoreCase("invalidate")) {
+            // Re-mesh chunks around the player, e.g. after a WorldEdit operation.
+            if (!admin(sender)) { sender.sendMessage(ChatColor.RED + "No permission."); return true; }
+            if (!(sender instanceof Player p)) { sender.sendMessage(ChatColor.RED + "Player-only."); return true; }
+            int r;
+            try { r = (args.length >= 2) ? Math.max(0, Math.min(32, Integer.parseInt(args[1]))) : 4; }
+            catch (NumberFormatException nfe) { sender.sendMessage(ChatColor.RED + "Radius must be a number."); return true; }
+            int pcx = p.getLocation().getBlockX() >> 4, pcz = p.getLocation().getBlockZ() >> 4;
+            for (int cx = pcx - r; cx <= pcx + r; cx++)
+                for (int cz = pcz - r; cz <= pcz + r; cz++)
+                    journal.markChunk(p.getWorld(), cx, cz);
+            int n = (2 * r + 1) * (2 * r + 1);
+            sender.sendMessage(ChatColor.GREEN + "Marked " + n + " chunks dirty around you.");
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("stats")) {
+            if (!admin(sender)) { sender.sendMessage(ChatColor.RED + "No permission."); return true; }
+            sender.sendMessage(ChatColor.AQUA + "" + ChatColor.BOLD + "Voxmap render stats");
+            sender.sendMessage(latencyLine("Mesh build", RenderMetrics.MESH_BUILD));
+            sender.sendMessage(latencyLine("Snapshot wait", RenderMetrics.SNAPSHOT_WAIT));
+            sender.sendMessage(latencyLine("Snapshot (main)", RenderMetrics.SNAPSHOT_MAIN_THREAD));
+            sender.sendMessage(ChatColor.GRAY + "Cache: " + ChatColor.WHITE
+                    + String.format(Locale.ROOT, "%.1f%% hit", RenderMetrics.cacheHitRatio() * 100)
+                    + ChatColor.DARK_GRAY + " of " + RenderMetrics.cacheRequests()
+                    + ChatColor.GRAY + ", " + ChatColor.WHITE + RenderMetrics.gaugeValue("voxmap_cache_chunks") + " chunks"
+                    + ChatColor.GRAY + ", " + ChatColor.WHITE + mib(RenderMetrics.gaugeValue("voxmap_cache_bytes")));
+            sender.sendMessage(ChatColor.GRAY + "Mesher queue: " + ChatColor.WHITE + meshes.queueDepth()
+                    + ChatColor.GRAY + ", rebuilds: " + ChatColor.WHITE + RenderMetrics.REBUILDS.sum()
+                    + ChatColor.GRAY + " (" + RenderMetrics.REBUILD_FAILURES.sum() + " failed)");
+            sender.sendMessage(ChatColor.GRAY + "Served: " + ChatColor.WHITE + mib(RenderMetrics.httpBytes())
+                    + ChatColor.GRAY + ", 5xx: " + ChatColor.WHITE + RenderMetrics.http5xx()
+                    + ChatColor.GRAY + ", timeouts: " + ChatColor.WHITE + RenderMetrics.HTTP_TIMEOUTS.sum());
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("fixture")) {
+            // Records the player's chunk for the mesher benchmarks (src/jmh).
+            if (!admin(sender)) { sender.sendMessage(ChatColor.RED + "No permission."); return true; }
+            if (!(sender instanceof Player p)) { sender.sendMessage(ChatColor.RED + "Player-only."); return true; }
+            if (args.length < 2 || !args[1].matches("[A-Za-z0-9_-]+")) {
+                sender.sendMessage(ChatColor.RED + "Usage: /" + label + " fixture <name> (letters, digits, _ and - only)");
+                return true;
+            }
+            var world = p.getWorld();
+            var snap = p.getLocation().getChunk().getChunkSnapshot(false, false, false);
+            File out = new File(new File(plugin.getDataFolder(), "fixtures"), args[1] + ".vxf");
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                try {
+                    ChunkFixture.write(ChunkFixture.capture(
+                            new ChunkSnapshotSource(snap, world.getMinHeight(), world.getMaxHeight() - 1)), out);
+                    p.sendMessage(ChatColor.GREEN + "Saved fixture " + ChatColor.AQUA + out.getName());
+                } catch (Exception e) {
+                    p.sendMessage(ChatColor.RED + "Fixture failed: " + e.getMessage());
+                }
+            });
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("export")) {
+            if (!admin(sender)) { sender.sendMessage(ChatColor.RED + "No permission."); return true; }
+            if (args.length < 2) { sender.sendMessage(ChatColor.RED + "Usage: /" + label + " export <world>"); return true; }
+            var world = Bukkit.getWorld(args[1]);
+            if (world == null) { sender.sendMessage(ChatColor.RED + "Unknown world: " + args[1]); return true; }
+            var exporter = plugin.getStaticExporter();
+            sender.sendMessage(ChatColor.GRAY + "Exporting " + world.getName() + "...");
+            exporter.exportWorld(world).whenComplete((r, err) -> {
+                if (err != null) {
+                    sender.sendMessage(ChatColor.RED + "Export failed: " + err.getMessage());
+                } else {
+                    sender.sendMessage(ChatColor.GREEN + "Exported " + r.chunks() + " chunks in " + r.regions()
+                            + " regions (" + r.written() + " new files, " + r.meshed() + " loaded chunks meshed) to "
+                            + ChatColor.AQUA + exporter.getRoot().getPath());
+                }
+            });
+            return true;
+        }
+
         if (args[0].equalsIgnoreCase("marker")) {
             if (!(sender instanceof Player p)) { sender.sendMessage(ChatColor.RED + "Player-only."); return true; }
             if (args.length < 2) { sender.sendMessage(ChatColor.RED + "Usage: /" + label + " marker <add|del|list> ..."); return true; }
@@ -113,12 +205,28 @@ public class VoxmapCommand implements CommandExecutor, TabCompleter {
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         List<String> out = new ArrayList<>();
-        if (args.length == 1) return filter(List.of("reload","marker","help"), args[0]);
+        if (args.length == 1) return filter(List.of("reload","marker","invalidate","stats","fixture","export","help"), args[0]);
         if (args.length == 2 && args[0].equalsIgnoreCase("reload")) return filter(List.of("config","webserver","markers","worlds","all"), args[1]);
         if (args.length == 2 && args[0].equalsIgnoreCase("marker")) return filter(List.of("add","del","list"), args[1]);
+        if (args.length == 2 && args[0].equalsIgnoreCase("export")) {
+            List<String> names = new ArrayList<>();
+            for (var w : Bukkit.getWorlds()) names.add(w.getName());
+            return filter(names, args[1]);
+        }
         return List.of();
     }
 
+    private static String latencyLine(String name, LatencyHistogram h) {
+        return ChatColor.GRAY + name + ": " + ChatColor.WHITE
+                + String.format(Locale.ROOT, "p50 %.1fms  p99 %.1fms  max %.1fms",
+                        h.quantileSeconds(0.50) * 1000, h.quantileSeconds(0.99) * 1000, h.maxSeconds() * 1000)
+                + ChatColor.DARK_GRAY + " (" + h.count() + ")";
+    }
+
+    private static String mib(long bytes) {
+        return String.format(Locale.ROOT, "%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+
     private static List<String> filter(List<String> src, String q) {
         if (q == null || q.isEmpty()) return src;
         String s = q.toLowerCase();
@@ -1,73 +1,220 @@
 package voxmap.config;
 
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+/**
+ * Markers from markers.yml, held as an immutable index per world (sorted list plus a coarse
+ * spatial grid). Readers (HTTP threads, the exporter) never lock: an edit builds a new index
+ * for its world and swaps it in. markers.yml is rewritten by a background thread
+ * {@code performance.markerSaveDelayMs} after the last edit, and on {@link #close()}.
+ */
 public class MarkerStore {
+    // grid cells are 256 x 256 blocks
+    private static final int CELL_SHIFT = 8;
+
     private final JavaPlugin plugin;
     private final File file;
-    private YamlConfiguration yml;
+    private volatile Map<String, WorldIndex> worlds = Map.of();
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Voxmap-Markers");
+        t.setDaemon(true);
+        return t;
+    });
+    private ScheduledFuture<?> pendingSave; // guarded by this
 
     public MarkerStore(JavaPlugin plugin) {
         this.plugin = plugin;
         this.file = new File(plugin.getDataFolder(), "markers.yml");
     }
 
-    public void loadOrCreate() {
+    /** (Re)reads markers.yml; the file wins over edits not yet written. */
+    public synchronized void loadOrCreate() {
         plugin.getDataFolder().mkdirs();
         if (!file.exists()) {
             try { file.createNewFile(); }
             catch (IOException e) { throw new RuntimeException("Failed to create markers.yml", e); }
         }
-        this.yml = YamlConfiguration.loadConfiguration(file);
-        if (!yml.contains("markers")) {
-            yml.set("markers", new LinkedHashMap<>());
-            save();
+        if (pendingSave != null) pendingSave.cancel(false);
+        pendingSave = null;
+
+        YamlConfiguration yml = YamlConfiguration.loadConfiguration(file);
+        Map<String, WorldIndex> loaded = new HashMap<>();
+        ConfigurationSection root = yml.getConfigurationSection("markers");
+        if (root != null) {
+            for (String world : root.getKeys(false)) {
+                ConfigurationSection sec = root.getConfigurationSection(world);
+                if (sec == null) continue;
+                Map<String, Marker> byName = new HashMap<>();
+                for (String key : sec.getKeys(false)) {
+                    byName.put(key, new Marker(key, sec.getString(key + ".label", key),
+                            sec.getInt(key + ".x"), sec.getInt(key + ".y"), sec.getInt(key + ".z")));
+                }
+                loaded.put(world, new WorldIndex(byName));
+            }
         }
+        worlds = Map.copyOf(loaded);
+        if (root == null) scheduleSave();
     }
 
     public void addOrUpdate(String world, String name, String label, int x, int y, int z) {
-        String base = "markers." + world + "." + name;
-        yml.set(base + ".label", label);
-        yml.set(base + ".x", x);
-        yml.set(base + ".y", y);
-        yml.set(base + ".z", z);
-        save();
+        edit(world, m -> {
+            m.put(name, new Marker(name, label, x, y, z));
+            return true;
+        });
     }
 
     public boolean remove(String world, String name) {
-        String base = "markers." + world + "." + name;
-        if (!yml.contains(base)) return false;
-        yml.set(base, null);
-        save();
+        return edit(world, m -> m.remove(name) != null);
+    }
+
+    private interface Edit { boolean apply(Map<String, Marker> byName); }
+
+    // copy-on-write: readers keep whatever index they already hold
+    private synchronized boolean edit(String world, Edit edit) {
+        WorldIndex old = worlds.get(world);
+        Map<String, Marker> byName = old == null ? new HashMap<>() : new HashMap<>(old.byName);
+        if (!edit.apply(byName)) return false;
+        Map<String, WorldIndex> next = new HashMap<>(worlds);
+        next.put(world, new WorldIndex(byName));
+        worlds = Map.copyOf(next);
+        scheduleSave();
         return true;
     }
 
+    /** Markers of a world sorted by name (unmodifiable). */
     public List<Marker> list(String world) {
-        List<Marker> out = new ArrayList<>();
-        var sec = yml.getConfigurationSection("markers." + world);
-        if (sec == null) return out;
-        for (String key : sec.getKeys(false)) {
-            String base = "markers." + world + "." + key;
-            String label = yml.getString(base + ".label", key);
-            int x = yml.getInt(base + ".x");
-            int y = yml.getInt(base + ".y");
-            int z = yml.getInt(base + ".z");
-            out.add(new Marker(key, label, x, y, z));
-        }
-        out.sort(Comparator.comparing(a -> a.name));
+        WorldIndex idx = worlds.get(world);
+        return idx == null ? List.of() : idx.sorted;
+    }
+
+    /**
+     * All markers of a world run through {@code encode} (e.g. to the /api/markers body), kept
+     * with the world's index so it is only redone after an edit. Use one encoding per store.
+     */
+    public byte[] encoded(String world, Function<List<Marker>, byte[]> encode) {
+        WorldIndex idx = worlds.get(world);
+        if (idx == null) return encode.apply(List.of());
+        byte[] out = idx.encoded;
+        if (out == null) idx.encoded = out = encode.apply(idx.sorted); // racy but idempotent
         return out;
     }
 
+    /** Markers of a world with minX <= x <= maxX and minZ <= z <= maxZ, sorted by name. */
+    public List<Marker> query(String world, int minX, int minZ, int maxX, int maxZ) {
+        WorldIndex idx = worlds.get(world);
+        return idx == null ? List.of() : idx.query(minX, minZ, maxX, maxZ);
+    }
+
+    private synchronized void scheduleSave() {
+        if (pendingSave != null && !pendingSave.isDone()) return; // the pending write will see this edit
+        long delay = Math.max(0, plugin.getConfig().getLong("performance.markerSaveDelayMs", 2000));
+        pendingSave = writer.schedule(this::save, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /** Writes the current markers to markers.yml (via a temp file, so a crash never leaves it half written). */
     public void save() {
-        try { yml.save(file); }
-        catch (IOException e) { plugin.getLogger().warning("Failed saving markers.yml: " + e.getMessage()); }
+        synchronized (this) { pendingSave = null; }
+        Map<String, WorldIndex> snapshot = worlds;
+        YamlConfiguration yml = new YamlConfiguration();
+        yml.set("markers", new LinkedHashMap<>());
+        for (var e : new TreeMap<>(snapshot).entrySet()) {
+            for (Marker m : e.getValue().sorted) {
+                String base = "markers." + e.getKey() + "." + m.name;
+                yml.set(base + ".label", m.label);
+                yml.set(base + ".x", m.x);
+                yml.set(base + ".y", m.y);
+                yml.set(base + ".z", m.z);
+            }
+        }
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            yml.save(tmp);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed saving markers.yml: " + e.getMessage());
+        }
     }
 
+    /** Writes pending edits and stops the writer thread. */
+    public void close() {
+        boolean dirty;
+        synchronized (this) {
+            dirty = pendingSave != null && pendingSave.cancel(false);
+        }
+        writer.shutdown();
+        try { writer.awaitTermination(5, TimeUnit.SECONDS); }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        if (dirty) save();
+    }
+
+    private static long cell(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xffffffffL);
+    }
+
+    /** One world's markers; never modified after construction (the encoded cache aside). */
+    private static final class WorldIndex {
+        final Map<String, Marker> byName;
+        final List<Marker> sorted;
+        final Map<Long, Marker[]> grid;
+        volatile byte[] encoded; // see MarkerStore#encoded
+
+        WorldIndex(Map<String, Marker> byName) {
+            this.byName = byName;
+            Marker[] all = byName.values().toArray(new Marker[0]);
+            Arrays.sort(all, BY_NAME);
+            this.sorted = List.of(all);
+            Map<Long, List<Marker>> cells = new HashMap<>();
+            for (Marker m : all) {
+                cells.computeIfAbsent(cell(m.x >> CELL_SHIFT, m.z >> CELL_SHIFT), k -> new ArrayList<>()).add(m);
+            }
+            Map<Long, Marker[]> grid = new HashMap<>(cells.size() * 2);
+            for (var e : cells.entrySet()) grid.put(e.getKey(), e.getValue().toArray(new Marker[0]));
+            this.grid = grid;
+        }
+
+        List<Marker> query(int minX, int minZ, int maxX, int maxZ) {
+            if (minX > maxX || minZ > maxZ) return List.of();
+            int cx0 = minX >> CELL_SHIFT, cx1 = maxX >> CELL_SHIFT;
+            int cz0 = minZ >> CELL_SHIFT, cz1 = maxZ >> CELL_SHIFT;
+            List<Marker> out = new ArrayList<>();
+            long cells = ((long) cx1 - cx0 + 1) * ((long) cz1 - cz0 + 1);
+            if (cells >= grid.size()) {
+                // box covers more cells than are occupied: a scan is cheaper and already sorted
+                for (Marker m : sorted) if (inside(m, minX, minZ, maxX, maxZ)) out.add(m);
+                return out;
+            }
+            for (int cx = cx0; cx <= cx1; cx++) {
+                for (int cz = cz0; cz <= cz1; cz++) {
+                    Marker[] in = grid.get(cell(cx, cz));
+                    if (in == null) continue;
+                    for (Marker m : in) if (inside(m, minX, minZ, maxX, maxZ)) out.add(m);
+                }
+            }
+            out.sort(BY_NAME);
+            return out;
+        }
+
+        private static boolean inside(Marker m, int minX, int minZ, int maxX, int maxZ) {
+            return m.x >= minX && m.x <= maxX && m.z >= minZ && m.z <= maxZ;
+        }
+    }
+
+    private static final Comparator<Marker> BY_NAME = Comparator.comparing(a -> a.name);
+
     public static class Marker {
         public final String name, label;
         public final int x,y,z;
@@ -4,6 +4,7 @@ import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
+import voxmap.render.RenderProfile;
 
 import java.io.File;
 import java.io.IOException;
@@ -37,6 +38,11 @@ public class WorldsConfig {
                 yml.set(base + ".icon", defaultIcon(w));
                 changed = true;
             }
+            if (!yml.contains(base + ".render")) {
+                writeProfile(base + ".render", defaultProfile(w), yml.get(base + ".surfaceOnly"));
+                yml.set(base + ".surfaceOnly", null);
+                changed = true;
+            }
         }
         if (changed) save();
     }
@@ -57,6 +63,20 @@ public class WorldsConfig {
         };
     }
 
+    private RenderProfile defaultProfile(World w) {
+        return RenderProfile.defaults(w.getEnvironment().name());
+    }
+
+    private void writeProfile(String path, RenderProfile p, Object legacySurfaceOnly) {
+        RenderProfile.Mode mode = p.mode;
+        if (legacySurfaceOnly instanceof Boolean b) mode = b ? RenderProfile.Mode.SURFACE : RenderProfile.Mode.FULL;
+        yml.set(path + ".mode", mode.name().toLowerCase(Locale.ROOT));
+        yml.set(path + ".maxY", p.maxY == Integer.MAX_VALUE ? "none" : p.maxY);
+        yml.set(path + ".ceilingCut", p.ceilingCut);
+        yml.set(path + ".viewDistanceChunks", p.viewDistanceChunks);
+        yml.set(path + ".lighting", p.bakedLighting ? "baked" : "dynamic");
+    }
+
     public void save() {
         try { yml.save(file); }
         catch (IOException e) { plugin.getLogger().warning("Failed saving worlds.yml: " + e.getMessage()); }
@@ -66,6 +86,20 @@ public class WorldsConfig {
         return yml.getBoolean("worlds." + world + ".enabled", true);
     }
 
+    /** How a world is meshed; worlds without a render section get the full mesh. */
+    public RenderProfile profile(String world) {
+        return readProfile("worlds." + world + ".render");
+    }
+
+    private RenderProfile readProfile(String path) {
+        RenderProfile.Mode mode = RenderProfile.Mode.parse(yml.getString(path + ".mode"), RenderProfile.Mode.FULL);
+        int maxY = yml.isInt(path + ".maxY") ? yml.getInt(path + ".maxY") : Integer.MAX_VALUE;
+        boolean ceilingCut = yml.getBoolean(path + ".ceilingCut", false);
+        int viewDistance = Math.max(0, yml.getInt(path + ".viewDistanceChunks", 0));
+        boolean baked = "baked".equalsIgnoreCase(yml.getString(path + ".lighting", "dynamic"));
+        return new RenderProfile(mode, maxY, ceilingCut, viewDistance, baked);
+    }
+
     public List<WorldEntry> enabledWorlds() {
         List<WorldEntry> out = new ArrayList<>();
         var sec = yml.getConfigurationSection("worlds");
@@ -84,14 +118,16 @@ public class WorldsConfig {
         String displayName = yml.getString(base + ".displayName", name);
         String icon = yml.getString(base + ".icon", "");
         boolean enabled = yml.getBoolean(base + ".enabled", true);
-        return new WorldEntry(name, displayName, icon, enabled);
+        return new WorldEntry(name, displayName, icon, enabled, readProfile(base + ".render"));
     }
 
     public static class WorldEntry {
         public final String name, displayName, icon;
         public final boolean enabled;
-        public WorldEntry(String name, String displayName, String icon, boolean enabled) {
+        public final RenderProfile profile;
+        public WorldEntry(String name, String displayName, String icon, boolean enabled, RenderProfile profile) {
             this.name = name; this.displayName = displayName; this.icon = icon; this.enabled = enabled;
+            this.profile = profile;
         }
     }
 }
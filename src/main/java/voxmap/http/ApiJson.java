@@ -0,0 +1,158 @@
+package voxmap.http;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+import voxmap.config.MarkerStore;
+import voxmap.config.WorldsConfig;
+import voxmap.texture.TextureAtlasService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * JSON bodies of the web API, shared by the {@link WebServer} and the {@link StaticExporter}
+ * so both give app.js the same shapes. Bukkit getters must be called on the main thread
+ * where the API requires it.
+ */
+final class ApiJson {
+
+    private ApiJson() {}
+
+    /**
+     * /api/worlds; {@code atlasFile} is set for static exports (content-addressed atlas image).
+     * {@code regionChunks} > 0 offers /api/region meshes of that many chunks per side for
+     * chunks further than {@code regionBeyond} from the view.
+     */
+    static String worlds(int viewDist, int regionChunks, int regionBeyond, TextureAtlasService atlas,
+                         List<WorldsConfig.WorldEntry> list, String atlasFile) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"defaultViewDistanceChunks\":").append(viewDist);
+        if (regionChunks > 0) {
+            sb.append(",\"regionMesh\":{\"chunks\":").append(regionChunks)
+                    .append(",\"beyondChunks\":").append(regionBeyond).append('}');
+        }
+        sb.append(",\"atlas\":{\"tileSize\":").append(atlas.getTileSize())
+                .append(",\"tilesPerRow\":").append(atlas.getTilesPerRow())
+                .append(",\"rows\":").append(atlas.getTileRows());
+        if (atlasFile != null) sb.append(",\"file\":").append(json(atlasFile));
+        sb.append("},\"worlds\":[");
+        for (int i = 0; i < list.size(); i++) {
+            var w = list.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"name\":").append(json(w.name))
+                    .append(",\"displayName\":").append(json(w.displayName))
+                    .append(",\"icon\":").append(json(w.icon));
+            if (w.profile.viewDistanceChunks > 0) sb.append(",\"viewDistanceChunks\":").append(w.profile.viewDistanceChunks);
+            sb.append("}");
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    static String status(JavaPlugin plugin, World w) {
+        boolean showClock = plugin.getConfig().getBoolean("ui.showClock", true);
+        boolean showWeather = plugin.getConfig().getBoolean("ui.showWeather", true);
+        boolean showDayNight = plugin.getConfig().getBoolean("ui.showDayNight", true);
+
+        String weather = "CLEAR";
+        if (w.hasStorm()) weather = "RAIN";
+        if (w.isThundering()) weather = "THUNDER";
+        boolean isDay = (w.getTime() % 24000L) < 12000L;
+
+        var spawn = w.getSpawnLocation();
+        return "{"
+                + "\"showClock\":" + showClock + ","
+                + "\"showWeather\":" + showWeather + ","
+                + "\"showDayNight\":" + showDayNight + ","
+                + "\"timeTicks\":" + w.getTime() + ","
+                + "\"weather\":" + json(weather) + ","
+                + "\"isDay\":" + isDay + ","
+                + "\"spawn\":{\"x\":" + spawn.getX() + ",\"y\":" + spawn.getY() + ",\"z\":" + spawn.getZ() + "}"
+                + "}";
+    }
+
+    static String players(Collection<? extends Player> players) {
+        return players(LiveState.Players.capture(players), null, null);
+    }
+
+    /**
+     * /api/players from a capture, optionally only players in {@code world} and inside
+     * {@code box} = {minX, minZ, maxX, maxZ} (inclusive); either may be null.
+     */
+    static String players(LiveState.Players p, String world, double[] box) {
+        StringBuilder sb = new StringBuilder(32 + p.count() * 128);
+        sb.append("{\"players\":[");
+        int n = 0;
+        double[] xyz = p.xyz();
+        for (int i = 0; i < p.count(); i++) {
+            double x = xyz[i * 3], y = xyz[i * 3 + 1], z = xyz[i * 3 + 2];
+            if (world != null && !world.equals(p.worlds()[i])) continue;
+            if (box != null && (x < box[0] || z < box[1] || x > box[2] || z > box[3])) continue;
+            if (n++ > 0) sb.append(',');
+            sb.append("{\"uuid\":").append(json(p.uuids()[i]))
+                    .append(",\"name\":").append(json(p.names()[i]))
+                    .append(",\"world\":").append(json(p.worlds()[i]))
+                    .append(",\"x\":");
+            appendFixed3(sb, x);
+            sb.append(",\"y\":");
+            appendFixed3(sb, y);
+            sb.append(",\"z\":");
+            appendFixed3(sb, z);
+            sb.append("}");
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    /** Same text as {@code String.format(Locale.US, "%.3f", v)} for world coordinates, without the formatter. */
+    static void appendFixed3(StringBuilder sb, double v) {
+        long m = Math.round(Math.abs(v) * 1000.0);
+        if (v < 0 && m != 0) sb.append('-');
+        sb.append(m / 1000).append('.');
+        long frac = m % 1000;
+        if (frac < 100) sb.append('0');
+        if (frac < 10) sb.append('0');
+        sb.append(frac);
+    }
+
+    static String markers(List<MarkerStore.Marker> list) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"markers\":[");
+        for (int j = 0; j < list.size(); j++) {
+            var m = list.get(j);
+            if (j > 0) sb.append(',');
+            sb.append("{\"name\":").append(json(m.name))
+                    .append(",\"label\":").append(json(m.label))
+                    .append(",\"x\":").append(m.x)
+                    .append(",\"y\":").append(m.y)
+                    .append(",\"z\":").append(m.z)
+                    .append("}");
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    static String json(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder();
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '\\' -> sb.append("\\\\");
+                case '"' -> sb.append("\\\"");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (ch < 32) sb.append(String.format(Locale.ROOT, "\\u%04x", (int) ch));
+                    else sb.append(ch);
+                }
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package voxmap.http;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What /api/status and /api/players serve, captured on the main thread every
+ * {@code web.liveStateTicks} ticks. HTTP threads never call into Bukkit and answer every
+ * viewer's poll from the same pre-encoded bytes, so the cost doesn't grow with viewers.
+ */
+final class LiveState {
+
+    /** Online players at capture time; player i stands at xyz[3i], xyz[3i + 1], xyz[3i + 2]. */
+    record Players(String[] uuids, String[] names, String[] worlds, double[] xyz) {
+        int count() { return uuids.length; }
+
+        /** Main thread only. */
+        static Players capture(Collection<? extends Player> online) {
+            int n = online.size(), i = 0;
+            String[] uuids = new String[n], names = new String[n], worlds = new String[n];
+            double[] xyz = new double[n * 3];
+            for (Player p : online) {
+                if (i == n) break; // joined while iterating
+                var loc = p.getLocation();
+                uuids[i] = p.getUniqueId().toString();
+                names[i] = p.getName();
+                worlds[i] = p.getWorld().getName();
+                xyz[i * 3] = loc.getX();
+                xyz[i * 3 + 1] = loc.getY();
+                xyz[i * 3 + 2] = loc.getZ();
+                i++;
+            }
+            return new Players(uuids, names, worlds, xyz);
+        }
+    }
+
+    /** status: world name -> /api/status body; playersJson: /api/players body without filters. */
+    record Snapshot(String defaultWorld, Map<String, byte[]> status, Players players, byte[] playersJson) {}
+
+    private final JavaPlugin plugin;
+    private volatile Snapshot current;
+    private BukkitTask task;
+
+    LiveState(JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /** Captures right away and then periodically; call on the main thread. */
+    void start() {
+        capture();
+        long every = Math.max(1, plugin.getConfig().getInt("web.liveStateTicks", 10));
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::capture, every, every);
+    }
+
+    void stop() {
+        if (task != null) task.cancel();
+        task = null;
+    }
+
+    /** The latest capture, never null once started. */
+    Snapshot current() {
+        return current;
+    }
+
+    private void capture() {
+        Map<String, byte[]> status = new HashMap<>();
+        for (World w : Bukkit.getWorlds()) {
+            status.put(w.getName(), ApiJson.status(plugin, w).getBytes(StandardCharsets.UTF_8));
+        }
+        Players players = Players.capture(Bukkit.getOnlinePlayers());
+        String defaultWorld = Bukkit.getWorlds().isEmpty() ? null : Bukkit.getWorlds().get(0).getName();
+        current = new Snapshot(defaultWorld, Map.copyOf(status), players,
+                ApiJson.players(players, null, null).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,440 @@
+package voxmap.http;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+import voxmap.config.MarkerStore;
+import voxmap.config.WorldsConfig;
+import voxmap.render.ChunkMesh;
+import voxmap.render.ChunkMeshCacheService;
+import voxmap.render.ChunkMeshCodec;
+import voxmap.render.MeshStore;
+import voxmap.texture.TextureAtlasService;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the map as a static site that any web server or CDN can serve, so viewers never
+ * reach the game server:
+ * <pre>
+ * index.html, static/*              web UI (app.js switches to static mode)
+ * data/worlds.json, players.json    same bodies as /api/worlds and /api/players
+ * data/atlas.&lt;hash&gt;.png
+ * data/&lt;world&gt;/manifest.json       {"version", "atlas", "regions": {"rx,rz": regionHash}}
+ * data/&lt;world&gt;/status.json, markers.json
+ * data/&lt;world&gt;/regions/&lt;hash&gt;.json {"chunks": [1024 x chunkHash|null]}, index (cz&amp;31)*32+(cx&amp;31)
+ * data/&lt;world&gt;/chunks/&lt;hh&gt;/&lt;hash&gt;.vxs   encodeSections container, versions zeroed
+ * </pre>
+ * Only the manifest, status, markers and players files ever change; everything named by
+ * hash is immutable and can be cached forever. With export.precompress a .gz copy is written
+ * next to each text/mesh file (nginx gzip_static).
+ *
+ * After {@code /voxmap export <world>}, chunks re-meshed by the plugin are written every
+ * export.intervalSeconds, together with players, status and markers.
+ */
+public class StaticExporter implements ChunkMeshCacheService.Listener {
+
+    private static final Pattern REGION_ENTRY = Pattern.compile("\"(-?\\d+),(-?\\d+)\":\"([0-9a-f]+)\"");
+    private static final Pattern ATLAS_ENTRY = Pattern.compile("\"atlas\":\"([0-9a-f]*)\"");
+    private static final Pattern CHUNK_ENTRY = Pattern.compile("null|\"([0-9a-f]+)\"");
+
+    private final JavaPlugin plugin;
+    private final WorldsConfig worlds;
+    private final MarkerStore markers;
+    private final TextureAtlasService atlas;
+    private final ChunkMeshCacheService cache;
+    private final MeshStore store; // may be null
+
+    private final File root;
+    private final File data;
+
+    // exported world -> region key -> region manifest hash; only touched on the writer thread
+    private final Map<String, Map<Long, String>> exported = new ConcurrentHashMap<>();
+    // worlds with a full export in progress (their changes are queued too)
+    private final Set<String> exporting = ConcurrentHashMap.newKeySet();
+    // world -> chunk key -> latest mesh not written yet
+    private final Map<String, Map<Long, ChunkMesh>> pending = new ConcurrentHashMap<>();
+    // mutable file -> hash of the content last written
+    private final Map<String, String> lastWritten = new ConcurrentHashMap<>();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Voxmap-Export");
+        t.setDaemon(true);
+        return t;
+    });
+    private BukkitTask task;
+
+    public record Result(int regions, int chunks, int written, int meshed) {}
+
+    public StaticExporter(JavaPlugin plugin, WorldsConfig worlds, MarkerStore markers,
+                          TextureAtlasService atlas, ChunkMeshCacheService cache, MeshStore store) {
+        this.plugin = Objects.requireNonNull(plugin);
+        this.worlds = Objects.requireNonNull(worlds);
+        this.markers = Objects.requireNonNull(markers);
+        this.atlas = Objects.requireNonNull(atlas);
+        this.cache = Objects.requireNonNull(cache);
+        this.store = store;
+        this.root = new File(plugin.getDataFolder(), plugin.getConfig().getString("export.directory", "export"));
+        this.data = new File(root, "data");
+    }
+
+    public File getRoot() { return root; }
+
+    /** Picks up worlds exported in earlier runs and starts the periodic update. Needs the atlas to be ready. */
+    public void start() {
+        File[] dirs = data.listFiles(File::isDirectory);
+        if (dirs != null) {
+            for (File dir : dirs) {
+                File manifest = new File(dir, "manifest.json");
+                if (!manifest.isFile()) continue;
+                try {
+                    String json = Files.readString(manifest.toPath());
+                    Matcher am = ATLAS_ENTRY.matcher(json);
+                    if (!am.find() || !am.group(1).equals(atlas.fingerprint())) {
+                        plugin.getLogger().warning("Static export of '" + dir.getName()
+                                + "' was made with another texture atlas; run /voxmap export " + dir.getName() + " again.");
+                        continue;
+                    }
+                    Map<Long, String> regions = new ConcurrentHashMap<>();
+                    Matcher m = REGION_ENTRY.matcher(json);
+                    while (m.find()) regions.put(key(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))), m.group(3));
+                    exported.put(dir.getName(), regions);
+                } catch (IOException | NumberFormatException e) {
+                    plugin.getLogger().warning("Unreadable static export manifest " + manifest + ": " + e.getMessage());
+                }
+            }
+        }
+        if (!exported.isEmpty()) writer.execute(this::writeSiteSafely);
+
+        long period = Math.max(1, plugin.getConfig().getLong("export.intervalSeconds", 10)) * 20L;
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, period, period);
+    }
+
+    public void stop() {
+        if (task != null) task.cancel();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isExported(String worldName) {
+        return exported.containsKey(worldName);
+    }
+
+    @Override
+    public void meshChanged(String worldName, int cx, int cz, ChunkMesh mesh) {
+        if (!exported.containsKey(worldName) && !exporting.contains(worldName)) return;
+        pending.computeIfAbsent(worldName, w -> new ConcurrentHashMap<>()).put(key(cx, cz), mesh);
+    }
+
+    private static long key(int x, int z) {
+        return (((long) x) << 32) ^ (z & 0xffffffffL);
+    }
+
+    // ------------------------------------------------------------------------------------
+    // Full export
+    // ------------------------------------------------------------------------------------
+
+    /**
+     * Exports every chunk of a world that is loaded, cached or in the mesh store. Loaded
+     * chunks without a clean cached mesh are meshed first. Call on the main thread; the
+     * files are written in the background.
+     */
+    public CompletableFuture<Result> exportWorld(World world) {
+        if (!atlas.isReady()) return CompletableFuture.failedFuture(new IllegalStateException(
+                atlas.isFailed() ? "texture atlas failed to build" : "texture atlas is still loading"));
+        String name = world.getName();
+        String status = ApiJson.status(plugin, world);
+        String markerJson = ApiJson.markers(markers.list(name));
+        // changes from here on are queued and written by the next update
+        exporting.add(name);
+        List<CompletableFuture<Boolean>> builds = new ArrayList<>();
+        for (Chunk c : world.getLoadedChunks()) {
+            builds.add(cache.prefetch(world, c.getX(), c.getZ()).exceptionally(e -> false));
+        }
+        return CompletableFuture.allOf(builds.toArray(CompletableFuture[]::new)).thenApplyAsync(v -> {
+            try {
+                int meshed = 0;
+                for (CompletableFuture<Boolean> b : builds) if (b.join()) meshed++;
+                return writeWorld(name, cache.cachedMeshes(name), status, markerJson, meshed);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } finally {
+                exporting.remove(name);
+            }
+        }, writer);
+    }
+
+    private Result writeWorld(String world, Map<Long, ChunkMesh> cached, String status, String markerJson,
+                              int meshed) throws IOException {
+        long started = System.currentTimeMillis() - 1000; // mtime granularity
+        File dir = new File(data, world);
+        // mtime = start of the previous export; missing for a first export (or one made before the stamp)
+        File stamp = new File(dir, ".last-export");
+        long previous = stamp.isFile() ? stamp.lastModified() : 0L;
+
+        Map<Long, List<Long>> cachedByRegion = new HashMap<>();
+        for (long k : cached.keySet()) {
+            int cx = (int) (k >> 32), cz = (int) k;
+            cachedByRegion.computeIfAbsent(key(cx >> 5, cz >> 5), r -> new ArrayList<>()).add(k);
+        }
+        Set<Long> regionKeys = new HashSet<>(cachedByRegion.keySet());
+        if (store != null) for (int[] r : store.regions(world)) regionKeys.add(key(r[0], r[1]));
+
+        Map<Long, String> regions = new ConcurrentHashMap<>();
+        int chunks = 0, written = 0;
+        for (long rk : regionKeys) {
+            int rx = (int) (rk >> 32), rz = (int) rk;
+            byte[][] blobs = store != null ? store.regionSections(world, rx, rz) : new byte[1024][];
+            for (long k : cachedByRegion.getOrDefault(rk, List.of())) {
+                int cx = (int) (k >> 32), cz = (int) k;
+                blobs[(cz & 31) * 32 + (cx & 31)] = ChunkMeshCodec.encodeSections(cached.get(k), null, 0);
+            }
+            String[] hashes = new String[1024];
+            for (int i = 0; i < 1024; i++) {
+                if (blobs[i] == null) continue;
+                byte[] blob = ChunkMeshCodec.withoutVersions(blobs[i]);
+                hashes[i] = hash(blob);
+                if (writeChunk(dir, hashes[i], blob)) written++;
+                chunks++;
+            }
+            regions.put(rk, writeRegionManifest(dir, hashes));
+        }
+
+        exported.put(world, regions);
+        writeMutable(new File(dir, "status.json"), status.getBytes(StandardCharsets.UTF_8));
+        writeMutable(new File(dir, "markers.json"), markerJson.getBytes(StandardCharsets.UTF_8));
+        writeWorldManifest(world, regions);
+        writeSite();
+
+        // Drop files untouched since the previous export started, so clients still holding the
+        // previous manifest (or a cached copy) can fetch everything it names.
+        prune(new File(dir, "chunks"), previous);
+        prune(new File(dir, "regions"), previous);
+        if (!stamp.isFile()) Files.write(stamp.toPath(), new byte[0]);
+        stamp.setLastModified(started);
+        return new Result(regionKeys.size(), chunks, written, meshed);
+    }
+
+    private void prune(File dir, long olderThan) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File f : files) {
+            if (f.isDirectory()) prune(f, olderThan);
+            else if (f.lastModified() < olderThan) f.delete();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------
+    // Incremental updates
+    // ------------------------------------------------------------------------------------
+
+    /** Main thread: snapshots live data, then writes it and the pending chunks in the background. */
+    private void tick() {
+        if (exported.isEmpty()) return;
+        String players = ApiJson.players(Bukkit.getOnlinePlayers());
+        Map<String, String[]> perWorld = new HashMap<>();
+        for (String name : exported.keySet()) {
+            World w = Bukkit.getWorld(name);
+            if (w == null) continue;
+            perWorld.put(name, new String[]{ApiJson.status(plugin, w), ApiJson.markers(markers.list(name))});
+        }
+        writer.execute(() -> {
+            try {
+                writeMutable(new File(data, "players.json"), players.getBytes(StandardCharsets.UTF_8));
+                for (var e : perWorld.entrySet()) {
+                    File dir = new File(data, e.getKey());
+                    writeMutable(new File(dir, "status.json"), e.getValue()[0].getBytes(StandardCharsets.UTF_8));
+                    writeMutable(new File(dir, "markers.json"), e.getValue()[1].getBytes(StandardCharsets.UTF_8));
+                }
+                flushChunks();
+            } catch (Exception e) {
+                plugin.getLogger().warning("Static export update failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private void flushChunks() throws IOException {
+        for (String world : new ArrayList<>(pending.keySet())) {
+            Map<Long, String> regions = exported.get(world);
+            if (regions == null) continue; // export still running
+            Map<Long, ChunkMesh> batch = pending.remove(world);
+            if (batch == null || batch.isEmpty()) continue;
+            File dir = new File(data, world);
+
+            Map<Long, String[]> touched = new HashMap<>();
+            boolean changed = false;
+            for (var e : batch.entrySet()) {
+                int cx = (int) (e.getKey() >> 32), cz = (int) (long) e.getKey();
+                long rk = key(cx >> 5, cz >> 5);
+                String[] hashes = touched.get(rk);
+                if (hashes == null) {
+                    hashes = readRegionManifest(dir, regions.get(rk));
+                    touched.put(rk, hashes);
+                }
+                byte[] blob = ChunkMeshCodec.withoutVersions(ChunkMeshCodec.encodeSections(e.getValue(), null, 0));
+                String h = hash(blob);
+                int slot = (cz & 31) * 32 + (cx & 31);
+                if (h.equals(hashes[slot])) continue;
+                writeChunk(dir, h, blob);
+                hashes[slot] = h;
+                changed = true;
+            }
+            if (!changed) continue;
+            for (var e : touched.entrySet()) regions.put(e.getKey(), writeRegionManifest(dir, e.getValue()));
+            writeWorldManifest(world, regions);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------
+    // Files
+    // ------------------------------------------------------------------------------------
+
+    private boolean writeChunk(File worldDir, String hash, byte[] blob) throws IOException {
+        File f = new File(worldDir, "chunks/" + hash.substring(0, 2) + "/" + hash + ".vxs");
+        if (f.isFile()) {
+            touch(f); // keeps it through prune()
+            return false;
+        }
+        write(f, blob, true);
+        return true;
+    }
+
+    private String writeRegionManifest(File worldDir, String[] hashes) throws IOException {
+        StringBuilder sb = new StringBuilder(1024 * 24);
+        sb.append("{\"chunks\":[");
+        for (int i = 0; i < hashes.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(hashes[i] == null ? "null" : ApiJson.json(hashes[i]));
+        }
+        sb.append("]}");
+        byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+        String h = hash(body);
+        File f = new File(worldDir, "regions/" + h + ".json");
+        if (f.isFile()) touch(f);
+        else write(f, body, true);
+        return h;
+    }
+
+    private String[] readRegionManifest(File worldDir, String hash) throws IOException {
+        String[] hashes = new String[1024];
+        if (hash == null) return hashes;
+        File f = new File(worldDir, "regions/" + hash + ".json");
+        if (!f.isFile()) return hashes;
+        Matcher m = CHUNK_ENTRY.matcher(Files.readString(f.toPath()));
+        for (int i = 0; i < 1024 && m.find(); i++) hashes[i] = m.group(1);
+        return hashes;
+    }
+
+    private void writeWorldManifest(String world, Map<Long, String> regions) throws IOException {
+        StringBuilder sb = new StringBuilder(64 + regions.size() * 40);
+        sb.append("{\"version\":").append(System.currentTimeMillis())
+                .append(",\"atlas\":").append(ApiJson.json(atlas.fingerprint()))
+                .append(",\"regions\":{");
+        boolean first = true;
+        for (var e : regions.entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            long rk = e.getKey();
+            sb.append('"').append((int) (rk >> 32)).append(',').append((int) rk).append("\":")
+                    .append(ApiJson.json(e.getValue()));
+        }
+        sb.append("}}");
+        writeMutable(new File(new File(data, world), "manifest.json"), sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void touch(File f) {
+        long now = System.currentTimeMillis();
+        f.setLastModified(now);
+        new File(f.getPath() + ".gz").setLastModified(now);
+    }
+
+    private void writeSiteSafely() {
+        try {
+            writeSite();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Static export site files failed: " + e.getMessage());
+        }
+    }
+
+    /** index.html, static assets, atlas and worlds.json. */
+    private void writeSite() throws IOException {
+        byte[] html = resource("web/index.html");
+        if (html != null) {
+            String s = new String(html, StandardCharsets.UTF_8)
+                    .replace("\"/static/", "\"static/")
+                    .replace("<meta charset=\"utf-8\"/>", "<meta charset=\"utf-8\"/>\n  <meta name=\"voxmap-static\" content=\"data/\"/>");
+            writeMutable(new File(root, "index.html"), s.getBytes(StandardCharsets.UTF_8));
+        }
+        for (String asset : List.of("app.js", "styles.css", "favicon.png")) {
+            byte[] b = resource("web/static/" + asset);
+            if (b != null) writeMutable(new File(root, "static/" + asset), b);
+        }
+
+        byte[] png = atlas.getAtlasPngBytes();
+        String atlasFile = "atlas." + hash(png) + ".png";
+        File atlasOut = new File(data, atlasFile);
+        if (!atlasOut.isFile()) write(atlasOut, png, false);
+
+        List<WorldsConfig.WorldEntry> list = new ArrayList<>();
+        for (WorldsConfig.WorldEntry w : worlds.enabledWorlds()) if (exported.containsKey(w.name)) list.add(w);
+        int viewDist = plugin.getConfig().getInt("render.defaultViewDistanceChunks", 10);
+        writeMutable(new File(data, "worlds.json"),
+                ApiJson.worlds(viewDist, 0, 0, atlas, list, atlasFile).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[] resource(String path) throws IOException {
+        try (InputStream in = plugin.getResource(path)) {
+            return in == null ? null : in.readAllBytes();
+        }
+    }
+
+    /** Writes a file whose name doesn't change with its content, skipping identical rewrites. */
+    private void writeMutable(File f, byte[] body) throws IOException {
+        String h = hash(body);
+        if (h.equals(lastWritten.get(f.getPath())) && f.isFile()) return;
+        write(f, body, !f.getName().endsWith(".png"));
+        lastWritten.put(f.getPath(), h);
+    }
+
+    private void write(File f, byte[] body, boolean compressible) throws IOException {
+        f.getParentFile().mkdirs();
+        atomicWrite(f, body);
+        if (compressible && plugin.getConfig().getBoolean("export.precompress", true)) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(body.length / 3 + 64);
+            try (GZIPOutputStream gz = new GZIPOutputStream(bos)) {
+                gz.write(body);
+            }
+            atomicWrite(new File(f.getPath() + ".gz"), bos.toByteArray());
+        }
+    }
+
+    private static void atomicWrite(File f, byte[] body) throws IOException {
+        File tmp = new File(f.getPath() + ".tmp");
+        Files.write(tmp.toPath(), body);
+        Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String hash(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body), 0, 10);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,15 +2,18 @@ package voxmap.http;
 
 import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
-import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import voxmap.config.MarkerStore;
 import voxmap.config.WorldsConfig;
+import voxmap.metrics.RenderMetrics;
 import voxmap.render.ChunkMesh;
+import voxmap.render.ChunkMeshCodec;
 import voxmap.render.ChunkMeshService;
+import voxmap.render.RegionMesh;
 import voxmap.texture.TextureAtlasService;
 
 import java.io.IOException;
@@ -21,6 +24,9 @@ import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 import org.bukkit.World;
 import voxmap.render.ChunkMeshCacheService;
@@ -34,6 +40,7 @@ public class WebServer {
     private final TextureAtlasService atlas;
     private HttpServer server;
     private final ChunkMeshCacheService chunkCache;
+    private final LiveState live;
 
     public WebServer(JavaPlugin plugin, WorldsConfig worlds, MarkerStore markers, ChunkMeshService meshes, TextureAtlasService atlas, ChunkMeshCacheService chunkCache) {
         this.plugin = plugin;
@@ -42,32 +49,52 @@ public class WebServer {
         this.meshes = meshes;
         this.atlas = atlas;
         this.chunkCache = chunkCache;
+        this.live = new LiveState(plugin);
     }
 
     public void start() throws Exception {
         String host = plugin.getConfig().getString("web.host", "0.0.0.0");
         int port = plugin.getConfig().getInt("web.port", 8765);
         server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        live.start();
 
         server.setExecutor(Executors.newFixedThreadPool(
                 Math.max(4, Runtime.getRuntime().availableProcessors())
         ));
 
-        server.createContext("/", this::handleRoot);
-        server.createContext("/static/", this::handleStatic);
+        context("/", this::handleRoot);
+        context("/static/", this::handleStatic);
 
-        server.createContext("/api/worlds", this::handleWorlds);
-        server.createContext("/api/status", this::handleStatus);
-        server.createContext("/api/players", this::handlePlayers);
-        server.createContext("/api/markers", this::handleMarkers);
-        server.createContext("/api/chunk", this::handleChunk);
-        server.createContext("/api/atlas.png", this::handleAtlasPng);
+        context("/api/worlds", this::handleWorlds);
+        context("/api/status", this::handleStatus);
+        context("/api/players", this::handlePlayers);
+        context("/api/markers", this::handleMarkers);
+        context("/api/chunk", this::handleChunk);
+        context("/api/region", this::handleRegion);
+        context("/api/changes", this::handleChanges);
+        context("/api/atlas.png", this::handleAtlasPng);
+        context("/api/metrics", this::handleMetrics);
 
         server.start();
         plugin.getLogger().info("[Voxmap] Web server started on http://" + host + ":" + port + "/");
     }
 
+    /** Registers a handler with request count and latency recorded under its context path. */
+    private void context(String path, HttpHandler handler) {
+        RenderMetrics.Endpoint ep = RenderMetrics.endpoint(path);
+        server.createContext(path, ex -> {
+            long t0 = System.nanoTime();
+            ep.requests.increment();
+            try {
+                handler.handle(ex);
+            } finally {
+                ep.latency.recordSince(t0);
+            }
+        });
+    }
+
     public void stop() {
+        live.stop();
         if (server != null) {
             server.stop(0);
             server = null;
@@ -90,18 +117,72 @@ public class WebServer {
         Headers h = ex.getResponseHeaders();
         h.set("Access-Control-Allow-Origin", "*");
         h.set("Access-Control-Allow-Methods", "GET, OPTIONS");
-        h.set("Access-Control-Allow-Headers", "Content-Type");
+        h.set("Access-Control-Allow-Headers", "Content-Type, If-None-Match");
+        h.set("Access-Control-Expose-Headers", "ETag");
+    }
+
+    /**
+     * Replies with {@code etag} and "no-cache", so browsers revalidate and an unchanged mesh
+     * comes back as a bodiless 304; the body is only encoded when it has to be sent.
+     */
+    private void replyTagged(HttpExchange ex, String contentType, String etag, Supplier<byte[]> body) throws IOException {
+        ex.getResponseHeaders().set("ETag", etag);
+        ex.getResponseHeaders().set("Cache-Control", "no-cache");
+        String match = ex.getRequestHeaders().getFirst("If-None-Match");
+        if (match != null) {
+            for (String m : match.split(",")) {
+                String t = m.trim();
+                if (t.startsWith("W/")) t = t.substring(2);
+                if (!t.equals(etag) && !t.equals("*")) continue;
+                withCors(ex);
+                ex.sendResponseHeaders(304, -1);
+                ex.close();
+                return;
+            }
+        }
+        reply(ex, 200, contentType, body.get());
+    }
+
+    /**
+     * ETag of {@link ChunkMeshCodec#encodeSections}: the mesh's geometry hash plus, per section,
+     * whether it is skipped for the client or else its version (what the body holds besides geometry).
+     */
+    private static String sectionsTag(ChunkMesh mesh, long[] have, int haveMin) {
+        long h = mix(0xcbf29ce484222325L, mesh.contentHash());
+        ChunkMesh.Sections s = mesh.sections;
+        for (int i = 0, n = s == null ? 0 : s.count(); i < n; i++) {
+            long v = s.versions() == null ? 0 : s.versions()[i];
+            int hi = s.minSection() + i - haveMin;
+            boolean skipped = have != null && v != 0 && hi >= 0 && hi < have.length && have[hi] == v;
+            h = mix(h, skipped ? -1 : v);
+        }
+        return "\"s" + Long.toHexString(h) + "\"";
+    }
+
+    private static String regionTag(RegionMesh region) {
+        long h = mix(0xcbf29ce484222325L, region.contentHash());
+        h = mix(mix(mix(h, region.rx()), region.rz()), region.size());
+        return "\"r" + Long.toHexString(h) + "\"";
+    }
+
+    // FNV-1a step over a whole long
+    private static long mix(long h, long v) {
+        return (h ^ v) * 0x100000001b3L;
     }
 
     private void reply(HttpExchange ex, int code, String contentType, byte[] body) throws IOException {
         withCors(ex);
         ex.getResponseHeaders().set("Content-Type", contentType);
 
+        RenderMetrics.Endpoint ep = RenderMetrics.endpoint(ex.getHttpContext().getPath());
+        if (code >= 500) ep.errors5xx.increment();
+
         try {
             ex.sendResponseHeaders(code, body.length);
             try (OutputStream os = ex.getResponseBody()) {
                 os.write(body);
             }
+            ep.bytes.add(body.length);
         } catch (IOException ioe) {
             // Client disconnected mid-response (common while panning/zooming).
             String msg = String.valueOf(ioe.getMessage()).toLowerCase(Locale.ROOT);
@@ -144,9 +225,22 @@ public class WebServer {
         reply(ex, 200, contentType(rel), data);
     }
 
+    /** 503 while the texture atlas is still being built: worlds, meshes and the atlas image depend on it. */
+    private boolean atlasPending(HttpExchange ex) throws IOException {
+        if (atlas.isReady()) return false;
+        if (atlas.isFailed()) {
+            replyJson(ex, 500, "{\"error\":\"atlas_failed\"}");
+            return true;
+        }
+        ex.getResponseHeaders().set("Retry-After", "1");
+        replyJson(ex, 503, "{\"error\":\"atlas_not_ready\"}");
+        return true;
+    }
+
     private void handleAtlasPng(HttpExchange ex) throws IOException {
         if (isOptions(ex)) return;
         if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { ex.sendResponseHeaders(405, -1); return; }
+        if (atlasPending(ex)) return;
         byte[] png = atlas.getAtlasPngBytes();
         if (png == null || png.length == 0) {
             reply(ex, 500, "text/plain; charset=utf-8", "Atlas not ready".getBytes(StandardCharsets.UTF_8));
@@ -158,77 +252,53 @@ public class WebServer {
     private void handleWorlds(HttpExchange ex) throws IOException {
         if (isOptions(ex)) return;
         if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { ex.sendResponseHeaders(405, -1); return; }
+        if (atlasPending(ex)) return;
 
         int viewDist = plugin.getConfig().getInt("render.defaultViewDistanceChunks", 10);
-        var list = worlds.enabledWorlds();
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\"defaultViewDistanceChunks\":").append(viewDist).append(",\"worlds\":[");
-        for (int i = 0; i < list.size(); i++) {
-            var w = list.get(i);
-            if (i > 0) sb.append(',');
-            sb.append("{\"name\":").append(json(w.name))
-                    .append(",\"displayName\":").append(json(w.displayName))
-                    .append(",\"icon\":").append(json(w.icon))
-                    .append("}");
-        }
-        sb.append("]}");
+        int beyond = plugin.getConfig().getInt("render.regionMesh.beyondChunks", 6);
+        replyJson(ex, 200, ApiJson.worlds(viewDist, regionChunks(), beyond, atlas, worlds.enabledWorlds(), null));
+    }
 
-        replyJson(ex, 200, sb.toString());
+    /** Chunks per side of a region mesh (render.regionMesh.chunks), 0 = region meshes off. */
+    private int regionChunks() {
+        int n = plugin.getConfig().getInt("render.regionMesh.chunks", 4);
+        return n <= 1 ? 0 : Math.min(n, 8); // 8 x 16 blocks is the most the i16 positions hold comfortably
     }
 
     private void handleStatus(HttpExchange ex) throws IOException {
         if (isOptions(ex)) return;
         if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { ex.sendResponseHeaders(405, -1); return; }
 
+        LiveState.Snapshot snap = live.current();
         Map<String, String> q = parseQuery(ex.getRequestURI());
-        String worldName = q.getOrDefault("world", Bukkit.getWorlds().get(0).getName());
-        World w = Bukkit.getWorld(worldName);
-        if (w == null) { replyJson(ex, 400, "{\"error\":\"world_not_found\"}"); return; }
-
-        boolean showClock = plugin.getConfig().getBoolean("ui.showClock", true);
-        boolean showWeather = plugin.getConfig().getBoolean("ui.showWeather", true);
-        boolean showDayNight = plugin.getConfig().getBoolean("ui.showDayNight", true);
-
-        String weather = "CLEAR";
-        if (w.hasStorm()) weather = "RAIN";
-        if (w.isThundering()) weather = "THUNDER";
-        boolean isDay = (w.getTime() % 24000L) < 12000L;
+        String worldName = q.getOrDefault("world", snap.defaultWorld());
+        byte[] body = worldName == null ? null : snap.status().get(worldName);
+        if (body == null) { replyJson(ex, 400, "{\"error\":\"world_not_found\"}"); return; }
 
-        var spawn = w.getSpawnLocation();
-        String out = "{"
-                + "\"showClock\":" + showClock + ","
-                + "\"showWeather\":" + showWeather + ","
-                + "\"showDayNight\":" + showDayNight + ","
-                + "\"timeTicks\":" + w.getTime() + ","
-                + "\"weather\":" + json(weather) + ","
-                + "\"isDay\":" + isDay + ","
-                + "\"spawn\":{\"x\":" + spawn.getX() + ",\"y\":" + spawn.getY() + ",\"z\":" + spawn.getZ() + "}"
-                + "}";
-        replyJson(ex, 200, out);
+        reply(ex, 200, "application/json; charset=utf-8", body);
     }
 
+    /** All players, or with {@code world} and/or minX, minZ, maxX, maxZ only the ones in there. */
     private void handlePlayers(HttpExchange ex) throws IOException {
         if (isOptions(ex)) return;
         if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { ex.sendResponseHeaders(405, -1); return; }
 
-        var players = Bukkit.getOnlinePlayers();
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\"players\":[");
-        int i = 0;
-        for (Player p : players) {
-            if (i++ > 0) sb.append(',');
-            var loc = p.getLocation();
-            sb.append("{\"uuid\":").append(json(p.getUniqueId().toString()))
-                    .append(",\"name\":").append(json(p.getName()))
-                    .append(",\"world\":").append(json(p.getWorld().getName()))
-                    .append(",\"x\":").append(String.format(Locale.US, "%.3f", loc.getX()))
-                    .append(",\"y\":").append(String.format(Locale.US, "%.3f", loc.getY()))
-                    .append(",\"z\":").append(String.format(Locale.US, "%.3f", loc.getZ()))
-                    .append("}");
+        LiveState.Snapshot snap = live.current();
+        Map<String, String> q = parseQuery(ex.getRequestURI());
+        String world = q.get("world");
+        double[] box = null;
+        if (q.containsKey("minX") || q.containsKey("minZ") || q.containsKey("maxX") || q.containsKey("maxZ")) {
+            box = new double[]{
+                    parseDoubleOr(q.get("minX"), Double.NEGATIVE_INFINITY),
+                    parseDoubleOr(q.get("minZ"), Double.NEGATIVE_INFINITY),
+                    parseDoubleOr(q.get("maxX"), Double.POSITIVE_INFINITY),
+                    parseDoubleOr(q.get("maxZ"), Double.POSITIVE_INFINITY)};
         }
-        sb.append("]}");
-        replyJson(ex, 200, sb.toString());
+        if (world == null && box == null) {
+            reply(ex, 200, "application/json; charset=utf-8", snap.playersJson());
+            return;
+        }
+        replyJson(ex, 200, ApiJson.players(snap.players(), world, box));
     }
 
     private void handleMarkers(HttpExchange ex) throws IOException {
@@ -239,26 +309,26 @@ public class WebServer {
         String world = q.get("world");
         if (world == null) { replyJson(ex, 400, "{\"error\":\"world_required\"}"); return; }
 
-        var list = markers.list(world);
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\"markers\":[");
-        for (int j = 0; j < list.size(); j++) {
-            var m = list.get(j);
-            if (j > 0) sb.append(',');
-            sb.append("{\"name\":").append(json(m.name))
-                    .append(",\"label\":").append(json(m.label))
-                    .append(",\"x\":").append(m.x)
-                    .append(",\"y\":").append(m.y)
-                    .append(",\"z\":").append(m.z)
-                    .append("}");
+        long[] bbox = parseLongList(q.get("bbox")); // minX,minZ,maxX,maxZ
+        if (bbox == null) {
+            // encoded once per edit, not per viewer poll
+            reply(ex, 200, "application/json; charset=utf-8",
+                    markers.encoded(world, l -> ApiJson.markers(l).getBytes(StandardCharsets.UTF_8)));
+            return;
         }
-        sb.append("]}");
-        replyJson(ex, 200, sb.toString());
+        if (bbox.length != 4) { replyJson(ex, 400, "{\"error\":\"bad_bbox\"}"); return; }
+        replyJson(ex, 200, ApiJson.markers(markers.query(world, clampInt(bbox[0]), clampInt(bbox[1]),
+                clampInt(bbox[2]), clampInt(bbox[3]))));
+    }
+
+    private static int clampInt(long v) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, v));
     }
 
     private void handleChunk(HttpExchange ex) throws IOException {
         if (isOptions(ex)) return;
         if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { ex.sendResponseHeaders(405, -1); return; }
+        if (atlasPending(ex)) return;
 
         Map<String, String> q = parseQuery(ex.getRequestURI());
         String worldName = q.get("world");
@@ -280,46 +350,107 @@ public class WebServer {
         try { cx = Integer.parseInt(scx); cz = Integer.parseInt(scz); }
         catch (NumberFormatException nfe) { replyJson(ex, 400, "{\"error\":\"cx,cz must be int\"}"); return; }
 
+        // minY/maxY: vertical slice (cross-sections of mines and buildings), capped at both cuts
+        String sMin = q.get("minY"), sMax = q.get("maxY");
+        boolean slice = sMin != null || sMax != null;
+        if (slice) {
+            minY = parseIntOr(sMin, minY);
+            maxYInclusive = parseIntOr(sMax, maxYInclusive);
+        }
+
         try {
-            ChunkMesh mesh = chunkCache.getOrBuild(w, cx, cz, minY, maxYInclusive);
-            if (mesh.isEmpty()) {
-                replyJson(ex, 200, "{\"vertices\":[],\"normals\":[],\"uvs\":[],\"colors\":[],\"indices\":[],\"emitters\":[]}");
+            ChunkMesh mesh = slice
+                    ? chunkCache.getSlice(w, cx, cz, minY, maxYInclusive)
+                    : chunkCache.getOrBuild(w, cx, cz, minY, maxYInclusive);
+
+            // have=v,v,... : section versions the client already holds, starting at section hmin.
+            long[] have = parseLongList(q.get("have"));
+            int haveMin = parseIntOr(q.get("hmin"), 0);
+
+            // Positions/emitters stay chunk-local; the client places the mesh at (cx*16, 0, cz*16).
+            replyTagged(ex, "application/octet-stream", sectionsTag(mesh, have, haveMin),
+                    () -> ChunkMeshCodec.encodeSections(mesh, have, haveMin));
+        } catch (Exception e) {
+            if (e instanceof TimeoutException) RenderMetrics.HTTP_TIMEOUTS.increment();
+            if (e.getCause() instanceof RejectedExecutionException) {
+                // chunk load limit reached (render.requireChunkLoaded: false); the client asks again
+                ex.getResponseHeaders().set("Retry-After", "1");
+                try { replyJson(ex, 503, "{\"error\":\"busy\"}"); } catch (Exception ignored) {}
                 return;
             }
+            // If client disconnected, reply() ignores it; don't spam hard.
+            plugin.getLogger().warning("Chunk mesh error: " + e.getMessage());
+            try { replyJson(ex, 500, "{\"error\":\"meshing_failed\"}"); } catch (Exception ignored) {}
+        }
+    }
 
-            int ox = cx << 4;
-            int oz = cz << 4;
+    private void handleRegion(HttpExchange ex) throws IOException {
+        if (isOptions(ex)) return;
+        if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { ex.sendResponseHeaders(405, -1); return; }
+        if (atlasPending(ex)) return;
 
-            float[] vtx = mesh.vertices.clone();
-            for (int i = 0; i < vtx.length; i += 3) {
-                vtx[i] += ox;
-                vtx[i + 2] += oz;
-            }
+        int size = regionChunks();
+        if (size == 0) { ex.sendResponseHeaders(404, -1); return; }
+        Map<String, String> q = parseQuery(ex.getRequestURI());
+        String worldName = q.get("world");
+        String srx = q.get("rx");
+        String srz = q.get("rz");
+        if (worldName == null || srx == null || srz == null) {
+            replyJson(ex, 400, "{\"error\":\"world,rx,rz required\"}");
+            return;
+        }
 
-            float[] em = mesh.emitters == null ? new float[0] : mesh.emitters.clone();
-            for (int i = 0; i < em.length; i += 4) {
-                em[i] += ox;      // x
-                // y unchanged
-                em[i + 2] += oz;  // z
-                // intensity unchanged
-            }
+        World w = Bukkit.getWorld(worldName);
+        if (w == null) { replyJson(ex, 400, "{\"error\":\"world_not_found\"}"); return; }
+        int rx, rz;
+        try { rx = Integer.parseInt(srx); rz = Integer.parseInt(srz); }
+        catch (NumberFormatException nfe) { replyJson(ex, 400, "{\"error\":\"rx,rz must be int\"}"); return; }
 
-            String out = "{"
-                    + "\"vertices\":" + floatArray(vtx) + ","
-                    + "\"normals\":" + floatArray(mesh.normals) + ","
-                    + "\"uvs\":" + floatArray(mesh.uvs) + ","
-                    + "\"colors\":" + floatArray(mesh.colors) + ","
-                    + "\"indices\":" + intArray(mesh.indices) + ","
-                    + "\"emitters\":" + floatArray(em)
-                    + "}";
-            replyJson(ex, 200, out);
+        try {
+            // Region (rx, rz) covers chunks rx*size.., placed by the client at (rx*size*16, 0, rz*size*16).
+            RegionMesh region = chunkCache.getRegion(w, rx, rz, size);
+            replyTagged(ex, "application/octet-stream", regionTag(region), () -> ChunkMeshCodec.encodeRegion(region));
         } catch (Exception e) {
-            // If client disconnected, reply() ignores it; don't spam hard.
-            plugin.getLogger().warning("Chunk mesh error: " + e.getMessage());
+            if (e instanceof TimeoutException) RenderMetrics.HTTP_TIMEOUTS.increment();
+            plugin.getLogger().warning("Region mesh error: " + e.getMessage());
             try { replyJson(ex, 500, "{\"error\":\"meshing_failed\"}"); } catch (Exception ignored) {}
         }
     }
 
+    private void handleMetrics(HttpExchange ex) throws IOException {
+        if (isOptions(ex)) return;
+        if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { ex.sendResponseHeaders(405, -1); return; }
+        if (!plugin.getConfig().getBoolean("web.metrics", true)) { ex.sendResponseHeaders(404, -1); return; }
+
+        reply(ex, 200, "text/plain; version=0.0.4; charset=utf-8",
+                RenderMetrics.prometheus().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handleChanges(HttpExchange ex) throws IOException {
+        if (isOptions(ex)) return;
+        if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) { ex.sendResponseHeaders(405, -1); return; }
+
+        Map<String, String> q = parseQuery(ex.getRequestURI());
+        String world = q.get("world");
+        if (world == null) { replyJson(ex, 400, "{\"error\":\"world_required\"}"); return; }
+        long since;
+        try { since = Long.parseLong(q.getOrDefault("since", "0")); }
+        catch (NumberFormatException nfe) { replyJson(ex, 400, "{\"error\":\"since must be int\"}"); return; }
+
+        var c = chunkCache.changesSince(world, since);
+        StringBuilder sb = new StringBuilder(64 + c.chunkKeys().length * 16);
+        sb.append("{\"version\":").append(c.version())
+                .append(",\"reset\":").append(c.reset())
+                .append(",\"chunks\":[");
+        for (int i = 0; i < c.chunkKeys().length; i++) {
+            long k = c.chunkKeys()[i];
+            if (i > 0) sb.append(',');
+            sb.append('[').append((int) (k >> 32)).append(',').append((int) k).append(']');
+        }
+        sb.append("]}");
+        replyJson(ex, 200, sb.toString());
+    }
+
     private byte[] readResource(String path) throws IOException {
         try (InputStream in = plugin.getResource(path)) {
             if (in == null) return null;
@@ -350,52 +481,31 @@ public class WebServer {
         return map;
     }
 
-    private static String urlDecode(String s) {
-        try { return java.net.URLDecoder.decode(s, StandardCharsets.UTF_8); }
-        catch (Exception e) { return s; }
+    private static long[] parseLongList(String s) {
+        if (s == null || s.isEmpty()) return null;
+        String[] parts = s.split(",");
+        long[] out = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try { out[i] = Long.parseLong(parts[i].trim()); }
+            catch (NumberFormatException nfe) { out[i] = 0; }
+        }
+        return out;
     }
 
-    private static String json(String s) {
-        if (s == null) return "null";
-        StringBuilder sb = new StringBuilder();
-        sb.append('"');
-        for (int i = 0; i < s.length(); i++) {
-            char ch = s.charAt(i);
-            switch (ch) {
-                case '\\' -> sb.append("\\\\");
-                case '"' -> sb.append("\\\"");
-                case '\n' -> sb.append("\\n");
-                case '\r' -> sb.append("\\r");
-                case '\t' -> sb.append("\\t");
-                default -> {
-                    if (ch < 32) sb.append(String.format(Locale.ROOT, "\\u%04x", (int) ch));
-                    else sb.append(ch);
-                }
-            }
-        }
-        sb.append('"');
-        return sb.toString();
+    private static int parseIntOr(String s, int def) {
+        if (s == null) return def;
+        try { return Integer.parseInt(s.trim()); }
+        catch (NumberFormatException nfe) { return def; }
     }
 
-    private static String floatArray(float[] a) {
-        StringBuilder sb = new StringBuilder();
-        sb.append('[');
-        for (int i = 0; i < a.length; i++) {
-            if (i > 0) sb.append(',');
-            sb.append(String.format(Locale.US, "%.6f", a[i]));
-        }
-        sb.append(']');
-        return sb.toString();
+    private static double parseDoubleOr(String s, double def) {
+        if (s == null) return def;
+        try { return Double.parseDouble(s.trim()); }
+        catch (NumberFormatException nfe) { return def; }
     }
 
-    private static String intArray(int[] a) {
-        StringBuilder sb = new StringBuilder();
-        sb.append('[');
-        for (int i = 0; i < a.length; i++) {
-            if (i > 0) sb.append(',');
-            sb.append(a[i]);
-        }
-        sb.append(']');
-        return sb.toString();
+    private static String urlDecode(String s) {
+        try { return java.net.URLDecoder.decode(s, StandardCharsets.UTF_8); }
+        catch (Exception e) { return s; }
     }
-}
\ No newline at end of file
+}
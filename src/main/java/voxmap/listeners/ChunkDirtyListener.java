@@ -1,52 +1,193 @@
 package voxmap.listeners;
 
-import org.bukkit.Chunk;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
-import org.bukkit.event.block.BlockBreakEvent;
-import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
 import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.StructureGrowEvent;
 import voxmap.render.ChunkMeshCacheService;
+import voxmap.render.DirtyRegionJournal;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Marks chunk meshes dirty when blocks change.
  * This makes the web map update without requiring a server restart.
+ *
+ * Handlers only record block positions in the {@link DirtyRegionJournal}; the journal
+ * coalesces them and invalidates each touched chunk once per tick.
  */
 public class ChunkDirtyListener implements Listener {
 
     private final ChunkMeshCacheService cache;
+    private final DirtyRegionJournal journal;
 
-    public ChunkDirtyListener(ChunkMeshCacheService cache) {
+    public ChunkDirtyListener(ChunkMeshCacheService cache, DirtyRegionJournal journal) {
         this.cache = Objects.requireNonNull(cache);
+        this.journal = Objects.requireNonNull(journal);
     }
 
+    private void markBlocks(List<Block> blocks) {
+        for (Block b : blocks) journal.markBlock(b);
+    }
+
+    private void markStates(List<BlockState> states) {
+        for (BlockState s : states) journal.markBlock(s.getWorld(), s.getX(), s.getY(), s.getZ());
+    }
+
+    // --- player edits ---
+
     @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
     public void onPlace(BlockPlaceEvent e) {
-        Chunk c = e.getBlock().getChunk();
-        cache.markDirty(c.getWorld().getName(), c.getX(), c.getZ());
+        journal.markBlock(e.getBlock());
+        if (e instanceof BlockMultiPlaceEvent multi) markStates(multi.getReplacedBlockStates());
     }
 
     @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
     public void onBreak(BlockBreakEvent e) {
-        Chunk c = e.getBlock().getChunk();
-        cache.markDirty(c.getWorld().getName(), c.getX(), c.getZ());
+        journal.markBlock(e.getBlock());
     }
 
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onBucketEmpty(PlayerBucketEmptyEvent e) {
+        journal.markBlock(e.getBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onBucketFill(PlayerBucketFillEvent e) {
+        journal.markBlock(e.getBlock());
+    }
+
+    // --- explosions ---
+
     @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
     public void onExplode(EntityExplodeEvent e) {
-        // mark each affected block's chunk dirty
-        e.blockList().forEach(b -> {
-            Chunk c = b.getChunk();
-            cache.markDirty(c.getWorld().getName(), c.getX(), c.getZ());
-        });
+        markBlocks(e.blockList());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onBlockExplode(BlockExplodeEvent e) {
+        journal.markBlock(e.getBlock());
+        markBlocks(e.blockList());
+    }
+
+    // --- pistons: moved blocks, where they land, and the piston head ---
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onPistonExtend(BlockPistonExtendEvent e) {
+        markPiston(e.getBlock(), e.getDirection(), e.getBlocks());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onPistonRetract(BlockPistonRetractEvent e) {
+        markPiston(e.getBlock(), e.getDirection(), e.getBlocks());
+    }
+
+    private void markPiston(Block piston, BlockFace dir, List<Block> moved) {
+        journal.markBlock(piston);
+        journal.markBlock(piston.getRelative(dir));
+        for (Block b : moved) {
+            journal.markBlock(b);
+            journal.markBlock(b.getRelative(dir));
+        }
+    }
+
+    // --- natural changes ---
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onFlow(BlockFromToEvent e) {
+        journal.markBlock(e.getToBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onFluidLevel(FluidLevelChangeEvent e) {
+        journal.markBlock(e.getBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onLeavesDecay(LeavesDecayEvent e) {
+        journal.markBlock(e.getBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onGrow(BlockGrowEvent e) {
+        journal.markBlock(e.getBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onForm(BlockFormEvent e) {
+        journal.markBlock(e.getBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onSpread(BlockSpreadEvent e) {
+        journal.markBlock(e.getBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onFade(BlockFadeEvent e) {
+        journal.markBlock(e.getBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onBurn(BlockBurnEvent e) {
+        journal.markBlock(e.getBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onIgnite(BlockIgniteEvent e) {
+        journal.markBlock(e.getBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onFertilize(BlockFertilizeEvent e) {
+        markStates(e.getBlocks());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onSpongeAbsorb(SpongeAbsorbEvent e) {
+        journal.markBlock(e.getBlock());
+        markStates(e.getBlocks());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onStructureGrow(StructureGrowEvent e) {
+        markStates(e.getBlocks());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onEntityChangeBlock(EntityChangeBlockEvent e) {
+        journal.markBlock(e.getBlock());
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onChunkUnload(ChunkUnloadEvent e) {
         cache.evict(e.getWorld().getName(), e.getChunk().getX(), e.getChunk().getZ());
     }
-}
\ No newline at end of file
+
+    /**
+     * BlockPhysicsEvent fires for every neighbor update, so it is registered separately
+     * and only when render.dirtyOnPhysics is enabled. Only the block the update started at
+     * is marked: its neighbors are told about the change but usually stay as they are.
+     */
+    public static class Physics implements Listener {
+        private final DirtyRegionJournal journal;
+
+        public Physics(DirtyRegionJournal journal) { this.journal = Objects.requireNonNull(journal); }
+
+        @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+        public void onPhysics(BlockPhysicsEvent e) {
+            if (!e.getSourceBlock().equals(e.getBlock())) return;
+            journal.markBlock(e.getBlock());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package voxmap.listeners;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import voxmap.render.MeshWarmer;
+
+import java.util.Objects;
+
+/**
+ * Feeds the {@link MeshWarmer}: chunks loading near players, and players entering a new
+ * chunk. Only registered when warm.enabled is set.
+ */
+public class WarmListener implements Listener {
+
+    private final MeshWarmer warmer;
+
+    public WarmListener(MeshWarmer warmer) {
+        this.warmer = Objects.requireNonNull(warmer);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent e) {
+        warmer.offerLoaded(e.getWorld(), e.getChunk().getX(), e.getChunk().getZ());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onMove(PlayerMoveEvent e) {
+        var to = e.getTo();
+        var from = e.getFrom();
+        if (to == null) return;
+        // most moves stay within the chunk
+        if (from.getBlockX() >> 4 == to.getBlockX() >> 4 && from.getBlockZ() >> 4 == to.getBlockZ() >> 4
+                && from.getWorld() == to.getWorld()) return;
+        warmer.offerAround(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent e) {
+        warmer.offerAround(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent e) {
+        warmer.offerAround(e.getPlayer());
+    }
+}
@@ -0,0 +1,100 @@
+package voxmap.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HDR-style log-linear latency histogram.
+ *
+ * Values are recorded in ~1µs units (nanos >> 10) into 8 sub-buckets per power of two,
+ * so any reported value is within 12.5% of the real one. Counts are striped by thread
+ * to keep contention low, and recording never allocates.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB = 8;                 // sub-buckets per power of two
+    private static final int MAX_MAGNITUDE = 40;      // 2^40 µs ≈ 12 days, clamps above
+    static final int BUCKETS = SUB + (MAX_MAGNITUDE - 3) * SUB;
+    private static final int STRIPES = 8;             // power of two
+    private static final double UNIT_SECONDS = 1024e-9;
+
+    private final String name;
+    private final String help;
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+    private final LongAdder sumNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    public String name() { return name; }
+    public String help() { return help; }
+
+    static int bucketOf(long units) {
+        if (units < SUB) return (int) Math.max(0, units);
+        int m = 63 - Long.numberOfLeadingZeros(units);
+        if (m >= MAX_MAGNITUDE) return BUCKETS - 1;
+        int sub = (int) (units >>> (m - 3)) - SUB;
+        return SUB + (m - 3) * SUB + sub;
+    }
+
+    /** Exclusive upper bound of a bucket, in seconds. */
+    static double upperBoundSeconds(int bucket) {
+        if (bucket < SUB) return (bucket + 1) * UNIT_SECONDS;
+        int m = (bucket - SUB) / SUB + 3;
+        int sub = (bucket - SUB) % SUB;
+        return ((long) (SUB + sub + 1) << (m - 3)) * UNIT_SECONDS;
+    }
+
+    public void recordNanos(long nanos) {
+        if (nanos < 0) nanos = 0;
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        counts.incrementAndGet(stripe * BUCKETS + bucketOf(nanos >> 10));
+        sumNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) max = maxNanos.get();
+    }
+
+    /** Convenience for {@code long t0 = System.nanoTime(); ... h.recordSince(t0);} */
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    /** Merged (unstriped) bucket counts. */
+    long[] snapshot() {
+        long[] out = new long[BUCKETS];
+        for (int s = 0; s < STRIPES; s++) {
+            int base = s * BUCKETS;
+            for (int b = 0; b < BUCKETS; b++) out[b] += counts.get(base + b);
+        }
+        return out;
+    }
+
+    public long count() {
+        long n = 0;
+        for (long c : snapshot()) n += c;
+        return n;
+    }
+
+    public double sumSeconds() { return sumNanos.sum() / 1e9; }
+
+    public double maxSeconds() { return maxNanos.get() / 1e9; }
+
+    /** Quantile q in [0,1], in seconds (bucket upper bound); 0 when empty. */
+    public double quantileSeconds(double q) {
+        long[] b = snapshot();
+        long total = 0;
+        for (long c : b) total += c;
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < b.length; i++) {
+            seen += b[i];
+            if (seen >= rank) return Math.min(upperBoundSeconds(i), maxSeconds());
+        }
+        return maxSeconds();
+    }
+}
@@ -0,0 +1,179 @@
+package voxmap.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide counters and latency histograms for the render pipeline.
+ *
+ * Static so the (static) mesher can record without extra plumbing. Recording is a
+ * LongAdder increment or a striped histogram bump; nothing allocates on the hot path.
+ * Exported in Prometheus text format at /api/metrics and summarized by /voxmap stats.
+ */
+public final class RenderMetrics {
+
+    private RenderMetrics() {}
+
+    // --- mesher ---
+    public static final LatencyHistogram MESH_BUILD = new LatencyHistogram(
+            "voxmap_mesh_build_seconds", "Time spent in ExposedFaceMesher per chunk.");
+    public static final LongAdder MESH_QUADS = new LongAdder();
+
+    // --- snapshots ---
+    public static final LatencyHistogram SNAPSHOT_WAIT = new LatencyHistogram(
+            "voxmap_snapshot_wait_seconds", "Time from requesting a chunk snapshot until it is available (includes waiting for the main thread).");
+    public static final LatencyHistogram SNAPSHOT_MAIN_THREAD = new LatencyHistogram(
+            "voxmap_snapshot_main_thread_seconds", "Main-thread time spent taking a chunk snapshot.");
+
+    // --- serving cache ---
+    public static final LongAdder CACHE_HIT = new LongAdder();
+    public static final LongAdder CACHE_STALE = new LongAdder();
+    public static final LongAdder CACHE_MISS = new LongAdder();
+    public static final LongAdder REBUILDS = new LongAdder();
+    public static final LongAdder REBUILD_FAILURES = new LongAdder();
+    public static final LongAdder DIRTY_CHUNKS = new LongAdder();
+    public static final LongAdder WARMED = new LongAdder();
+
+    // --- http ---
+    public static final LongAdder HTTP_TIMEOUTS = new LongAdder();
+
+    private static final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+    private static final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    public record Gauge(String help, LongSupplier value) {}
+
+    /** Per-endpoint HTTP metrics; the label is the context path (e.g. /api/chunk). */
+    public static final class Endpoint {
+        public final String path;
+        public final LongAdder requests = new LongAdder();
+        public final LongAdder bytes = new LongAdder();
+        public final LongAdder errors5xx = new LongAdder();
+        public final LatencyHistogram latency;
+
+        Endpoint(String path) {
+            this.path = path;
+            this.latency = new LatencyHistogram("voxmap_http_request_seconds", "HTTP handler latency.");
+        }
+    }
+
+    public static Endpoint endpoint(String path) {
+        return endpoints.computeIfAbsent(path, Endpoint::new);
+    }
+
+    /** Registers (or replaces) a gauge sampled at scrape time. */
+    public static void gauge(String name, String help, LongSupplier value) {
+        gauges.put(name, new Gauge(help, value));
+    }
+
+    /** Current value of a registered gauge, or 0 if none is registered under that name. */
+    public static long gaugeValue(String name) {
+        Gauge g = gauges.get(name);
+        return g == null ? 0 : g.value().getAsLong();
+    }
+
+    public static long httpBytes() {
+        long n = 0;
+        for (Endpoint ep : endpoints.values()) n += ep.bytes.sum();
+        return n;
+    }
+
+    public static long http5xx() {
+        long n = 0;
+        for (Endpoint ep : endpoints.values()) n += ep.errors5xx.sum();
+        return n;
+    }
+
+    public static long cacheRequests() {
+        return CACHE_HIT.sum() + CACHE_STALE.sum() + CACHE_MISS.sum();
+    }
+
+    /** Hit ratio of the serving cache (stale serves count as hits: no build on the request path). */
+    public static double cacheHitRatio() {
+        long total = cacheRequests();
+        return total == 0 ? 0 : (CACHE_HIT.sum() + CACHE_STALE.sum()) / (double) total;
+    }
+
+    // --- Prometheus text format ---
+
+    private static final double[] LE = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30
+    };
+
+    public static String prometheus() {
+        StringBuilder sb = new StringBuilder(8192);
+
+        histogram(sb, MESH_BUILD, null, true);
+        counter(sb, "voxmap_mesh_quads_total", "Quads emitted by the mesher.", MESH_QUADS.sum());
+        histogram(sb, SNAPSHOT_WAIT, null, true);
+        histogram(sb, SNAPSHOT_MAIN_THREAD, null, true);
+
+        header(sb, "voxmap_cache_requests_total", "Serving-cache lookups by result.", "counter");
+        sb.append("voxmap_cache_requests_total{result=\"hit\"} ").append(CACHE_HIT.sum()).append('\n');
+        sb.append("voxmap_cache_requests_total{result=\"stale\"} ").append(CACHE_STALE.sum()).append('\n');
+        sb.append("voxmap_cache_requests_total{result=\"miss\"} ").append(CACHE_MISS.sum()).append('\n');
+        counter(sb, "voxmap_background_rebuilds_total", "Background re-meshes of dirty chunks.", REBUILDS.sum());
+        counter(sb, "voxmap_background_rebuild_failures_total", "Background re-meshes that failed.", REBUILD_FAILURES.sum());
+        counter(sb, "voxmap_dirty_chunks_total", "Chunk columns marked dirty by the journal.", DIRTY_CHUNKS.sum());
+        counter(sb, "voxmap_warmed_chunks_total", "Chunk meshes built ahead of viewers by the warmer.", WARMED.sum());
+
+        for (var e : new java.util.TreeMap<>(gauges).entrySet()) {
+            header(sb, e.getKey(), e.getValue().help(), "gauge");
+            sb.append(e.getKey()).append(' ').append(e.getValue().value().getAsLong()).append('\n');
+        }
+
+        header(sb, "voxmap_http_requests_total", "HTTP requests by endpoint.", "counter");
+        for (Endpoint ep : endpoints.values())
+            sb.append("voxmap_http_requests_total{endpoint=\"").append(ep.path).append("\"} ").append(ep.requests.sum()).append('\n');
+        header(sb, "voxmap_http_response_bytes_total", "Response body bytes by endpoint.", "counter");
+        for (Endpoint ep : endpoints.values())
+            sb.append("voxmap_http_response_bytes_total{endpoint=\"").append(ep.path).append("\"} ").append(ep.bytes.sum()).append('\n');
+        header(sb, "voxmap_http_5xx_total", "5xx responses by endpoint.", "counter");
+        for (Endpoint ep : endpoints.values())
+            sb.append("voxmap_http_5xx_total{endpoint=\"").append(ep.path).append("\"} ").append(ep.errors5xx.sum()).append('\n');
+        counter(sb, "voxmap_http_timeouts_total", "Requests that timed out waiting for a snapshot or mesh.", HTTP_TIMEOUTS.sum());
+
+        boolean first = true;
+        for (Endpoint ep : endpoints.values()) {
+            histogram(sb, ep.latency, "endpoint=\"" + ep.path + "\"", first);
+            first = false;
+        }
+        return sb.toString();
+    }
+
+    private static void header(StringBuilder sb, String name, String help, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, long v) {
+        header(sb, name, help, "counter");
+        sb.append(name).append(' ').append(v).append('\n');
+    }
+
+    private static void histogram(StringBuilder sb, LatencyHistogram h, String labels, boolean withHeader) {
+        if (withHeader) header(sb, h.name(), h.help(), "histogram");
+        long[] b = h.snapshot();
+        String pre = labels == null ? "" : labels + ",";
+
+        long cum = 0;
+        int bi = 0;
+        for (double le : LE) {
+            while (bi < b.length && LatencyHistogram.upperBoundSeconds(bi) <= le) cum += b[bi++];
+            sb.append(h.name()).append("_bucket{").append(pre).append("le=\"").append(fmt(le)).append("\"} ").append(cum).append('\n');
+        }
+        long total = cum;
+        while (bi < b.length) total += b[bi++];
+        sb.append(h.name()).append("_bucket{").append(pre).append("le=\"+Inf\"} ").append(total).append('\n');
+        String l = labels == null ? "" : "{" + labels + "}";
+        sb.append(h.name()).append("_sum").append(l).append(' ').append(fmt(h.sumSeconds())).append('\n');
+        sb.append(h.name()).append("_count").append(l).append(' ').append(total).append('\n');
+    }
+
+    static String fmt(double v) {
+        return new java.math.BigDecimal(String.format(Locale.ROOT, "%.6g", v)).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,103 @@
+package voxmap.offline;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal reader for Minecraft's NBT format (big-endian, as stored in region files).
+ *
+ * Compounds become {@code Map<String, Object>}, lists {@code List<Object>}, arrays
+ * {@code byte[] / int[] / long[]} and numbers their boxed Java type.
+ */
+public final class Nbt {
+
+    private Nbt() {}
+
+    /** Reads a root tag (normally an unnamed compound). */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> readRoot(DataInput in) throws IOException {
+        int type = in.readUnsignedByte();
+        if (type != 10) throw new IOException("NBT root is not a compound (type " + type + ")");
+        in.readUTF();
+        return (Map<String, Object>) read(in, type, 0);
+    }
+
+    private static Object read(DataInput in, int type, int depth) throws IOException {
+        if (depth > 512) throw new IOException("NBT nested too deeply");
+        switch (type) {
+            case 1: return in.readByte();
+            case 2: return in.readShort();
+            case 3: return in.readInt();
+            case 4: return in.readLong();
+            case 5: return in.readFloat();
+            case 6: return in.readDouble();
+            case 7: {
+                byte[] a = new byte[length(in)];
+                in.readFully(a);
+                return a;
+            }
+            case 8: return in.readUTF();
+            case 9: {
+                int elem = in.readUnsignedByte();
+                int n = length(in);
+                List<Object> list = new ArrayList<>(Math.min(n, 1024));
+                for (int i = 0; i < n; i++) list.add(read(in, elem, depth + 1));
+                return list;
+            }
+            case 10: {
+                Map<String, Object> map = new HashMap<>();
+                for (int t; (t = in.readUnsignedByte()) != 0; ) {
+                    String name = in.readUTF();
+                    map.put(name, read(in, t, depth + 1));
+                }
+                return map;
+            }
+            case 11: {
+                int[] a = new int[length(in)];
+                for (int i = 0; i < a.length; i++) a[i] = in.readInt();
+                return a;
+            }
+            case 12: {
+                long[] a = new long[length(in)];
+                for (int i = 0; i < a.length; i++) a[i] = in.readLong();
+                return a;
+            }
+            default:
+                throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    private static int length(DataInput in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) throw new IOException("Negative NBT length");
+        return n;
+    }
+
+    // --- typed accessors (null when missing or of another type) ---
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> compound(Map<String, Object> tag, String key) {
+        Object o = tag.get(key);
+        return o instanceof Map ? (Map<String, Object>) o : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<Object> list(Map<String, Object> tag, String key) {
+        Object o = tag.get(key);
+        return o instanceof List ? (List<Object>) o : null;
+    }
+
+    public static String string(Map<String, Object> tag, String key) {
+        Object o = tag.get(key);
+        return o instanceof String s ? s : null;
+    }
+
+    public static int integer(Map<String, Object> tag, String key, int def) {
+        Object o = tag.get(key);
+        return o instanceof Number n ? n.intValue() : def;
+    }
+}
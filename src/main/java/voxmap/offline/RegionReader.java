@@ -0,0 +1,240 @@
+package voxmap.offline;
+
+import voxmap.render.BlockModels;
+import voxmap.render.BlockRegistry;
+import voxmap.render.BlockTraits;
+import voxmap.render.BlockVolume;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads chunk columns from an Anvil region file ({@code r.<rx>.<rz>.mca}, 1.18+ layout) into
+ * {@link BlockVolume}s, without a server.
+ *
+ * Only fully generated chunks are returned. Chunks stored with LZ4 compression (an optional
+ * server setting since 1.20.5) are skipped and counted in {@link #skipped()}.
+ * Safe to read from several threads.
+ */
+public class RegionReader implements Closeable {
+
+    private static final int SECTOR = 4096;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final int[] locations = new int[1024];
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    public RegionReader(File file) throws IOException {
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "r");
+        if (raf.length() >= SECTOR) {
+            raf.seek(0);
+            for (int i = 0; i < 1024; i++) locations[i] = raf.readInt();
+        }
+    }
+
+    /** Chunks that exist but couldn't be decoded (unsupported compression, corrupt data). */
+    public int skipped() { return skipped.get(); }
+
+    public boolean has(int localX, int localZ) {
+        return locations[(localZ & 31) * 32 + (localX & 31)] != 0;
+    }
+
+    /** Root NBT of a chunk, or null when it isn't stored. */
+    public Map<String, Object> chunkNbt(int localX, int localZ) throws IOException {
+        int loc = locations[(localZ & 31) * 32 + (localX & 31)];
+        if (loc == 0) return null;
+        long offset = (long) (loc >>> 8) * SECTOR;
+        int compression;
+        byte[] buf = null;
+        synchronized (raf) {
+            if (offset + 5 > raf.length()) return null;
+            raf.seek(offset);
+            int length = raf.readInt();
+            compression = raf.readUnsignedByte();
+            if ((compression & 128) == 0) {
+                if (length <= 1 || length > 256 * SECTOR) return null;
+                buf = new byte[length - 1];
+                raf.readFully(buf);
+            }
+        }
+
+        InputStream raw;
+        if (buf == null) {
+            // oversized chunk stored next to the region file as c.<cx>.<cz>.mcc
+            int rx = regionCoord(0), rz = regionCoord(1);
+            File mcc = new File(file.getParentFile(), "c." + (rx * 32 + localX) + "." + (rz * 32 + localZ) + ".mcc");
+            if (!mcc.isFile()) { skipped.incrementAndGet(); return null; }
+            raw = new BufferedInputStream(new FileInputStream(mcc));
+            compression &= 127;
+        } else {
+            raw = new ByteArrayInputStream(buf);
+        }
+
+        InputStream in;
+        switch (compression) {
+            case 1 -> in = new GZIPInputStream(raw);
+            case 2 -> in = new InflaterInputStream(raw);
+            case 3 -> in = raw;
+            default -> { raw.close(); skipped.incrementAndGet(); return null; }
+        }
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(in))) {
+            return Nbt.readRoot(dis);
+        }
+    }
+
+    private int regionCoord(int which) {
+        // r.<rx>.<rz>.mca
+        String[] parts = file.getName().split("\\.");
+        return Integer.parseInt(parts[1 + which]);
+    }
+
+    /**
+     * Blocks, light and biomes of a chunk, or null when it is missing or not fully generated.
+     * Height covers the sections that store blocks.
+     */
+    public BlockVolume read(int localX, int localZ) throws IOException {
+        Map<String, Object> root;
+        try {
+            root = chunkNbt(localX, localZ);
+        } catch (IOException e) {
+            skipped.incrementAndGet();
+            return null;
+        }
+        if (root == null) return null;
+        // pre-1.18 chunks wrap everything in "Level"; those aren't supported
+        String status = Nbt.string(root, "Status");
+        if (status == null || !(status.equals("minecraft:full") || status.equals("full"))) return null;
+        List<Object> sections = Nbt.list(root, "sections");
+        if (sections == null) return null;
+
+        int minS = Integer.MAX_VALUE, maxS = Integer.MIN_VALUE;
+        for (Object o : sections) {
+            @SuppressWarnings("unchecked") Map<String, Object> s = (Map<String, Object>) o;
+            if (Nbt.compound(s, "block_states") == null) continue;
+            int y = Nbt.integer(s, "Y", 0);
+            minS = Math.min(minS, y);
+            maxS = Math.max(maxS, y);
+        }
+        if (minS > maxS) return null;
+
+        BlockVolume v = new BlockVolume(minS * 16, (maxS - minS + 1) * 16);
+        String[][] biomeCells = new String[maxS - minS + 1][];
+        for (Object o : sections) {
+            @SuppressWarnings("unchecked") Map<String, Object> s = (Map<String, Object>) o;
+            Map<String, Object> states = Nbt.compound(s, "block_states");
+            if (states == null) continue;
+            int sy = Nbt.integer(s, "Y", 0);
+            readBlocks(v, sy * 16, states);
+            readLight(v, sy * 16, s.get("SkyLight"), s.get("BlockLight"));
+            Map<String, Object> biomes = Nbt.compound(s, "biomes");
+            if (biomes != null) biomeCells[sy - minS] = readBiomes(biomes);
+        }
+        applyBiomes(v, minS, biomeCells);
+        return v;
+    }
+
+    private static void readBlocks(BlockVolume v, int y0, Map<String, Object> states) {
+        List<Object> palette = Nbt.list(states, "palette");
+        if (palette == null || palette.isEmpty()) return;
+        int[] ids = new int[palette.size()];
+        int[] modelStates = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            @SuppressWarnings("unchecked") Map<String, Object> e = (Map<String, Object>) palette.get(i);
+            String name = Nbt.string(e, "Name");
+            ids[i] = name == null ? BlockRegistry.AIR : BlockRegistry.id(name);
+            Map<String, Object> props = Nbt.compound(e, "Properties");
+            if (props != null && BlockTraits.model(BlockRegistry.traits(ids[i])) != BlockModels.NONE) {
+                modelStates[i] = BlockModels.state(Nbt.string(props, "facing"), Nbt.string(props, "half"),
+                        Nbt.string(props, "type"), BlockRegistry.name(ids[i]).endsWith("wall_torch"));
+            }
+        }
+        Object data = states.get("data");
+        if (ids.length == 1 || !(data instanceof long[] longs)) {
+            if (ids[0] != BlockRegistry.AIR)
+                for (int z = 0; z < 16; z++)
+                    for (int x = 0; x < 16; x++) {
+                        v.fill(x, z, y0, y0 + 15, ids[0]);
+                        if (modelStates[0] != 0)
+                            for (int y = y0; y <= y0 + 15; y++) v.setModelState(x, y, z, modelStates[0]);
+                    }
+            return;
+        }
+        int bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(ids.length - 1));
+        int perLong = 64 / bits;
+        long mask = (1L << bits) - 1;
+        for (int i = 0; i < 4096; i++) {
+            int li = i / perLong;
+            if (li >= longs.length) break;
+            int p = (int) ((longs[li] >>> ((i % perLong) * bits)) & mask);
+            int id = p < ids.length ? ids[p] : BlockRegistry.AIR;
+            if (id == BlockRegistry.AIR) continue;
+            v.set(i & 15, y0 + (i >> 8), (i >> 4) & 15, id);
+            if (modelStates[p] != 0) v.setModelState(i & 15, y0 + (i >> 8), (i >> 4) & 15, modelStates[p]);
+        }
+    }
+
+    private static void readLight(BlockVolume v, int y0, Object sky, Object block) {
+        byte[] s = sky instanceof byte[] b && b.length == 2048 ? b : null;
+        byte[] bl = block instanceof byte[] b && b.length == 2048 ? b : null;
+        if (s == null && bl == null) return;
+        for (int i = 0; i < 4096; i++) {
+            int shift = (i & 1) * 4;
+            int sv = s == null ? 15 : (s[i >> 1] >> shift) & 15;
+            int bv = bl == null ? 0 : (bl[i >> 1] >> shift) & 15;
+            if (sv != 15 || bv != 0) v.setLight(i & 15, y0 + (i >> 8), (i >> 4) & 15, sv, bv);
+        }
+    }
+
+    /** 4x4x4 biome cells of a section, index = (y * 4 + z) * 4 + x. */
+    private static String[] readBiomes(Map<String, Object> biomes) {
+        List<Object> palette = Nbt.list(biomes, "palette");
+        if (palette == null || palette.isEmpty()) return null;
+        String[] names = new String[palette.size()];
+        for (int i = 0; i < names.length; i++) names[i] = stripNamespace(String.valueOf(palette.get(i)));
+        String[] cells = new String[64];
+        Object data = biomes.get("data");
+        if (names.length == 1 || !(data instanceof long[] longs)) {
+            java.util.Arrays.fill(cells, names[0]);
+            return cells;
+        }
+        int bits = 32 - Integer.numberOfLeadingZeros(names.length - 1);
+        int perLong = 64 / bits;
+        long mask = (1L << bits) - 1;
+        for (int i = 0; i < 64; i++) {
+            int li = i / perLong;
+            int p = li < longs.length ? (int) ((longs[li] >>> ((i % perLong) * bits)) & mask) : 0;
+            cells[i] = names[p < names.length ? p : 0];
+        }
+        return cells;
+    }
+
+    /** The volume keeps one biome per column; take it at the column's surface. */
+    private static void applyBiomes(BlockVolume v, int minS, String[][] cells) {
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int y = v.maxY();
+                while (y > v.minY() && (BlockRegistry.traits(v.blockId(x, y, z)) & BlockTraits.AIR) != 0) y--;
+                String[] c = cells[(y >> 4) - minS];
+                if (c == null) continue;
+                String b = c[(((y & 15) >> 2) * 4 + (z >> 2)) * 4 + (x >> 2)];
+                if (!b.equals("plains")) v.setBiome(x, z, b);
+            }
+        }
+    }
+
+    private static String stripNamespace(String s) {
+        int i = s.indexOf(':');
+        return i >= 0 ? s.substring(i + 1) : s;
+    }
+
+    @Override
+    public void close() throws IOException {
+        raf.close();
+    }
+}
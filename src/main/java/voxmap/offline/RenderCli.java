@@ -0,0 +1,229 @@
+package voxmap.offline;
+
+import voxmap.render.BlockVolume;
+import voxmap.render.ChunkMesh;
+import voxmap.render.CullRules;
+import voxmap.render.MeshStore;
+import voxmap.render.RenderProfile;
+import voxmap.texture.TextureAtlasService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Renders a world folder to a mesh store without a server:
+ * <pre>
+ * java -jar voxmap-render.jar --world /srv/world [--dimension overworld|nether|end]
+ *      [--pack texturepacks/default-1.21.11.zip] [--out meshcache] [--name world] [--threads N]
+ *      [--mode full|surface] [--maxY N] [--ceilingCut true|false] [--caveDepth 8]
+ *      [--lighting baked|dynamic]
+ * </pre>
+ * The render profile options default to the dimension's defaults, like {@code worlds.yml}.
+ * Copy (or point {@code meshStore.directory} at) the output folder and the plugin serves
+ * every rendered chunk, loaded or not. Use the same resource pack as the plugin: the store
+ * is tied to the atlas layout and ignored otherwise.
+ */
+public final class RenderCli {
+
+    private final File regionDir;
+    private final String worldName;
+    private final TextureAtlasService atlas;
+    private final MeshStore store;
+    private final RenderProfile profile;
+    private final int caveDepth;
+
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong regionsDone = new AtomicLong();
+
+    private RenderCli(File regionDir, String worldName, TextureAtlasService atlas, MeshStore store,
+                      RenderProfile profile, int caveDepth) {
+        this.regionDir = regionDir;
+        this.worldName = worldName;
+        this.atlas = atlas;
+        this.store = store;
+        this.profile = profile;
+        this.caveDepth = caveDepth;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        if (opts == null || !opts.containsKey("world")) {
+            System.err.println("Usage: --world <folder> [--dimension overworld|nether|end] [--pack <zip>]"
+                    + " [--out <dir>] [--name <world name>] [--threads <n>]"
+                    + " [--mode full|surface] [--maxY <y>] [--ceilingCut true|false] [--caveDepth <n>]"
+                    + " [--lighting baked|dynamic]");
+            System.exit(2);
+            return;
+        }
+
+        File worldDir = new File(opts.get("world"));
+        String dim = opts.getOrDefault("dimension", "overworld");
+        File regionDir = switch (dim) {
+            case "overworld" -> new File(worldDir, "region");
+            case "nether" -> new File(worldDir, "DIM-1/region");
+            case "end" -> new File(worldDir, "DIM1/region");
+            default -> throw new IllegalArgumentException("Unknown dimension: " + dim);
+        };
+        if (!regionDir.isDirectory()) {
+            System.err.println("No region folder at " + regionDir);
+            System.exit(1);
+            return;
+        }
+
+        TextureAtlasService atlas = new TextureAtlasService(16, 32);
+        String pack = opts.get("pack");
+        if (pack != null) atlas.loadFromResourcePackZip(pack);
+        else atlas.loadFallback();
+
+        String name = opts.getOrDefault("name", worldDir.getAbsoluteFile().getName());
+        File out = new File(opts.getOrDefault("out", "meshcache"));
+        int threads = Integer.parseInt(opts.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        RenderProfile def = RenderProfile.defaults(switch (dim) {
+            case "nether" -> "nether";
+            case "end" -> "the_end";
+            default -> "normal";
+        });
+        RenderProfile profile = new RenderProfile(
+                RenderProfile.Mode.parse(opts.get("mode"), def.mode),
+                opts.containsKey("maxY") ? Integer.parseInt(opts.get("maxY")) : def.maxY,
+                opts.containsKey("ceilingCut") ? Boolean.parseBoolean(opts.get("ceilingCut")) : def.ceilingCut,
+                0,
+                opts.containsKey("lighting") ? opts.get("lighting").equals("baked") : def.bakedLighting);
+        int caveDepth = Integer.parseInt(opts.getOrDefault("caveDepth", "8"));
+
+        Logger log = Logger.getLogger("Voxmap");
+        MeshStore store = new MeshStore(out, atlas.fingerprint(), log);
+        RenderCli cli = new RenderCli(regionDir, name, atlas, store, profile, caveDepth);
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            cli.run(pool);
+        } finally {
+            pool.shutdown();
+            store.close();
+        }
+        System.out.printf(Locale.ROOT, "Rendered %d chunks in %d regions in %.1f s (%d skipped) -> %s%n",
+                cli.chunks.get(), cli.regionsDone.get(), (System.nanoTime() - start) / 1e9, cli.skipped.get(),
+                new File(out, name).getAbsolutePath());
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> m = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) return null;
+            m.put(args[i].substring(2), args[++i]);
+        }
+        return m;
+    }
+
+    private void run(ForkJoinPool pool) throws Exception {
+        List<long[]> regions = new ArrayList<>();
+        File[] files = regionDir.listFiles((d, n) -> n.startsWith("r.") && n.endsWith(".mca"));
+        if (files != null) {
+            for (File f : files) {
+                String[] p = f.getName().split("\\.");
+                if (p.length != 4 || f.length() == 0) continue;
+                try {
+                    regions.add(new long[]{Integer.parseInt(p[1]), Integer.parseInt(p[2])});
+                } catch (NumberFormatException ignored) {}
+            }
+        }
+        System.out.println("Rendering " + regions.size() + " regions of " + worldName
+                + " with " + pool.getParallelism() + " threads");
+
+        // regions run in parallel; each region also meshes its rows in parallel
+        pool.submit(() -> regions.parallelStream().forEach(r -> {
+            try {
+                renderRegion((int) r[0], (int) r[1]);
+            } catch (IOException e) {
+                System.err.println("Region " + r[0] + "," + r[1] + " failed: " + e.getMessage());
+            }
+        })).get();
+    }
+
+    private RegionReader reader(Map<Long, Optional<RegionReader>> readers, int rx, int rz) {
+        long k = ((long) rx << 32) ^ (rz & 0xffffffffL);
+        return readers.computeIfAbsent(k, kk -> {
+            File f = new File(regionDir, "r." + rx + "." + rz + ".mca");
+            if (!f.isFile() || f.length() == 0) return Optional.empty();
+            try {
+                return Optional.of(new RegionReader(f));
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    private BlockVolume column(Map<Long, Optional<RegionReader>> readers, int cx, int cz) throws IOException {
+        RegionReader r = reader(readers, cx >> 5, cz >> 5);
+        return r == null ? null : r.read(cx & 31, cz & 31);
+    }
+
+    /**
+     * Meshes one region row by row, keeping three rows of columns in memory so every chunk
+     * can be culled against its four neighbours (reading edge chunks of adjacent regions).
+     */
+    private void renderRegion(int rx, int rz) throws IOException {
+        int bx = rx * 32, bz = rz * 32;
+        ChunkMesh[] meshes = new ChunkMesh[1024];
+        // this region and the neighbours whose edge chunks it needs; closed when done
+        Map<Long, Optional<RegionReader>> readers = new ConcurrentHashMap<>();
+        try {
+            renderRows(readers, bx, bz, meshes);
+        } finally {
+            RegionReader own = reader(readers, rx, rz);
+            if (own != null) skipped.addAndGet(own.skipped());
+            for (Optional<RegionReader> r : readers.values()) if (r.isPresent()) r.get().close();
+        }
+
+        store.putRegion(worldName, rx, rz, meshes);
+        long done = regionsDone.incrementAndGet();
+        if (done % 16 == 0) System.out.println("  " + done + " regions, " + chunks.get() + " chunks");
+    }
+
+    private void renderRows(Map<Long, Optional<RegionReader>> readers, int bx, int bz, ChunkMesh[] meshes) throws IOException {
+        BlockVolume[] prev = row(readers, bx - 1, bz - 1, 34);
+        BlockVolume[] cur = row(readers, bx - 1, bz, 34);
+        for (int lz = 0; lz < 32; lz++) {
+            BlockVolume[] next = row(readers, bx - 1, bz + lz + 1, 34);
+            final BlockVolume[] p = prev, c = cur, n = next;
+            final int z = lz;
+            IntStream.range(0, 32).parallel().forEach(lx -> {
+                BlockVolume v = c[lx + 1];
+                if (v == null) return;
+                v.setNeighbor(-1, 0, c[lx]);
+                v.setNeighbor(1, 0, c[lx + 2]);
+                v.setNeighbor(0, -1, p[lx + 1]);
+                v.setNeighbor(0, 1, n[lx + 1]);
+                meshes[z * 32 + lx] = profile.mesh(v, v.minY(), v.maxY(), atlas, caveDepth, CullRules.DEFAULT);
+                chunks.incrementAndGet();
+            });
+            prev = cur;
+            cur = next;
+        }
+    }
+
+    /** Columns cx0..cx0+count-1 of row cz (null where missing or not fully generated). */
+    private BlockVolume[] row(Map<Long, Optional<RegionReader>> readers, int cx0, int cz, int count) throws IOException {
+        BlockVolume[] row = new BlockVolume[count];
+        IOException[] failure = new IOException[1];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            try {
+                row[i] = column(readers, cx0 + i, cz);
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+        return row;
+    }
+}
@@ -0,0 +1,74 @@
+package voxmap.render;
+
+/**
+ * The small library of shared shapes for blocks that aren't full cubes. The mesher doesn't
+ * build their faces; it lists one instance per block (model, state, position, tint, tile,
+ * see {@link ChunkMesh#instances}) and the client draws each model with instancing.
+ *
+ * A block's model is part of its {@link BlockTraits} ({@link BlockTraits#model}); the state
+ * (facing, upper half...) comes from {@link BlockSource#modelState}.
+ */
+public final class BlockModels {
+
+    // Model ids are part of the wire format, don't renumber.
+    public static final int NONE = 0;
+    /** Two crossed planes: flowers, grass, saplings, crops. */
+    public static final int CROSS = 1;
+    /** Lower half box; {@link #TOP} = upper half, {@link #DOUBLE} = full. */
+    public static final int SLAB = 2;
+    /** Lower half plus a back step on the facing side; {@link #TOP} = upside down. */
+    public static final int STAIRS = 3;
+    /** Thin post; {@link #WALL} = against the wall behind its facing. */
+    public static final int TORCH = 4;
+    /** 1/16 high plate: carpets, rails, pressure plates, lily pads, snow layers. */
+    public static final int FLAT = 5;
+
+    // state bits
+    /** Quarter turns clockwise from north (facing north, east, south, west). */
+    public static final int ROTATION = 3;
+    public static final int TOP = 4;
+    public static final int WALL = 8;
+    public static final int DOUBLE = 16;
+
+    private static final String[] CROSS_NAMES = {
+            "sapling", "flower", "tulip", "orchid", "allium", "bluet", "daisy", "poppy", "dandelion",
+            "lily_of", "rose", "fern", "grass", "bush", "mushroom", "sugar_cane", "wheat", "carrots",
+            "potatoes", "beetroots", "cobweb", "roots", "sprouts", "kelp", "nether_wart", "propagule"
+    };
+
+    private BlockModels() {}
+
+    /** Model for a block (lowercase name without namespace), {@link #NONE} for cubes and unknown shapes. */
+    public static int modelFor(String n, boolean solid) {
+        if (n.endsWith("_slab")) return SLAB;
+        if (n.endsWith("_stairs")) return STAIRS;
+        if (n.endsWith("torch")) return TORCH;
+        if (n.endsWith("_carpet") || n.endsWith("rail") || n.endsWith("_pressure_plate")
+                || n.equals("lily_pad") || n.equals("snow")) return FLAT;
+        if (!solid) for (String s : CROSS_NAMES) if (n.contains(s)) return CROSS;
+        return NONE;
+    }
+
+    /** Rotation bits for a facing name ("north", "east", ...); 0 for anything else. */
+    public static int rotation(String facing) {
+        if (facing == null) return 0;
+        return switch (facing.toLowerCase(java.util.Locale.ROOT)) {
+            case "east" -> 1;
+            case "south" -> 2;
+            case "west" -> 3;
+            default -> 0;
+        };
+    }
+
+    /**
+     * State from block state properties as stored in a world ("facing", "half", "type");
+     * any may be null. {@code wall} marks a wall-mounted variant (wall torches).
+     */
+    public static int state(String facing, String half, String type, boolean wall) {
+        int s = rotation(facing);
+        if ("top".equals(half) || "top".equals(type)) s |= TOP;
+        if ("double".equals(type)) s |= DOUBLE;
+        if (wall) s |= WALL;
+        return s;
+    }
+}
@@ -0,0 +1,82 @@
+package voxmap.render;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide block ids: small ints handed out per block name ("stone", "oak_leaves", ...),
+ * each with its {@link BlockTraits} flags. The mesher, atlas and {@link BlockSource}s only
+ * deal in these ids, so none of them need Bukkit.
+ *
+ * Ids are stable for the life of the process only; never persist them, persist names.
+ */
+public final class BlockRegistry {
+
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[512];
+    private static volatile int[] traits = new int[512];
+    private static int count;
+
+    public static final int AIR = id("air");
+    public static final int CAVE_AIR = id("cave_air");
+    public static final int VOID_AIR = id("void_air");
+    public static final int GRASS_BLOCK = id("grass_block");
+    public static final int WATER = id("water");
+    public static final int LAVA = id("lava");
+
+    private BlockRegistry() {}
+
+    /** "minecraft:Stone" -> "stone" */
+    public static String normalize(String name) {
+        String n = name.toLowerCase(Locale.ROOT);
+        return n.startsWith("minecraft:") ? n.substring("minecraft:".length()) : n;
+    }
+
+    /** Id for a block name, registering it (with {@link BlockTraits#guess} flags) on first use. */
+    public static int id(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        return register(normalize(name), name);
+    }
+
+    private static synchronized int register(String n, String asGiven) {
+        Integer id = ids.get(n);
+        if (id == null) {
+            id = count;
+            if (id == names.length) {
+                String[] nn = Arrays.copyOf(names, id * 2);
+                int[] nt = Arrays.copyOf(traits, id * 2);
+                nt[id] = BlockTraits.guess(n);
+                nn[id] = n;
+                traits = nt;
+                names = nn;
+            } else {
+                traits[id] = BlockTraits.guess(n);
+                names[id] = n;
+            }
+            count++;
+            ids.put(n, id);
+        }
+        ids.putIfAbsent(asGiven, id);
+        return id;
+    }
+
+    public static String name(int id) {
+        return names[id];
+    }
+
+    public static int traits(int id) {
+        return traits[id];
+    }
+
+    /** Replaces the flags of a block, e.g. with the server's answer or a recorded fixture's. */
+    public static synchronized void define(int id, int flags) {
+        traits[id] = flags;
+    }
+
+    public static int size() {
+        return count;
+    }
+}
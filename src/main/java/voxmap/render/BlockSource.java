@@ -0,0 +1,39 @@
+package voxmap.render;
+
+/**
+ * Read-only view of one 16-wide chunk column, independent of where the blocks come from
+ * (a live {@link org.bukkit.ChunkSnapshot}, a {@link BlockVolume}, a region file...).
+ *
+ * x and z are chunk-local (0..15), y is the world height. Block ids come from {@link BlockRegistry}.
+ */
+public interface BlockSource {
+
+    int minY();
+
+    /** Inclusive. */
+    int maxY();
+
+    int blockId(int x, int y, int z);
+
+    /** Sky light 0..15. */
+    int skyLight(int x, int y, int z);
+
+    /** Block (emitted) light 0..15. */
+    int blockLight(int x, int y, int z);
+
+    /** Biome name without namespace, e.g. "plains". */
+    String biome(int x, int y, int z);
+
+    /** {@link BlockModels} state bits (facing, upper half...) of a model block; 0 when unknown. */
+    default int modelState(int x, int y, int z) {
+        return 0;
+    }
+
+    /**
+     * The adjacent column at (dx, dz), one of (±1, 0) / (0, ±1), or null when it isn't
+     * available. Without neighbours every face on the column border counts as exposed.
+     */
+    default BlockSource neighbor(int dx, int dz) {
+        return null;
+    }
+}
@@ -0,0 +1,121 @@
+package voxmap.render;
+
+import java.util.Set;
+
+/**
+ * Per-block-type flags used by the mesher, looked up by block id through {@link BlockRegistry}
+ * instead of being re-derived per block.
+ *
+ * Inside the server they come from Material#isSolid/isOccluding (see {@link ChunkSnapshotSource});
+ * offline they come from a recorded {@link ChunkFixture} or, failing that, {@link #guess}.
+ */
+public final class BlockTraits {
+
+    public static final int AIR = 1;
+    /** Full opaque cube: hides the neighbouring face. */
+    public static final int OCCLUDER = 1 << 1;
+    /** Drawn by the cube mesher (solid cubes plus leaves, fluids, glass, ice); never set with a model. */
+    public static final int CUBE = 1 << 2;
+    public static final int LEAVES = 1 << 3;
+    public static final int WATER = 1 << 4;
+    public static final int LAVA = 1 << 5;
+    public static final int EMITTER = 1 << 6;
+    public static final int GRASS_TINT = 1 << 7;
+    /** Drawn with alpha testing: texture holes, no blending (leaves, clear glass). */
+    public static final int CUTOUT = 1 << 8;
+    /** Drawn blended, after everything else (water, ice, stained glass). */
+    public static final int TRANSLUCENT = 1 << 9;
+    // bits 12..15: shared model of a non-cube block (BlockModels), drawn as instances
+    private static final int MODEL_SHIFT = 12;
+
+    private BlockTraits() {}
+
+    /** {@link BlockModels} id of a block's flags, {@link BlockModels#NONE} for cubes. */
+    public static int model(int flags) {
+        return (flags >> MODEL_SHIFT) & 15;
+    }
+
+    static boolean isAirName(String n) {
+        return n.equals("air") || n.equals("cave_air") || n.equals("void_air");
+    }
+
+    /** Flags for a block (lowercase name without namespace) with the given collision/occlusion properties. */
+    public static int compute(String n, boolean solid, boolean occluding) {
+        if (isAirName(n)) return AIR;
+
+        int f = 0;
+        if (n.contains("leaves")) f |= LEAVES;
+        if (n.equals("water")) f |= WATER;
+        if (n.equals("lava")) f |= LAVA;
+        if (n.equals("grass") || n.equals("short_grass") || n.equals("tall_grass")
+                || n.equals("fern") || n.equals("large_fern")
+                || n.equals("seagrass") || n.equals("tall_seagrass")
+                || n.equals("sugar_cane") || n.contains("vine")) f |= GRASS_TINT;
+        if (n.endsWith("_torch") || n.equals("torch")
+                || n.endsWith("_lantern") || n.equals("lantern")
+                || n.equals("jack_o_lantern")
+                || n.equals("glowstone")
+                || n.equals("sea_lantern")) f |= EMITTER;
+
+        if ((f & WATER) != 0 || n.contains("stained_glass") || n.equals("ice") || n.equals("frosted_ice")
+                || n.equals("slime_block") || n.equals("honey_block")) f |= TRANSLUCENT;
+        else if ((f & LEAVES) != 0 || n.contains("glass")) f |= CUTOUT;
+
+        int model = BlockModels.modelFor(n, solid);
+        if (model != BlockModels.NONE) return f | (model << MODEL_SHIFT);
+
+        boolean cutout = (f & (LEAVES | WATER | LAVA)) != 0;
+
+        // Leaves/water shouldn’t occlude like full cubes (so we still render faces behind/around them)
+        if (!cutout && solid && occluding) f |= OCCLUDER;
+
+        // Skip non-cube model blocks to avoid “weird planes” artifacts,
+        // but allow leaves/water as cutout cubes, and allow glass/ice cubes.
+        if (solid || occluding || cutout || n.contains("glass") || n.contains("ice")) f |= CUBE;
+        return f;
+    }
+
+    // Name fragments of blocks without a full collision box (plants, fluids, decorations).
+    private static final String[] NOT_SOLID = {
+            "water", "lava", "seagrass", "fern", "flower", "tulip", "orchid", "allium", "bluet", "oxeye",
+            "poppy", "dandelion", "lily_of", "lily_pad", "sapling", "roots", "vine", "kelp", "sugar_cane",
+            "torch", "rail", "sign", "banner", "button", "pressure_plate", "lever", "tripwire",
+            "redstone_wire", "carpet", "cobweb", "dead_bush", "sprouts", "coral", "sea_pickle", "cocoa",
+            "wheat", "carrots", "potatoes", "beetroots", "berry_bush", "nether_wart", "fire", "ladder",
+            "scaffolding", "frogspawn", "petals", "lichen", "dripleaf", "spore_blossom", "melon_stem",
+            "pumpkin_stem", "_mushroom", "pitcher"
+    };
+    private static final Set<String> NOT_SOLID_EXACT = Set.of(
+            "grass", "short_grass", "tall_grass", "snow", "light", "structure_void", "rose_bush",
+            "peony", "lilac", "sunflower", "bush", "brown_mushroom", "red_mushroom"
+    );
+    // Name fragments of solid blocks that don't hide their neighbours.
+    private static final String[] NOT_OCCLUDING = {
+            "glass", "leaves", "ice", "slab", "stairs", "fence", "wall", "pane", "bars", "door",
+            "chest", "_bed", "lantern", "chain", "campfire", "anvil", "cauldron", "hopper", "piston_head",
+            "candle", "pot", "skull", "head", "bell", "lectern", "enchanting", "end_portal_frame",
+            "brewing", "grindstone", "stonecutter", "composter", "daylight", "conduit", "honey", "slime",
+            "farmland", "dirt_path", "cactus", "cake", "bamboo", "amethyst_cluster", "_bud", "azalea",
+            "dripstone", "sculk_sensor", "sculk_shrieker", "spawner", "beacon", "barrier", "rod", "shelf"
+    };
+
+    /**
+     * Best-effort flags from the block name alone, for offline use without a server.
+     * Unknown blocks are treated as solid opaque cubes.
+     */
+    public static int guess(String n) {
+        if (isAirName(n)) return AIR;
+        boolean solid = !NOT_SOLID_EXACT.contains(n);
+        if (solid) for (String s : NOT_SOLID) if (n.contains(s)) { solid = false; break; }
+        boolean occluding = solid;
+        if (solid) for (String s : NOT_OCCLUDING) if (n.contains(s)) { occluding = false; break; }
+
+        // full cubes whose names trip the fragments above
+        boolean fullCube = (n.endsWith("_block") && !n.equals("honey_block") && !n.equals("slime_block"))
+                || n.endsWith("_wool") || n.endsWith("_bricks") || n.equals("mushroom_stem")
+                || n.equals("sea_lantern") || n.equals("jack_o_lantern") || n.equals("packed_ice")
+                || n.equals("blue_ice");
+        if (fullCube) { solid = true; occluding = true; }
+        return compute(n, solid, occluding);
+    }
+}
@@ -0,0 +1,168 @@
+package voxmap.render;
+
+import java.util.Arrays;
+
+/**
+ * Compact in-memory {@link BlockSource}: a per-column palette of block ids with one u16
+ * palette index per block (2 bytes/block, ~200 KB for a 384-high column).
+ *
+ * Light defaults to full sky light and no block light, biome to "plains", model state to 0;
+ * all three are only stored when set. Used for fixtures, offline renders and tests of the mesher.
+ */
+public class BlockVolume implements BlockSource {
+
+    private final int minY;
+    private final int height;
+    private final short[] blocks;
+    private int[] palette = {BlockRegistry.AIR};
+    private int paletteSize = 1;
+    private int[] paletteOf = new int[0]; // block id -> palette index + 1 (0 = not in palette)
+
+    private byte[] light;      // sky << 4 | block, per block; null = sky 15, block 0
+    private String[] biomes;   // per column (z * 16 + x); null = "plains"
+    private byte[] states;     // BlockModels state per block; null = all 0
+    private final BlockSource[] neighbors = new BlockSource[4]; // -x, +x, -z, +z
+
+    public BlockVolume(int minY, int height) {
+        this.minY = minY;
+        this.height = height;
+        this.blocks = new short[height * 256];
+    }
+
+    /** Copies any other source (e.g. a snapshot) into a standalone volume. */
+    public static BlockVolume copyOf(BlockSource src) {
+        BlockVolume v = new BlockVolume(src.minY(), src.maxY() - src.minY() + 1);
+        for (int y = src.minY(); y <= src.maxY(); y++)
+            for (int z = 0; z < 16; z++)
+                for (int x = 0; x < 16; x++) {
+                    v.set(x, y, z, src.blockId(x, y, z));
+                    int sky = src.skyLight(x, y, z), block = src.blockLight(x, y, z);
+                    if (sky != 15 || block != 0) v.setLight(x, y, z, sky, block);
+                    int state = src.modelState(x, y, z);
+                    if (state != 0) v.setModelState(x, y, z, state);
+                }
+        return v;
+    }
+
+    private int index(int x, int y, int z) {
+        return ((y - minY) * 16 + z) * 16 + x;
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return x >= 0 && x < 16 && z >= 0 && z < 16 && y >= minY && y < minY + height;
+    }
+
+    public int height() { return height; }
+
+    @Override public int minY() { return minY; }
+    @Override public int maxY() { return minY + height - 1; }
+
+    @Override
+    public int blockId(int x, int y, int z) {
+        return palette[blocks[index(x, y, z)] & 0xffff];
+    }
+
+    public void set(int x, int y, int z, int blockId) {
+        blocks[index(x, y, z)] = (short) paletteIndex(blockId);
+    }
+
+    public void fill(int x, int z, int y0, int y1, int blockId) {
+        short p = (short) paletteIndex(blockId);
+        for (int y = y0; y <= y1; y++) blocks[index(x, y, z)] = p;
+    }
+
+    private int paletteIndex(int blockId) {
+        if (blockId < paletteOf.length && paletteOf[blockId] != 0) return paletteOf[blockId] - 1;
+        for (int i = 0; i < paletteSize; i++) if (palette[i] == blockId) return remember(blockId, i);
+        if (paletteSize == 0x10000) throw new IllegalStateException("More than 65536 block types in one column");
+        if (paletteSize == palette.length) palette = Arrays.copyOf(palette, paletteSize * 2);
+        palette[paletteSize] = blockId;
+        return remember(blockId, paletteSize++);
+    }
+
+    private int remember(int blockId, int index) {
+        if (blockId >= paletteOf.length) paletteOf = Arrays.copyOf(paletteOf, Math.max(blockId + 1, BlockRegistry.size()));
+        paletteOf[blockId] = index + 1;
+        return index;
+    }
+
+    /** Distinct block ids in this volume (palette order; AIR first). */
+    public int[] palette() {
+        return Arrays.copyOf(palette, paletteSize);
+    }
+
+    /** Palette index per block, index = ((y - minY) * 16 + z) * 16 + x. Live array. */
+    public short[] paletteIndices() {
+        return blocks;
+    }
+
+    /** Rebuilds a volume from {@link #palette()} and {@link #paletteIndices()}. */
+    public static BlockVolume of(int minY, int height, int[] palette, short[] indices) {
+        if (indices.length != height * 256) throw new IllegalArgumentException("indices.length != height * 256");
+        BlockVolume v = new BlockVolume(minY, height);
+        System.arraycopy(indices, 0, v.blocks, 0, indices.length);
+        v.palette = palette.length == 0 ? new int[]{BlockRegistry.AIR} : palette.clone();
+        v.paletteSize = v.palette.length;
+        return v;
+    }
+
+    @Override
+    public int skyLight(int x, int y, int z) {
+        return light == null ? 15 : (light[index(x, y, z)] >> 4) & 15;
+    }
+
+    @Override
+    public int blockLight(int x, int y, int z) {
+        return light == null ? 0 : light[index(x, y, z)] & 15;
+    }
+
+    public void setLight(int x, int y, int z, int sky, int block) {
+        if (light == null) {
+            light = new byte[blocks.length];
+            Arrays.fill(light, (byte) 0xF0);
+        }
+        light[index(x, y, z)] = (byte) ((sky & 15) << 4 | (block & 15));
+    }
+
+    @Override
+    public int modelState(int x, int y, int z) {
+        return states == null ? 0 : states[index(x, y, z)];
+    }
+
+    public void setModelState(int x, int y, int z, int state) {
+        if (states == null) states = new byte[blocks.length];
+        states[index(x, y, z)] = (byte) state;
+    }
+
+    @Override
+    public String biome(int x, int y, int z) {
+        String b = biomes == null ? null : biomes[z * 16 + x];
+        return b == null ? "plains" : b;
+    }
+
+    public void setBiome(int x, int z, String biome) {
+        if (biomes == null) biomes = new String[256];
+        biomes[z * 16 + x] = biome;
+    }
+
+    @Override
+    public BlockSource neighbor(int dx, int dz) {
+        int i = slot(dx, dz);
+        return i < 0 ? null : neighbors[i];
+    }
+
+    /** Links the adjacent column so faces on the shared border can be culled. */
+    public void setNeighbor(int dx, int dz, BlockSource n) {
+        int i = slot(dx, dz);
+        if (i < 0) throw new IllegalArgumentException("neighbor must be (±1,0) or (0,±1)");
+        neighbors[i] = n;
+    }
+
+    private static int slot(int dx, int dz) {
+        if (dz == 0 && dx == -1) return 0;
+        if (dz == 0 && dx == 1) return 1;
+        if (dx == 0 && dz == -1) return 2;
+        if (dx == 0 && dz == 1) return 3;
+        return -1;
+    }
+}
@@ -0,0 +1,64 @@
+package voxmap.render;
+
+/**
+ * Removes a solid ceiling (the nether's netherrack and bedrock roof) from the top of a column,
+ * so the space beneath it becomes the visible surface.
+ *
+ * Per column, blocks are scanned down from {@code top}: everything above the first gap of
+ * {@value #MIN_GAP} non-occluding blocks reads as air. Columns without such a gap within
+ * {@code depth} blocks (pillars, solid ground) are left untouched.
+ */
+public final class CeilingCutSource implements BlockSource {
+
+    private static final int MIN_GAP = 3;
+
+    private final BlockSource src;
+    private final int top;
+    private final int depth;
+    // first kept y per column (index z * 16 + x); blocks above read as air
+    private final int[] cut = new int[256];
+
+    public CeilingCutSource(BlockSource src, int top, int depth) {
+        this.src = src;
+        this.top = top;
+        this.depth = depth;
+        int floor = Math.max(src.minY(), top - depth);
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int c = top;
+                int gap = 0;
+                for (int y = Math.min(top, src.maxY()); y >= floor; y--) {
+                    if ((BlockRegistry.traits(src.blockId(x, y, z)) & BlockTraits.OCCLUDER) != 0) {
+                        gap = 0;
+                        continue;
+                    }
+                    if (++gap == MIN_GAP) {
+                        // the top of the column isn't a ceiling when it is open already
+                        if (y + MIN_GAP - 1 < top) c = y + MIN_GAP - 1;
+                        break;
+                    }
+                }
+                cut[z * 16 + x] = c;
+            }
+        }
+    }
+
+    @Override public int minY() { return src.minY(); }
+    @Override public int maxY() { return Math.min(src.maxY(), top); }
+
+    @Override
+    public int blockId(int x, int y, int z) {
+        return y > cut[z * 16 + x] ? BlockRegistry.AIR : src.blockId(x, y, z);
+    }
+
+    @Override public int skyLight(int x, int y, int z) { return src.skyLight(x, y, z); }
+    @Override public int blockLight(int x, int y, int z) { return src.blockLight(x, y, z); }
+    @Override public String biome(int x, int y, int z) { return src.biome(x, y, z); }
+    @Override public int modelState(int x, int y, int z) { return src.modelState(x, y, z); }
+
+    @Override
+    public BlockSource neighbor(int dx, int dz) {
+        BlockSource n = src.neighbor(dx, dz);
+        return n == null ? null : new CeilingCutSource(n, top, depth);
+    }
+}
@@ -0,0 +1,52 @@
+package voxmap.render;
+
+import voxmap.util.LongHashSet;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring of (chunk key, version) entries, newest last.
+ * Lets clients ask "what changed since version N" without tracking anything per client.
+ */
+public class ChangeLog {
+
+    /** reset = the log no longer reaches back to {@code since}; the client should revalidate everything it holds. */
+    public record Changes(long version, boolean reset, long[] chunkKeys) {}
+
+    private final long[] keys;
+    private final long[] versions;
+    private int head;   // next write slot
+    private int size;
+
+    public ChangeLog(int capacity) {
+        this.keys = new long[capacity];
+        this.versions = new long[capacity];
+    }
+
+    public synchronized void record(long chunkKey, long version) {
+        keys[head] = chunkKey;
+        versions[head] = version;
+        head = (head + 1) % keys.length;
+        if (size < keys.length) size++;
+    }
+
+    public synchronized Changes since(long since, long current) {
+        if (since <= 0) return new Changes(current, false, new long[0]);
+
+        int oldest = (head - size + keys.length) % keys.length;
+        boolean reset = size == keys.length && versions[oldest] > since;
+
+        LongHashSet seen = new LongHashSet(32);
+        long[] out = new long[Math.min(size, 256)];
+        int n = 0;
+        // newest first; concurrent rebuilds may log slightly out of order, so scan it all
+        for (int i = 0; i < size; i++) {
+            int slot = (head - 1 - i + keys.length) % keys.length;
+            if (versions[slot] <= since) continue;
+            if (!seen.add(keys[slot])) continue;
+            if (n == out.length) { reset = true; break; }
+            out[n++] = keys[slot];
+        }
+        return new Changes(current, reset, Arrays.copyOf(out, n));
+    }
+}
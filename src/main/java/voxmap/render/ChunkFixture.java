@@ -0,0 +1,79 @@
+package voxmap.render;
+
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A chunk column's blocks captured to a small file, so the mesher can be run and
+ * benchmarked against real terrain without a server.
+ *
+ * Each palette entry stores the {@link BlockTraits} flags the server computed when it was
+ * recorded; {@link #read} installs them in the {@link BlockRegistry}.
+ *
+ * <pre>
+ * gzip(
+ *   u32 magic "VXF1", i32 minY, i32 height, i32 paletteSize,
+ *   paletteSize x { utf block name, i32 traits },
+ *   u16 blocks[height * 256]   (palette index, index = ((y - minY) * 16 + z) * 16 + x)
+ * )
+ * </pre>
+ */
+public final class ChunkFixture {
+
+    private static final int MAGIC = 0x56584631; // "VXF1"
+
+    private ChunkFixture() {}
+
+    /** Captures blocks minY..maxY of any source (e.g. a {@link ChunkSnapshotSource}). */
+    public static BlockVolume capture(BlockSource src) {
+        return BlockVolume.copyOf(src);
+    }
+
+    public static void write(BlockVolume v, OutputStream out) throws IOException {
+        int[] palette = v.palette();
+        GZIPOutputStream gz = new GZIPOutputStream(out);
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(gz));
+        dos.writeInt(MAGIC);
+        dos.writeInt(v.minY());
+        dos.writeInt(v.height());
+        dos.writeInt(palette.length);
+        for (int id : palette) {
+            dos.writeUTF(BlockRegistry.name(id));
+            dos.writeInt(BlockRegistry.traits(id));
+        }
+        for (short b : v.paletteIndices()) dos.writeShort(b);
+        dos.flush();
+        gz.finish();
+    }
+
+    public static BlockVolume read(InputStream in) throws IOException {
+        DataInputStream dis = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in)));
+        if (dis.readInt() != MAGIC) throw new IOException("Not a VXF1 chunk fixture");
+        int minY = dis.readInt();
+        int height = dis.readInt();
+        int n = dis.readInt();
+        int[] palette = new int[n];
+        for (int i = 0; i < n; i++) {
+            palette[i] = BlockRegistry.id(dis.readUTF());
+            BlockRegistry.define(palette[i], dis.readInt());
+        }
+        short[] blocks = new short[height * 256];
+        for (int i = 0; i < blocks.length; i++) blocks[i] = dis.readShort();
+        return BlockVolume.of(minY, height, palette, blocks);
+    }
+
+    public static void write(BlockVolume v, File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null) parent.mkdirs();
+        try (OutputStream out = new FileOutputStream(file)) {
+            write(v, out);
+        }
+    }
+
+    public static BlockVolume read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in);
+        }
+    }
+}
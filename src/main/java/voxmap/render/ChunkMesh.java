@@ -1,28 +1,292 @@
 package voxmap.render;
 
+import java.util.Arrays;
+
+/**
+ * Compact chunk mesh, as cached and as sent over the wire (see {@link ChunkMeshCodec}).
+ *
+ * Every vertex sits on a block corner, so positions are chunk-local integers
+ * (x/z in 0..16, y is the world Y). Normals are one of six values and tints come
+ * from a small palette, so both are stored as a single byte.
+ * Per vertex: 6 (position) + 4 (uv) + 1 (face) + 1 (tint) = 12 bytes, 14 with baked light.
+ * Non-cube blocks aren't meshed but listed as 8-byte model instances.
+ */
 public class ChunkMesh {
-    public final float[] vertices;
-    public final float[] normals;
-    public final float[] uvs;
+    // xyz per vertex, chunk-local block corners
+    public final short[] positions;
+
+    // ExposedFaceMesher.Face ordinal per vertex (replaces the normal)
+    public final byte[] faces;
+
+    // atlas tile-grid corner per vertex (uint16 u,v in tiles, not normalized)
+    public final short[] uvs;
 
-    // NEW: per-vertex colors RGBRGB...
-    public final float[] colors;
+    // index into ExposedFaceMesher.TINT_PALETTE per vertex
+    public final byte[] tints;
 
-    public final int[] indices;
+    // exactly one of these is non-null: uint16 when the vertex count allows it
+    public final short[] indices16;
+    public final int[] indices32;
 
-    // NEW: light emitters [x,y,z,intensity]...
+    // light emitters [x,y,z,intensity]... (chunk-local)
     public final float[] emitters;
 
-    public ChunkMesh(float[] vertices, float[] normals, float[] uvs, float[] colors, int[] indices, float[] emitters) {
-        this.vertices = vertices;
-        this.normals = normals;
+    // BlockModels instances, 4 shorts each: model | state << 8, x | z << 4 | tint << 8, y, atlas tile
+    public final short[] instances;
+
+    // baked lighting per vertex, both null unless the world bakes light:
+    // (sky << 4) | block light, smoothed over the corner; ambient occlusion 0..3 (3 = open)
+    public final byte[] light;
+    public final byte[] ao;
+
+    // 16-high section ranges within the arrays above; null when the mesh isn't sectioned
+    public final Sections sections;
+
+    // MeshInterner.hash of this geometry, computed on first use (0 = not yet)
+    private volatile long contentHash;
+
+    // render layers: within each section the indices are ordered opaque, cutout, translucent
+    public static final int LAYER_OPAQUE = 0;
+    public static final int LAYER_CUTOUT = 1;
+    public static final int LAYER_TRANSLUCENT = 2;
+    public static final int LAYERS = 3;
+
+    /**
+     * Section i (world section index minSection + i) owns vertices [vertexStart[i], vertexStart[i+1]),
+     * indices [indexStart[i], indexStart[i+1]), emitter floats [emitterStart[i], emitterStart[i+1])
+     * and instance shorts [instanceStart[i], instanceStart[i+1]). Its cutout indices start at layerStart[2i], its translucent ones at layerStart[2i+1]
+     * (layerStart null = everything opaque).
+     * versions is assigned by the serving cache and changes only when the section's geometry does.
+     */
+    public record Sections(int minSection, int[] vertexStart, int[] indexStart, int[] emitterStart,
+                           int[] instanceStart, int[] layerStart, long[] versions) {
+        public int count() { return vertexStart.length - 1; }
+
+        /** First index of a layer in section i; layer {@link #LAYERS} gives the section's end. */
+        public int layerStart(int i, int layer) {
+            if (layer == LAYER_OPAQUE) return indexStart[i];
+            if (layer == LAYERS || layerStart == null) return indexStart[i + 1];
+            return layerStart[i * 2 + layer - 1];
+        }
+    }
+
+    public ChunkMesh(short[] positions, byte[] faces, short[] uvs, byte[] tints,
+                     short[] indices16, int[] indices32, float[] emitters) {
+        this(positions, faces, uvs, tints, indices16, indices32, emitters, null);
+    }
+
+    public ChunkMesh(short[] positions, byte[] faces, short[] uvs, byte[] tints,
+                     short[] indices16, int[] indices32, float[] emitters, Sections sections) {
+        this(positions, faces, uvs, tints, indices16, indices32, emitters, sections, null, null);
+    }
+
+    public ChunkMesh(short[] positions, byte[] faces, short[] uvs, byte[] tints,
+                     short[] indices16, int[] indices32, float[] emitters, Sections sections,
+                     byte[] light, byte[] ao) {
+        this(positions, faces, uvs, tints, indices16, indices32, emitters, new short[0], sections, light, ao);
+    }
+
+    public ChunkMesh(short[] positions, byte[] faces, short[] uvs, byte[] tints,
+                     short[] indices16, int[] indices32, float[] emitters, short[] instances, Sections sections,
+                     byte[] light, byte[] ao) {
+        this.positions = positions;
+        this.faces = faces;
         this.uvs = uvs;
-        this.colors = colors;
-        this.indices = indices;
+        this.tints = tints;
+        this.indices16 = indices16;
+        this.indices32 = indices32;
         this.emitters = emitters;
+        this.instances = instances;
+        this.sections = sections;
+        this.light = light;
+        this.ao = ao;
     }
 
+    private static final ChunkMesh EMPTY = new ChunkMesh(new short[0], new byte[0], new short[0], new byte[0],
+            new short[0], null, new float[0]);
+
+    /** The shared empty mesh (meshes are never modified after they're built). */
+    public static ChunkMesh empty() {
+        return EMPTY;
+    }
+
+    /** Same geometry, with per-section versions attached (arrays are shared, not copied). */
+    public ChunkMesh withSectionVersions(long[] versions) {
+        Sections s = sections;
+        ChunkMesh out = new ChunkMesh(positions, faces, uvs, tints, indices16, indices32, emitters, instances,
+                new Sections(s.minSection(), s.vertexStart(), s.indexStart(), s.emitterStart(), s.instanceStart(),
+                        s.layerStart(), versions),
+                light, ao);
+        out.contentHash = contentHash;
+        return out;
+    }
+
+    /** {@link MeshInterner#hash} of this mesh, computed once and kept (versions excluded). */
+    public long contentHash() {
+        long h = contentHash;
+        if (h == 0) {
+            h = MeshInterner.hash(this);
+            if (h == 0) h = 1;
+            contentHash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Copies section i out as a standalone one-section mesh (indices rebased to the section's
+     * first vertex, version dropped).
+     */
+    public ChunkMesh section(int i) {
+        Sections s = sections;
+        int v0 = s.vertexStart()[i], v1 = s.vertexStart()[i + 1];
+        int i0 = s.indexStart()[i], i1 = s.indexStart()[i + 1];
+        int vc = v1 - v0;
+
+        short[] i16 = null;
+        int[] i32 = null;
+        if (vc <= 0x10000) {
+            i16 = new short[i1 - i0];
+            for (int j = i0; j < i1; j++) i16[j - i0] = (short) (index(j) - v0);
+        } else {
+            i32 = new int[i1 - i0];
+            for (int j = i0; j < i1; j++) i32[j - i0] = index(j) - v0;
+        }
+        int ec = s.emitterStart()[i + 1] - s.emitterStart()[i];
+        int n0 = s.instanceStart()[i], n1 = s.instanceStart()[i + 1];
+        int[] layers = {s.layerStart(i, LAYER_CUTOUT) - i0, s.layerStart(i, LAYER_TRANSLUCENT) - i0};
+        return new ChunkMesh(
+                Arrays.copyOfRange(positions, v0 * 3, v1 * 3),
+                Arrays.copyOfRange(faces, v0, v1),
+                Arrays.copyOfRange(uvs, v0 * 2, v1 * 2),
+                Arrays.copyOfRange(tints, v0, v1),
+                i16, i32,
+                Arrays.copyOfRange(emitters, s.emitterStart()[i], s.emitterStart()[i + 1]),
+                Arrays.copyOfRange(instances, n0, n1),
+                new Sections(s.minSection() + i, new int[]{0, vc}, new int[]{0, i1 - i0}, new int[]{0, ec},
+                        new int[]{0, n1 - n0}, layers, null),
+                light == null ? null : Arrays.copyOfRange(light, v0, v1),
+                ao == null ? null : Arrays.copyOfRange(ao, v0, v1));
+    }
+
+    /**
+     * Sectioned mesh made of one standalone mesh per section, starting at section
+     * {@code minSection} (the inverse of {@link #section}). Versions are left unset.
+     * Baked light is kept when every part has it.
+     */
+    public static ChunkMesh join(int minSection, ChunkMesh[] parts) {
+        int vc = 0, ic = 0, ec = 0, nc = 0;
+        boolean lit = true;
+        for (ChunkMesh p : parts) {
+            vc += p.vertexCount();
+            ic += p.indexCount();
+            ec += p.emitters.length;
+            nc += p.instances.length;
+            lit &= p.light != null;
+        }
+        byte[] light = lit ? new byte[vc] : null;
+        byte[] ao = lit ? new byte[vc] : null;
+        short[] pos = new short[vc * 3];
+        byte[] faces = new byte[vc];
+        short[] uvs = new short[vc * 2];
+        byte[] tints = new byte[vc];
+        short[] i16 = vc <= 0x10000 ? new short[ic] : null;
+        int[] i32 = i16 == null ? new int[ic] : null;
+        float[] emitters = new float[ec];
+        short[] instances = new short[nc];
+        int[] vs = new int[parts.length + 1], is = new int[parts.length + 1], es = new int[parts.length + 1];
+        int[] ns = new int[parts.length + 1];
+        int[] ls = new int[parts.length * 2];
+
+        int v = 0, i = 0, e = 0, in = 0;
+        for (int n = 0; n < parts.length; n++) {
+            ChunkMesh p = parts[n];
+            vs[n] = v; is[n] = i; es[n] = e; ns[n] = in;
+            int pv = p.vertexCount();
+            System.arraycopy(p.positions, 0, pos, v * 3, pv * 3);
+            System.arraycopy(p.faces, 0, faces, v, pv);
+            System.arraycopy(p.uvs, 0, uvs, v * 2, pv * 2);
+            System.arraycopy(p.tints, 0, tints, v, pv);
+            if (lit) {
+                System.arraycopy(p.light, 0, light, v, pv);
+                System.arraycopy(p.ao, 0, ao, v, pv);
+            }
+            ls[n * 2] = i + partLayer(p, LAYER_CUTOUT);
+            ls[n * 2 + 1] = i + partLayer(p, LAYER_TRANSLUCENT);
+            for (int j = 0, pi = p.indexCount(); j < pi; j++, i++) {
+                int idx = p.index(j) + v;
+                if (i16 != null) i16[i] = (short) idx; else i32[i] = idx;
+            }
+            System.arraycopy(p.emitters, 0, emitters, e, p.emitters.length);
+            System.arraycopy(p.instances, 0, instances, in, p.instances.length);
+            v += pv;
+            e += p.emitters.length;
+            in += p.instances.length;
+        }
+        vs[parts.length] = v; is[parts.length] = i; es[parts.length] = e; ns[parts.length] = in;
+        return new ChunkMesh(pos, faces, uvs, tints, i16, i32, emitters, instances,
+                new Sections(minSection, vs, is, es, ns, ls, null), light, ao);
+    }
+
+    /** Start of a layer within a standalone (one-section or unsectioned) mesh. */
+    private static int partLayer(ChunkMesh p, int layer) {
+        if (p.sections == null) return layer == LAYER_OPAQUE ? 0 : p.indexCount();
+        return p.sections.layerStart(0, layer) - p.sections.indexStart()[0];
+    }
+
+    /** True when section i of a and section j of b hold identical geometry. */
+    public static boolean sameSection(ChunkMesh a, int i, ChunkMesh b, int j) {
+        Sections sa = a.sections, sb = b.sections;
+        int av = sa.vertexStart()[i], bv = sb.vertexStart()[j];
+        int vc = sa.vertexStart()[i + 1] - av;
+        if (vc != sb.vertexStart()[j + 1] - bv) return false;
+        int ai = sa.indexStart()[i], bi = sb.indexStart()[j];
+        int ic = sa.indexStart()[i + 1] - ai;
+        if (ic != sb.indexStart()[j + 1] - bi) return false;
+        int ae = sa.emitterStart()[i], be = sb.emitterStart()[j];
+        int ec = sa.emitterStart()[i + 1] - ae;
+        if (ec != sb.emitterStart()[j + 1] - be) return false;
+        int an = sa.instanceStart()[i], bn = sb.instanceStart()[j];
+        int nc = sa.instanceStart()[i + 1] - an;
+        if (nc != sb.instanceStart()[j + 1] - bn) return false;
+        if (!Arrays.equals(a.instances, an, an + nc, b.instances, bn, bn + nc)) return false;
+        for (int l = LAYER_CUTOUT; l < LAYERS; l++) {
+            if (sa.layerStart(i, l) - ai != sb.layerStart(j, l) - bi) return false;
+        }
+
+        if (!Arrays.equals(a.positions, av * 3, (av + vc) * 3, b.positions, bv * 3, (bv + vc) * 3)) return false;
+        if (!Arrays.equals(a.faces, av, av + vc, b.faces, bv, bv + vc)) return false;
+        if (!Arrays.equals(a.uvs, av * 2, (av + vc) * 2, b.uvs, bv * 2, (bv + vc) * 2)) return false;
+        if (!Arrays.equals(a.tints, av, av + vc, b.tints, bv, bv + vc)) return false;
+        if ((a.light == null) != (b.light == null)) return false;
+        if (a.light != null && (!Arrays.equals(a.light, av, av + vc, b.light, bv, bv + vc)
+                || !Arrays.equals(a.ao, av, av + vc, b.ao, bv, bv + vc))) return false;
+        if (!Arrays.equals(a.emitters, ae, ae + ec, b.emitters, be, be + ec)) return false;
+        for (int k = 0; k < ic; k++) {
+            if (a.index(ai + k) - av != b.index(bi + k) - bv) return false;
+        }
+        return true;
+    }
+
+    public int vertexCount() { return faces.length; }
+
+    public int indexCount() { return indices16 != null ? indices16.length : indices32.length; }
+
+    /** Vertex index at position i, regardless of index width. */
+    public int index(int i) { return indices16 != null ? (indices16[i] & 0xFFFF) : indices32[i]; }
+
+    public int instanceCount() { return instances.length / 4; }
+
     public boolean isEmpty() {
-        return vertices == null || vertices.length == 0 || indices == null || indices.length == 0;
+        return (vertexCount() == 0 || indexCount() == 0) && instances.length == 0;
+    }
+
+    /** Approximate heap footprint of the vertex/index data, in bytes. */
+    public long sizeBytes() {
+        long n = (long) positions.length * 2 + faces.length + (long) uvs.length * 2 + tints.length;
+        n += indices16 != null ? (long) indices16.length * 2 : (long) indices32.length * 4;
+        n += (long) emitters.length * 4;
+        n += (long) instances.length * 2;
+        if (light != null) n += light.length + ao.length;
+        return n;
     }
-}
\ No newline at end of file
+}
@@ -1,33 +1,109 @@
 package voxmap.render;
 
-import org.bukkit.Chunk;
+import org.bukkit.Bukkit;
 import org.bukkit.ChunkSnapshot;
 import org.bukkit.World;
 import org.bukkit.plugin.java.JavaPlugin;
-import voxmap.texture.TextureAtlasService;
+import voxmap.metrics.RenderMetrics;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Caches chunk meshes and supports "dirty chunk" invalidation.
- * When a chunk is dirty, the next request rebuilds the mesh from a fresh ChunkSnapshot.
+ *
+ * Chunks that were viewed recently are rebuilt eagerly in the background once their
+ * dirty marks settle (chunkDirtyDebounceMs); the old mesh keeps being served until the
+ * new one is swapped in. Dirty chunks nobody is looking at are rebuilt on the next request.
+ *
+ * Every 16-high section carries a version that only changes when its geometry does, and
+ * each world keeps a short log of chunks whose sections changed, so clients can poll for
+ * changes and then fetch just the changed sections.
+ *
+ * With a {@link MeshStore}, meshes of unloaded chunks are served from disk (e.g. an offline
+ * render) and clean meshes are written back when their chunk unloads.
+ *
+ * Vertical slices ({@link #getSlice}) are assembled from per-section pieces: whole sections
+ * are shared by every slice that spans them, only the two cut sections are slice-specific.
+ *
+ * Region meshes ({@link #getRegion}) merge a square of chunk meshes for the far rings of the
+ * view; a region is dropped as soon as one of its chunks goes dirty or changes.
+ *
+ * {@link #prefetch} and {@link #preloadStored} let the {@link MeshWarmer} fill the cache
+ * ahead of viewers.
  */
 public class ChunkMeshCacheService {
 
+    /** Told about every mesh whose geometry changed (or that was built for the first time). */
+    public interface Listener {
+        void meshChanged(String worldName, int cx, int cz, ChunkMesh mesh);
+    }
+
     private final JavaPlugin plugin;
-    private final TextureAtlasService atlas;
+    private final ChunkMeshService meshes;
+    private final MeshStore store; // null = no persistent meshes
 
     // worldName -> (key(cx,cz) -> mesh)
     private final Map<String, Map<Long, ChunkMesh>> cache = new ConcurrentHashMap<>();
 
-    // worldName -> dirty keys
-    private final Map<String, java.util.Set<Long>> dirty = new ConcurrentHashMap<>();
+    // worldName -> (dirty key -> time of the latest dirty mark)
+    private final Map<String, Map<Long, Long>> dirty = new ConcurrentHashMap<>();
+
+    // worldName -> (key -> last time a viewer requested it); old views are pruned, see recordView
+    private final Map<String, Map<Long, Long>> viewed = new ConcurrentHashMap<>();
+    private final AtomicLong nextViewPrune = new AtomicLong();
+
+    // worldName -> keys with a background rebuild scheduled or in flight
+    private final Map<String, Set<Long>> rebuilding = new ConcurrentHashMap<>();
+
+    // worldName -> key -> background rebuilds failed in a row (cleared by a good build or eviction)
+    private final Map<String, Map<Long, Integer>> rebuildFailures = new ConcurrentHashMap<>();
+
+    // after this many failures in a row a chunk is only retried when it changes again
+    private static final int MAX_REBUILD_ATTEMPTS = 8;
+
+    // worldName -> recently changed chunks
+    private final Map<String, ChangeLog> changes = new ConcurrentHashMap<>();
+
+    // worldName -> LRU of chunks -> slice pieces by pieceKey(); dropped when the chunk gets dirty
+    private final Map<String, ChunkMeshCache.LruCache<Long, Map<Integer, ChunkMesh>>> slices = new ConcurrentHashMap<>();
+
+    // worldName -> LRU of region key -> merged mesh; dropped when a member chunk gets dirty
+    private final Map<String, ChunkMeshCache.LruCache<Long, RegionMesh>> regions = new ConcurrentHashMap<>();
+
+    // worldName -> key -> load + mesh of an unloaded chunk in flight (render.requireChunkLoaded: false)
+    private final Map<String, Map<Long, CompletableFuture<ChunkMesh>>> loading = new ConcurrentHashMap<>();
 
-    public ChunkMeshCacheService(JavaPlugin plugin, TextureAtlasService atlas) {
+    // worldName -> LRU of meshes read from the store (or built from a briefly loaded chunk) for unloaded chunks
+    private final Map<String, ChunkMeshCache.LruCache<Long, ChunkMesh>> storedMeshes = new ConcurrentHashMap<>();
+
+    // identical meshes of different chunks share their arrays
+    private final MeshInterner interner = new MeshInterner();
+
+    private final java.util.List<Listener> listeners = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+    // Section versions; seeded from the clock so they keep increasing across restarts.
+    private final AtomicLong versionClock = new AtomicLong(System.currentTimeMillis() << 10);
+
+    public ChunkMeshCacheService(JavaPlugin plugin, ChunkMeshService meshes) {
+        this(plugin, meshes, null);
+    }
+
+    public ChunkMeshCacheService(JavaPlugin plugin, ChunkMeshService meshes, MeshStore store) {
         this.plugin = Objects.requireNonNull(plugin);
-        this.atlas = Objects.requireNonNull(atlas);
+        this.meshes = Objects.requireNonNull(meshes);
+        this.store = store;
+
+        RenderMetrics.gauge("voxmap_cache_chunks", "Chunk meshes held by the serving cache.", this::cachedChunks);
+        RenderMetrics.gauge("voxmap_cache_bytes", "Approximate heap held by cached chunk meshes.", this::cachedBytes);
+        RenderMetrics.gauge("voxmap_cache_distinct_meshes", "Distinct geometries among cached chunk meshes (identical ones share arrays).", interner::size);
+        RenderMetrics.gauge("voxmap_cache_regions", "Merged region meshes held by the serving cache.", this::cachedRegions);
     }
 
     private static long key(int cx, int cz) {
@@ -38,48 +114,544 @@ public class ChunkMeshCacheService {
         return cache.computeIfAbsent(worldName, w -> new ConcurrentHashMap<>());
     }
 
-    private java.util.Set<Long> worldDirty(String worldName) {
-        return dirty.computeIfAbsent(worldName, w -> ConcurrentHashMap.newKeySet());
+    private Map<Long, Long> worldDirty(String worldName) {
+        return dirty.computeIfAbsent(worldName, w -> new ConcurrentHashMap<>());
+    }
+
+    private Map<Long, Long> worldViewed(String worldName) {
+        return viewed.computeIfAbsent(worldName, w -> new ConcurrentHashMap<>());
+    }
+
+    private Set<Long> worldRebuilding(String worldName) {
+        return rebuilding.computeIfAbsent(worldName, w -> ConcurrentHashMap.newKeySet());
+    }
+
+    private Map<Long, Integer> worldFailures(String worldName) {
+        return rebuildFailures.computeIfAbsent(worldName, w -> new ConcurrentHashMap<>());
+    }
+
+    private ChunkMeshCache.LruCache<Long, ChunkMesh> worldStored(String worldName) {
+        return storedMeshes.computeIfAbsent(worldName, w -> new ChunkMeshCache.LruCache<>(
+                Math.max(64, plugin.getConfig().getInt("performance.maxCachedStoredMeshesPerWorld", 1024))));
+    }
+
+    private ChangeLog worldChanges(String worldName) {
+        return changes.computeIfAbsent(worldName, w -> new ChangeLog(4096));
+    }
+
+    /** A versioned mesh and whether its geometry differs from the mesh it was versioned against. */
+    private record Versioned(ChunkMesh mesh, boolean changed) {}
+
+    /**
+     * Attaches section versions to a freshly built mesh: sections identical to the previous
+     * mesh keep their version, the rest get a new one. Touches no map; see {@link #swapIn}.
+     */
+    private Versioned versioned(ChunkMesh old, ChunkMesh fresh) {
+        ChunkMesh.Sections s = fresh.sections;
+        if (s == null) return new Versioned(fresh, false);
+        ChunkMesh.Sections os = (old == null || old.sections == null || old.sections.versions() == null) ? null : old.sections;
+
+        long[] versions = new long[s.count()];
+        boolean changed = false;
+        for (int i = 0; i < versions.length; i++) {
+            int oi = os == null ? -1 : s.minSection() + i - os.minSection();
+            if (oi >= 0 && oi < os.count() && ChunkMesh.sameSection(old, oi, fresh, i)) {
+                versions[i] = os.versions()[oi];
+            } else {
+                versions[i] = versionClock.incrementAndGet();
+                changed = true;
+            }
+        }
+        long h = fresh.contentHash();
+        ChunkMesh out = interner.share(h, fresh).withSectionVersions(versions);
+        interner.remember(h, out);
+        return new Versioned(out, changed);
+    }
+
+    /** Logs, drops regions and tells listeners about a changed mesh; call after it was swapped in, outside any lock. */
+    private void announce(String worldName, long k, boolean replaced, ChunkMesh out) {
+        if (replaced) worldChanges(worldName).record(k, versionClock.get());
+        dropRegion(worldName, (int) (k >> 32), (int) k);
+        for (Listener l : listeners) l.meshChanged(worldName, (int) (k >> 32), (int) k, out);
+    }
+
+    /**
+     * Versions {@code fresh} against the cached mesh and swaps it in with a compare-and-replace,
+     * retrying if another build got there first. With {@code onlyIfPresent} nothing is cached
+     * (and null returned) when the chunk isn't cached, e.g. evicted meanwhile.
+     */
+    private ChunkMesh swapIn(String worldName, long k, ChunkMesh fresh, boolean onlyIfPresent) {
+        Map<Long, ChunkMesh> c = worldCache(worldName);
+        while (true) {
+            ChunkMesh old = c.get(k);
+            if (old == null && onlyIfPresent) return null;
+            Versioned v = versioned(old, fresh);
+            boolean swapped = old == null ? c.putIfAbsent(k, v.mesh()) == null : c.replace(k, old, v.mesh());
+            if (!swapped) continue;
+            if (v.changed()) announce(worldName, k, old != null, v.mesh());
+            return v.mesh();
+        }
+    }
+
+    public void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    /** Copy of a world's cached meshes, key = (cx << 32) ^ (cz & 0xffffffff). */
+    public Map<Long, ChunkMesh> cachedMeshes(String worldName) {
+        return new java.util.HashMap<>(worldCache(worldName));
+    }
+
+    /** Chunks whose sections changed after version {@code since}. */
+    public ChangeLog.Changes changesSince(String worldName, long since) {
+        return worldChanges(worldName).since(since, versionClock.get());
+    }
+
+    private int debounceMs() {
+        return plugin.getConfig().getInt("performance.chunkDirtyDebounceMs", 500);
+    }
+
+    private boolean viewedRecently(String worldName, long k) {
+        Long t = worldViewed(worldName).get(k);
+        long ttl = plugin.getConfig().getLong("performance.eagerRebuildViewedWithinMs", 120_000L);
+        return t != null && System.currentTimeMillis() - t <= ttl;
     }
 
     public void markDirty(String worldName, int cx, int cz) {
-        worldDirty(worldName).add(key(cx, cz));
+        long k = key(cx, cz);
+        worldDirty(worldName).put(k, System.currentTimeMillis());
+        var sl = worldSlices(worldName);
+        synchronized (sl) { sl.remove(k); }
+        var st = worldStored(worldName);
+        synchronized (st) { st.remove(k); }
+        dropRegion(worldName, cx, cz);
+
+        if (worldCache(worldName).containsKey(k) && viewedRecently(worldName, k)
+                && worldRebuilding(worldName).add(k)) {
+            scheduleRebuild(worldName, cx, cz, debounceMs());
+        }
+    }
+
+    /** Number of cached chunk meshes across all worlds. */
+    public long cachedChunks() {
+        long n = 0;
+        for (Map<Long, ChunkMesh> m : cache.values()) n += m.size();
+        return n;
+    }
+
+    /** Approximate heap held by cached meshes across all worlds, shared geometry counted once. */
+    public long cachedBytes() {
+        long n = 0;
+        Set<short[]> seen = java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+        for (Map<Long, ChunkMesh> m : cache.values())
+            for (ChunkMesh mesh : m.values()) if (seen.add(mesh.positions)) n += mesh.sizeBytes();
+        return n;
+    }
+
+    /** Number of cached region meshes across all worlds. */
+    public long cachedRegions() {
+        long n = 0;
+        for (var rl : regions.values()) synchronized (rl) { n += rl.size(); }
+        return n;
     }
 
     public void evict(String worldName, int cx, int cz) {
-        worldCache(worldName).remove(key(cx, cz));
-        worldDirty(worldName).remove(key(cx, cz));
+        long k = key(cx, cz);
+        ChunkMesh mesh = worldCache(worldName).remove(k);
+        Long mark = worldDirty(worldName).remove(k);
+        worldViewed(worldName).remove(k);
+        worldFailures(worldName).remove(k);
+
+        if (store != null) {
+            // A dirty chunk's stored mesh is stale; a clean one is worth keeping on disk.
+            var st = worldStored(worldName);
+            if (mark != null) {
+                store.removeAsync(worldName, cx, cz);
+                synchronized (st) { st.remove(k); }
+            } else if (mesh != null) {
+                store.putAsync(worldName, cx, cz, mesh);
+                synchronized (st) { st.put(k, mesh); }
+            }
+        }
+    }
+
+    /** Writes every clean cached mesh to the store and waits for pending writes. */
+    public void close() {
+        if (store == null) return;
+        for (var w : cache.entrySet()) {
+            Map<Long, Long> d = worldDirty(w.getKey());
+            for (var e : w.getValue().entrySet()) {
+                long k = e.getKey();
+                if (d.containsKey(k)) continue;
+                store.putAsync(w.getKey(), (int) (k >> 32), (int) k, e.getValue());
+            }
+        }
+        store.close();
+    }
+
+    private ChunkMesh stored(String worldName, int cx, int cz) {
+        long k = key(cx, cz);
+        if (worldDirty(worldName).containsKey(k)) return null;
+        var st = worldStored(worldName);
+        synchronized (st) {
+            ChunkMesh m = st.get(k);
+            if (m != null) return m;
+        }
+        if (store == null) return null;
+        try {
+            ChunkMesh m = store.get(worldName, cx, cz);
+            if (m != null) synchronized (st) { st.put(k, m); }
+            return m;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Mesh store read failed for " + worldName + " " + cx + "," + cz + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void scheduleRebuild(String worldName, int cx, int cz, long delayMs) {
+        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin,
+                () -> rebuildWhenQuiet(worldName, cx, cz),
+                Math.max(1, delayMs / 50));
+    }
+
+    /**
+     * Runs once the debounce delay has passed. Re-arms itself while dirty marks keep
+     * coming in, then rebuilds and swaps the mesh in place.
+     */
+    private void rebuildWhenQuiet(String worldName, int cx, int cz) {
+        final long k = key(cx, cz);
+        final Set<Long> inFlight = worldRebuilding(worldName);
+
+        Long mark = worldDirty(worldName).get(k);
+        World world = Bukkit.getWorld(worldName);
+        if (mark == null || world == null || !worldCache(worldName).containsKey(k)) {
+            inFlight.remove(k);
+            return;
+        }
+
+        long quietFor = System.currentTimeMillis() - mark;
+        if (quietFor < debounceMs()) {
+            scheduleRebuild(worldName, cx, cz, debounceMs() - quietFor);
+            return;
+        }
+
+        meshes.buildAsync(world, cx, cz, world.getMinHeight(), world.getMaxHeight() - 1, true)
+                .whenComplete((mesh, err) -> {
+                    int failures = 0;
+                    if (err != null) {
+                        RenderMetrics.REBUILD_FAILURES.increment();
+                        failures = worldFailures(worldName).merge(k, 1, Integer::sum);
+                        // once when a chunk starts failing and once when retries stop, not every attempt
+                        if (failures == 1) {
+                            plugin.getLogger().warning("Background rebuild of " + worldName + " chunk " + cx + "," + cz
+                                    + " failed, retrying with backoff: " + err.getMessage());
+                        } else if (failures == MAX_REBUILD_ATTEMPTS) {
+                            plugin.getLogger().warning("Background rebuild of " + worldName + " chunk " + cx + "," + cz
+                                    + " failed " + failures + " times in a row; retrying only when it changes again: "
+                                    + err.getMessage());
+                        }
+                    } else if (mesh != null) {
+                        RenderMetrics.REBUILDS.increment();
+                        worldFailures(worldName).remove(k);
+                        // Atomic swap; skipped if the chunk was evicted meanwhile.
+                        swapIn(worldName, k, mesh, true);
+                        // Only clears the mark this build covered, newer marks stay dirty.
+                        worldDirty(worldName).remove(k, mark);
+                    }
+                    inFlight.remove(k);
+
+                    if (failures >= MAX_REBUILD_ATTEMPTS) return; // stays dirty; markDirty schedules the next try
+                    if (worldDirty(worldName).containsKey(k) && viewedRecently(worldName, k) && inFlight.add(k)) {
+                        // doubles per failure in a row, up to 64 x the debounce
+                        scheduleRebuild(worldName, cx, cz, (long) debounceMs() << Math.min(failures, 6));
+                    }
+                });
+    }
+
+    /**
+     * Builds and caches a loaded chunk's mesh in the background unless it is cached clean
+     * already. Completes with false when nothing was built (cached, unloaded or rebuilding).
+     */
+    public CompletableFuture<Boolean> prefetch(World world, int cx, int cz) {
+        final String worldName = world.getName();
+        final long k = key(cx, cz);
+        Long mark = worldDirty(worldName).get(k);
+        if (worldCache(worldName).containsKey(k) && (mark == null || worldRebuilding(worldName).contains(k))) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return meshes.buildAsync(world, cx, cz, world.getMinHeight(), world.getMaxHeight() - 1, true)
+                .thenApply(fresh -> {
+                    if (fresh == null) return false;
+                    cacheBuilt(worldName, k, mark, fresh);
+                    return true;
+                });
+    }
+
+    /**
+     * Reads a mesh store region (32 x 32 chunks) into the in-memory LRU of stored meshes, so
+     * viewers of its unloaded chunks skip the disk. Returns the number of meshes read.
+     */
+    public int preloadStored(String worldName, int rx, int rz) throws IOException {
+        if (store == null) return 0;
+        ChunkMesh[] ms = store.getRegion(worldName, rx, rz);
+        Map<Long, Long> d = worldDirty(worldName);
+        var st = worldStored(worldName);
+        int n = 0;
+        for (int i = 0; i < ms.length; i++) {
+            if (ms[i] == null) continue;
+            long k = key(rx * 32 + (i & 31), rz * 32 + (i >> 5));
+            if (d.containsKey(k)) continue;
+            synchronized (st) { st.put(k, ms[i]); }
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Unloaded chunks served from the store never see an unload event, so views are dropped
+     * once they are older than the eager-rebuild window, and at least two minutes so the
+     * warmer's one-minute tally still counts them. Pruned at most once a minute, inline.
+     */
+    private void recordView(String worldName, long k) {
+        long now = System.currentTimeMillis();
+        worldViewed(worldName).put(k, now);
+        long due = nextViewPrune.get();
+        if (now < due || !nextViewPrune.compareAndSet(due, now + 60_000L)) return;
+        long keep = Math.max(120_000L, plugin.getConfig().getLong("performance.eagerRebuildViewedWithinMs", 120_000L));
+        for (Map<Long, Long> v : viewed.values()) v.values().removeIf(t -> now - t > keep);
+    }
+
+    /** When viewers last requested each chunk of a world (key = cx &lt;&lt; 32 | cz), read-only. */
+    public Map<Long, Long> viewedChunks(String worldName) {
+        return java.util.Collections.unmodifiableMap(worldViewed(worldName));
     }
 
     /**
      * Returns cached mesh if present and not dirty, otherwise rebuilds now.
-     * NOTE: This requires the chunk to be loaded (ChunkSnapshot comes from loaded chunk).
+     * A dirty mesh with a background rebuild pending is served as-is until the rebuild lands.
+     * NOTE: This requires the chunk to be loaded (ChunkSnapshot comes from loaded chunk);
+     * unloaded chunks are served from the mesh store when there is one.
      */
-    public ChunkMesh getOrBuild(World world, int cx, int cz, int minY, int maxYInclusive) {
+    public ChunkMesh getOrBuild(World world, int cx, int cz, int minY, int maxYInclusive) throws Exception {
         final String worldName = world.getName();
         final long k = key(cx, cz);
+        recordView(worldName, k);
+
+        ChunkMesh served = servable(worldName, k);
+        if (served != null) return served;
 
         ChunkMesh existing = worldCache(worldName).get(k);
-        boolean isDirty = worldDirty(worldName).contains(k);
+        // Only build if loaded; otherwise return existing (or stored, or empty mesh)
+        if (!world.isChunkLoaded(cx, cz)) {
+            ChunkMesh m = unloaded(worldName, cx, cz, existing);
+            if (m != ChunkMesh.empty() || plugin.getConfig().getBoolean("render.requireChunkLoaded", true)) return m;
+            // nothing to serve: load it asynchronously (capped, see ChunkMeshService#loadAndSnapshot)
+            ChunkMesh built = loadUnloaded(world, cx, cz).get(8, TimeUnit.SECONDS);
+            return built != null ? built : ChunkMesh.empty();
+        }
 
-        if (existing != null && !isDirty) return existing;
+        Long mark = worldDirty(worldName).get(k);
+        ChunkSnapshot snap = meshes.snapshotAsync(world, cx, cz, true).get(2, TimeUnit.SECONDS);
+        if (snap == null) return existing != null ? existing : ChunkMesh.empty();
 
-        // Only build if loaded; otherwise return existing (or empty mesh)
-        if (!world.isChunkLoaded(cx, cz)) {
-            return existing != null ? existing : new ChunkMesh(
-                    new float[0], new float[0], new float[0], new float[0],
-                    new int[0], new float[0]
-            );
+        ChunkMesh fresh = meshes.meshAsync(snap, minY, maxYInclusive).get(12, TimeUnit.SECONDS);
+        return cacheBuilt(worldName, k, mark, fresh);
+    }
+
+    /** The cached mesh when it can be served without a build (clean, or dirty with a rebuild pending). */
+    private ChunkMesh servable(String worldName, long k) {
+        ChunkMesh existing = worldCache(worldName).get(k);
+        Long mark = worldDirty(worldName).get(k);
+
+        if (existing != null && mark == null) {
+            RenderMetrics.CACHE_HIT.increment();
+            return existing;
         }
+        if (existing != null && worldRebuilding(worldName).contains(k)) {
+            RenderMetrics.CACHE_STALE.increment();
+            return existing;
+        }
+        RenderMetrics.CACHE_MISS.increment();
+        return null;
+    }
 
-        Chunk chunk = world.getChunkAt(cx, cz);
-        ChunkSnapshot snap = chunk.getChunkSnapshot(true, true, true);
+    private ChunkMesh unloaded(String worldName, int cx, int cz, ChunkMesh existing) {
+        if (existing != null) return existing;
+        ChunkMesh fromDisk = stored(worldName, cx, cz);
+        return fromDisk != null ? fromDisk : ChunkMesh.empty();
+    }
 
-        ChunkMesh rebuilt = ExposedFaceMesher.meshChunkSnapshot(snap, minY, maxYInclusive, atlas);
+    /** One async load and mesh per unloaded chunk, however many viewers ask for it. */
+    private CompletableFuture<ChunkMesh> loadUnloaded(World world, int cx, int cz) {
+        final String worldName = world.getName();
+        final long k = key(cx, cz);
+        Map<Long, CompletableFuture<ChunkMesh>> inFlight = loading.computeIfAbsent(worldName, w -> new ConcurrentHashMap<>());
+        CompletableFuture<ChunkMesh> f = inFlight.computeIfAbsent(k, kk -> {
+            Long mark = worldDirty(worldName).get(k);
+            return meshes.buildAsync(world, cx, cz, world.getMinHeight(), world.getMaxHeight() - 1, false)
+                    .thenApply(fresh -> fresh == null ? null : keepUnloaded(worldName, cx, cz, mark, fresh));
+        });
+        f.whenComplete((m, err) -> inFlight.remove(k, f));
+        return f;
+    }
 
-        worldCache(worldName).put(k, rebuilt);
-        worldDirty(worldName).remove(k);
+    /**
+     * A mesh built from a chunk that was loaded just for it (and released right after) is kept
+     * where unloaded chunks are served from: the stored-mesh LRU and the mesh store.
+     */
+    private ChunkMesh keepUnloaded(String worldName, int cx, int cz, Long mark, ChunkMesh fresh) {
+        long k = key(cx, cz);
+        Versioned v = versioned(null, fresh);
+        ChunkMesh m = v.mesh();
+        if (mark != null) worldDirty(worldName).remove(k, mark);
+        var st = worldStored(worldName);
+        synchronized (st) { st.put(k, m); }
+        if (v.changed()) announce(worldName, k, false, m);
+        if (store != null) store.putAsync(worldName, cx, cz, m);
+        return m;
+    }
 
+    /** Versions and caches a mesh built for dirty mark {@code mark} (null = wasn't dirty). */
+    private ChunkMesh cacheBuilt(String worldName, long k, Long mark, ChunkMesh fresh) {
+        ChunkMesh rebuilt = swapIn(worldName, k, fresh, false);
+        if (mark != null) worldDirty(worldName).remove(k, mark);
         return rebuilt;
     }
-}
\ No newline at end of file
+
+    private ChunkMeshCache.LruCache<Long, RegionMesh> worldRegions(String worldName) {
+        return regions.computeIfAbsent(worldName, w -> new ChunkMeshCache.LruCache<>(
+                Math.max(4, plugin.getConfig().getInt("performance.maxCachedRegionMeshesPerWorld", 64))));
+    }
+
+    private void dropRegion(String worldName, int cx, int cz) {
+        var rl = regions.get(worldName);
+        if (rl == null) return;
+        // the region size is a config value, so drop whatever size is cached around this chunk
+        synchronized (rl) {
+            rl.values().removeIf(r -> Math.floorDiv(cx, r.size()) == r.rx() && Math.floorDiv(cz, r.size()) == r.rz());
+        }
+    }
+
+    /**
+     * Chunks rx * size .. rx * size + size - 1 (same for z) merged into one mesh. Members are
+     * served like {@link #getOrBuild}, except that they don't count as viewed (far chunks
+     * aren't rebuilt eagerly) and the missing ones are snapshotted together rather than one
+     * tick each. The result is cached only when every member was clean.
+     */
+    public RegionMesh getRegion(World world, int rx, int rz, int size) throws Exception {
+        final String worldName = world.getName();
+        final long rk = key(rx, rz);
+        var rl = worldRegions(worldName);
+        RegionMesh cached;
+        synchronized (rl) { cached = rl.get(rk); }
+        if (cached != null && cached.size() == size) return cached;
+
+        int minY = world.getMinHeight(), maxY = world.getMaxHeight() - 1;
+        ChunkMesh[] members = new ChunkMesh[size * size];
+        @SuppressWarnings("unchecked")
+        CompletableFuture<ChunkMesh>[] building = new CompletableFuture[members.length];
+        for (int n = 0; n < members.length; n++) {
+            int cx = rx * size + n % size, cz = rz * size + n / size;
+            long k = key(cx, cz);
+            members[n] = servable(worldName, k);
+            if (members[n] != null) continue;
+            ChunkMesh existing = worldCache(worldName).get(k);
+            if (!world.isChunkLoaded(cx, cz)) {
+                members[n] = unloaded(worldName, cx, cz, existing);
+                continue;
+            }
+            Long mark = worldDirty(worldName).get(k);
+            building[n] = meshes.buildAsync(world, cx, cz, minY, maxY, true).thenApply(fresh -> fresh == null
+                    ? (existing != null ? existing : ChunkMesh.empty())
+                    : cacheBuilt(worldName, k, mark, fresh));
+        }
+        for (int n = 0; n < members.length; n++) {
+            if (building[n] != null) members[n] = building[n].get(14, TimeUnit.SECONDS);
+        }
+
+        RegionMesh region = RegionMesh.merge(rx, rz, size, members);
+        // checked under the lock: a dirty mark landing after the check drops the region right after
+        synchronized (rl) {
+            boolean clean = true;
+            for (int n = 0; n < members.length && clean; n++) {
+                long k = key(rx * size + n % size, rz * size + n / size);
+                ChunkMesh now = worldCache(worldName).get(k);
+                clean = !worldDirty(worldName).containsKey(k) && (now == null || now == members[n]);
+            }
+            if (clean) rl.put(rk, region);
+        }
+        return region;
+    }
+
+    private ChunkMeshCache.LruCache<Long, Map<Integer, ChunkMesh>> worldSlices(String worldName) {
+        return slices.computeIfAbsent(worldName, w -> new ChunkMeshCache.LruCache<>(
+                Math.max(16, plugin.getConfig().getInt("performance.maxCachedSliceChunksPerWorld", 256))));
+    }
+
+    // section, in-section bounds and caps of a slice piece
+    private static int pieceKey(int lo, int hi, boolean capBottom, boolean capTop) {
+        return ((lo >> 4) << 10) | ((lo & 15) << 6) | ((hi & 15) << 2) | (capBottom ? 2 : 0) | (capTop ? 1 : 0);
+    }
+
+    /**
+     * Blocks minY..maxYInclusive of a chunk with every face kept (caves included, whatever the
+     * world's render profile) and the cut at both ends capped. Pieces come from the slice cache,
+     * from the cached full mesh where it holds every face, or are meshed from a snapshot;
+     * unloaded chunks only get what is cached.
+     */
+    public ChunkMesh getSlice(World world, int cx, int cz, int minY, int maxYInclusive) throws Exception {
+        final String worldName = world.getName();
+        final long k = key(cx, cz);
+        int lo = Math.max(minY, world.getMinHeight());
+        int hi = Math.min(maxYInclusive, world.getMaxHeight() - 1);
+        if (lo > hi) return ChunkMesh.empty();
+
+        int s0 = lo >> 4, s1 = hi >> 4;
+        int[][] ranges = new int[s1 - s0 + 1][];
+        for (int sy = s0; sy <= s1; sy++) {
+            int a = Math.max(lo, sy << 4), b = Math.min(hi, (sy << 4) + 15);
+            ranges[sy - s0] = new int[]{a, b, sy == s0 ? 1 : 0, sy == s1 ? 1 : 0};
+        }
+
+        var sl = worldSlices(worldName);
+        Map<Integer, ChunkMesh> pieces;
+        synchronized (sl) { pieces = sl.computeIfAbsent(k, kk -> new ConcurrentHashMap<>()); }
+
+        ChunkMesh[] parts = new ChunkMesh[ranges.length];
+        java.util.List<Integer> missing = new java.util.ArrayList<>();
+        ChunkMesh full = worldDirty(worldName).containsKey(k) ? null : worldCache(worldName).get(k);
+        boolean fullUsable = full != null && full.sections != null
+                && meshes.profile(worldName).keepsAllFaces(world.getMaxHeight() - 1);
+        for (int i = 0; i < ranges.length; i++) {
+            int[] r = ranges[i];
+            int pk = pieceKey(r[0], r[1], r[2] != 0, r[3] != 0);
+            parts[i] = pieces.get(pk);
+            if (parts[i] != null) continue;
+            // an uncapped whole section is the same as that section of a full-face column mesh
+            int fi = (r[0] >> 4) - (fullUsable ? full.sections.minSection() : 0);
+            if (fullUsable && r[2] == 0 && r[3] == 0 && fi >= 0 && fi < full.sections.count()) {
+                parts[i] = full.section(fi);
+                pieces.put(pk, parts[i]);
+            } else {
+                missing.add(i);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            if (!world.isChunkLoaded(cx, cz)) return ChunkMesh.empty();
+            ChunkSnapshot snap = meshes.snapshotAsync(world, cx, cz, true).get(2, TimeUnit.SECONDS);
+            if (snap == null) return ChunkMesh.empty();
+            int[][] todo = new int[missing.size()][];
+            for (int j = 0; j < todo.length; j++) todo[j] = ranges[missing.get(j)];
+            ChunkMesh[] built = meshes.meshPiecesAsync(snap, world.getMinHeight(), world.getMaxHeight() - 1, todo)
+                    .get(12, TimeUnit.SECONDS);
+            for (int j = 0; j < todo.length; j++) {
+                int[] r = todo[j];
+                parts[missing.get(j)] = built[j];
+                // a dirty mark meanwhile replaced this chunk's piece map, so stale pieces go nowhere
+                pieces.put(pieceKey(r[0], r[1], r[2] != 0, r[3] != 0), built[j]);
+            }
+        }
+        return ChunkMesh.join(s0, parts);
+    }
+}
@@ -0,0 +1,336 @@
+package voxmap.render;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Binary wire format for {@link ChunkMesh} (little-endian, decoded by app.js).
+ *
+ * <pre>
+ * u32 magic "VXM1"
+ * u8  version, u8 indexBytes (2|4), u8 paletteSize, u8 flags (1 = baked light, 2 = layers, 4 = instances)
+ * u32 vertexCount, u32 indexCount, u32 emitterCount
+ * u32 cutoutStart, u32 translucentStart            only with flag 2
+ * u32 instanceCount                                only with flag 4
+ * f32 palette[paletteSize * 3]
+ * i16 positions[vertexCount * 3]   (chunk-local)   pad4
+ * u16 uvs[vertexCount * 2]         (atlas tiles)   pad4
+ * u8  faces[vertexCount]                           pad4
+ * u8  tints[vertexCount]                           pad4
+ * u8  light[vertexCount]  (sky << 4 | block)       pad4   only with flag 1
+ * u8  ao[vertexCount]     (0..3, 3 = open)         pad4   only with flag 1
+ * u16|u32 indices[indexCount]                      pad4
+ * f32 emitters[emitterCount * 4]   (chunk-local)
+ * u16 instances[instanceCount * 4] (see ChunkMesh#instances)   only with flag 4
+ * </pre>
+ * Every section starts 4-byte aligned so the client can view it as a typed array directly.
+ * With flag 2 the indices are ordered opaque, cutout, translucent and the two starts split
+ * them into the three draw ranges; one-section meshes (the per-section blobs below) carry it,
+ * anything else is drawn as a single opaque range.
+ *
+ * /api/chunk wraps per-section VXM1 blobs (without palette) in a section container, so a
+ * client that already holds some sections only downloads the ones that changed:
+ * <pre>
+ * u32 magic "VXS1"
+ * u8  version, u8 paletteSize, u16 sectionCount (sections in the column)
+ * i32 minSection, u32 changedCount
+ * f32 palette[paletteSize * 3]
+ * changedCount x { i32 sectionY, u32 byteLength, f64 version, VXM1 blob (pad4) }
+ * </pre>
+ *
+ * /api/region sends a {@link RegionMesh} as one VXM1 blob (with palette, region-local) behind
+ * the per-member instance ranges:
+ * <pre>
+ * u32 magic "VXG1"
+ * u8  version, u8 size (chunks per side), u16 0
+ * i32 rx, i32 rz
+ * u32 memberInstances[size * size + 1]
+ * VXM1 blob
+ * </pre>
+ */
+public final class ChunkMeshCodec {
+
+    public static final int MAGIC = 0x314D5856; // "VXM1" little-endian
+    public static final int SECTIONS_MAGIC = 0x31535856; // "VXS1" little-endian
+    public static final int REGION_MAGIC = 0x31475856; // "VXG1" little-endian
+    public static final int VERSION = 1;
+    public static final int FLAG_LIGHT = 1;
+    public static final int FLAG_LAYERS = 2;
+    public static final int FLAG_INSTANCES = 4;
+
+    private ChunkMeshCodec() {}
+
+    private static int pad4(int n) { return (n + 3) & ~3; }
+
+    private static boolean hasLayers(ChunkMesh mesh) {
+        return mesh.sections != null && mesh.sections.count() == 1;
+    }
+
+    public static int encodedSize(ChunkMesh mesh) {
+        return encodedSize(mesh, ExposedFaceMesher.TINT_PALETTE.length);
+    }
+
+    private static int encodedSize(ChunkMesh mesh, int paletteSize) {
+        int vc = mesh.vertexCount();
+        int ic = mesh.indexCount();
+        int indexBytes = mesh.indices16 != null ? 2 : 4;
+        int n = 20;
+        if (hasLayers(mesh)) n += 8;
+        n += paletteSize * 3 * 4;
+        n += pad4(vc * 3 * 2);
+        n += pad4(vc * 2 * 2);
+        n += pad4(vc);
+        n += pad4(vc);
+        if (mesh.light != null) n += 2 * pad4(vc);
+        n += pad4(ic * indexBytes);
+        n += mesh.emitters.length * 4;
+        if (mesh.instances.length > 0) n += 4 + mesh.instances.length * 2;
+        return n;
+    }
+
+    public static byte[] encode(ChunkMesh mesh) {
+        byte[] out = new byte[encodedSize(mesh)];
+        write(ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN), mesh, true);
+        return out;
+    }
+
+    private static void write(ByteBuffer bb, ChunkMesh mesh, boolean withPalette) {
+        float[][] palette = withPalette ? ExposedFaceMesher.TINT_PALETTE : new float[0][];
+        int vc = mesh.vertexCount();
+        int ic = mesh.indexCount();
+        int indexBytes = mesh.indices16 != null ? 2 : 4;
+
+        bb.putInt(MAGIC);
+        bb.put((byte) VERSION);
+        bb.put((byte) indexBytes);
+        bb.put((byte) palette.length);
+        bb.put((byte) ((mesh.light != null ? FLAG_LIGHT : 0) | (hasLayers(mesh) ? FLAG_LAYERS : 0)
+                | (mesh.instances.length > 0 ? FLAG_INSTANCES : 0)));
+        bb.putInt(vc);
+        bb.putInt(ic);
+        bb.putInt(mesh.emitters.length / 4);
+        if (hasLayers(mesh)) {
+            ChunkMesh.Sections s = mesh.sections;
+            bb.putInt(s.layerStart(0, ChunkMesh.LAYER_CUTOUT) - s.indexStart()[0]);
+            bb.putInt(s.layerStart(0, ChunkMesh.LAYER_TRANSLUCENT) - s.indexStart()[0]);
+        }
+        if (mesh.instances.length > 0) bb.putInt(mesh.instanceCount());
+
+        for (float[] c : palette) { bb.putFloat(c[0]); bb.putFloat(c[1]); bb.putFloat(c[2]); }
+
+        bb.asShortBuffer().put(mesh.positions);
+        bb.position(bb.position() + pad4(vc * 3 * 2));
+
+        bb.asShortBuffer().put(mesh.uvs);
+        bb.position(bb.position() + pad4(vc * 2 * 2));
+
+        bb.put(mesh.faces);
+        bb.position(pad4(bb.position()));
+
+        bb.put(mesh.tints);
+        bb.position(pad4(bb.position()));
+
+        if (mesh.light != null) {
+            bb.put(mesh.light);
+            bb.position(pad4(bb.position()));
+            bb.put(mesh.ao);
+            bb.position(pad4(bb.position()));
+        }
+
+        if (mesh.indices16 != null) bb.asShortBuffer().put(mesh.indices16);
+        else bb.asIntBuffer().put(mesh.indices32);
+        bb.position(bb.position() + pad4(ic * indexBytes));
+
+        bb.asFloatBuffer().put(mesh.emitters);
+        bb.position(bb.position() + mesh.emitters.length * 4);
+
+        bb.asShortBuffer().put(mesh.instances);
+        bb.position(bb.position() + mesh.instances.length * 2);
+    }
+
+    public static byte[] encodeRegion(RegionMesh region) {
+        int[] members = region.memberInstances();
+        byte[] out = new byte[16 + members.length * 4 + encodedSize(region.mesh())];
+        ByteBuffer bb = ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(REGION_MAGIC);
+        bb.put((byte) VERSION);
+        bb.put((byte) region.size());
+        bb.putShort((short) 0);
+        bb.putInt(region.rx());
+        bb.putInt(region.rz());
+        for (int m : members) bb.putInt(m);
+        write(bb, region.mesh(), true);
+        return out;
+    }
+
+    /**
+     * Encodes the sections of a versioned mesh whose version differs from what the client
+     * holds. have[i] is the client's version of section haveMinSection + i (0 = none);
+     * pass null to get every section.
+     */
+    public static byte[] encodeSections(ChunkMesh mesh, long[] have, int haveMinSection) {
+        float[][] palette = ExposedFaceMesher.TINT_PALETTE;
+        ChunkMesh.Sections s = mesh.sections;
+        int count = s == null ? 0 : s.count();
+
+        ChunkMesh[] changed = new ChunkMesh[count];
+        int changedCount = 0;
+        int size = 16 + palette.length * 12;
+        for (int i = 0; i < count; i++) {
+            long v = s.versions() == null ? 0 : s.versions()[i];
+            int hi = s.minSection() + i - haveMinSection;
+            if (have != null && v != 0 && hi >= 0 && hi < have.length && have[hi] == v) continue;
+            changed[i] = mesh.section(i);
+            size += 16 + pad4(encodedSize(changed[i], 0));
+            changedCount++;
+        }
+
+        byte[] out = new byte[size];
+        ByteBuffer bb = ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(SECTIONS_MAGIC);
+        bb.put((byte) VERSION);
+        bb.put((byte) palette.length);
+        bb.putShort((short) count);
+        bb.putInt(s == null ? 0 : s.minSection());
+        bb.putInt(changedCount);
+        for (float[] c : palette) { bb.putFloat(c[0]); bb.putFloat(c[1]); bb.putFloat(c[2]); }
+
+        for (int i = 0; i < count; i++) {
+            if (changed[i] == null) continue;
+            int len = encodedSize(changed[i], 0);
+            bb.putInt(s.minSection() + i);
+            bb.putInt(len);
+            bb.putDouble(s.versions() == null ? 0 : s.versions()[i]); // < 2^53, exact as a JS number
+            write(bb, changed[i], false);
+            bb.position(pad4(bb.position()));
+        }
+        return out;
+    }
+
+    /**
+     * Copy of an {@link #encodeSections} container with every section version zeroed, so
+     * identical geometry always encodes to identical bytes (content-addressed exports).
+     */
+    public static byte[] withoutVersions(byte[] container) {
+        byte[] out = container.clone();
+        ByteBuffer bb = ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN);
+        if (out.length < 16 || bb.getInt(0) != SECTIONS_MAGIC) throw new IllegalArgumentException("Not a VXS1 container");
+        int paletteSize = out[5] & 0xff;
+        int changed = bb.getInt(12);
+        int off = 16 + paletteSize * 12;
+        for (int i = 0; i < changed; i++) {
+            int len = bb.getInt(off + 4);
+            bb.putDouble(off + 8, 0);
+            off += 16 + pad4(len);
+        }
+        return out;
+    }
+
+    /**
+     * Reassembles a sectioned mesh from a full {@link #encodeSections} container (have = null),
+     * keeping the section versions. Used by the on-disk {@link MeshStore}.
+     */
+    public static ChunkMesh decodeSections(byte[] data) {
+        ByteBuffer bb = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if (bb.getInt() != SECTIONS_MAGIC) throw new IllegalArgumentException("Not a VXS1 container");
+        if ((bb.get() & 0xFF) != VERSION) throw new IllegalArgumentException("Unsupported VXS1 version");
+        int paletteSize = bb.get() & 0xFF;
+        int count = bb.getShort() & 0xFFFF;
+        int minSection = bb.getInt();
+        int changed = bb.getInt();
+        if (changed != count) throw new IllegalArgumentException("Partial VXS1 container");
+        bb.position(bb.position() + paletteSize * 12);
+
+        // pass 1: sizes
+        int start = bb.position();
+        int vc = 0, ic = 0, ec = 0, nc = 0;
+        boolean lit = count > 0;
+        for (int i = 0; i < count; i++) {
+            bb.position(bb.position() + 4);
+            int len = bb.getInt();
+            int blob = bb.position() + 8;
+            int flags = bb.get(blob + 7);
+            lit &= (flags & FLAG_LIGHT) != 0;
+            vc += bb.getInt(blob + 8);
+            ic += bb.getInt(blob + 12);
+            ec += bb.getInt(blob + 16) * 4;
+            if ((flags & FLAG_INSTANCES) != 0) nc += bb.getInt(blob + ((flags & FLAG_LAYERS) != 0 ? 28 : 20)) * 4;
+            bb.position(blob + pad4(len));
+        }
+
+        short[] positions = new short[vc * 3];
+        short[] uvs = new short[vc * 2];
+        byte[] faces = new byte[vc];
+        byte[] tints = new byte[vc];
+        int[] idx = new int[ic];
+        float[] emitters = new float[ec];
+        short[] instances = new short[nc];
+        byte[] light = lit ? new byte[vc] : null;
+        byte[] ao = lit ? new byte[vc] : null;
+        int[] vStart = new int[count + 1], iStart = new int[count + 1], eStart = new int[count + 1];
+        int[] nStart = new int[count + 1];
+        int[] layerStart = new int[count * 2];
+        long[] versions = new long[count];
+
+        // pass 2: copy
+        bb.position(start);
+        int v = 0, n = 0, e = 0, in = 0;
+        for (int i = 0; i < count; i++) {
+            vStart[i] = v; iStart[i] = n; eStart[i] = e; nStart[i] = in;
+            bb.getInt(); // section y, implied by order
+            int len = bb.getInt();
+            versions[i] = (long) bb.getDouble();
+            int end = bb.position() + pad4(len);
+
+            if (bb.getInt() != MAGIC) throw new IllegalArgumentException("Bad VXM1 section");
+            bb.get();
+            int indexBytes = bb.get() & 0xFF;
+            bb.get();
+            int flags = bb.get() & 0xFF;
+            int svc = bb.getInt(), sic = bb.getInt(), sec = bb.getInt();
+            boolean layered = (flags & FLAG_LAYERS) != 0;
+            layerStart[i * 2] = n + (layered ? bb.getInt() : sic);
+            layerStart[i * 2 + 1] = n + (layered ? bb.getInt() : sic);
+            int snc = (flags & FLAG_INSTANCES) != 0 ? bb.getInt() * 4 : 0;
+
+            bb.asShortBuffer().get(positions, v * 3, svc * 3);
+            bb.position(bb.position() + pad4(svc * 3 * 2));
+            bb.asShortBuffer().get(uvs, v * 2, svc * 2);
+            bb.position(bb.position() + pad4(svc * 2 * 2));
+            bb.get(faces, v, svc);
+            bb.position(pad4(bb.position()));
+            bb.get(tints, v, svc);
+            bb.position(pad4(bb.position()));
+            if ((flags & FLAG_LIGHT) != 0) {
+                if (lit) bb.get(light, v, svc); else bb.position(bb.position() + svc);
+                bb.position(pad4(bb.position()));
+                if (lit) bb.get(ao, v, svc); else bb.position(bb.position() + svc);
+                bb.position(pad4(bb.position()));
+            }
+            if (indexBytes == 2) {
+                for (int k = 0; k < sic; k++) idx[n + k] = (bb.getShort() & 0xFFFF) + v;
+            } else {
+                for (int k = 0; k < sic; k++) idx[n + k] = bb.getInt() + v;
+            }
+            bb.position(pad4(bb.position()));
+            bb.asFloatBuffer().get(emitters, e, sec * 4);
+            bb.position(bb.position() + sec * 16);
+            bb.asShortBuffer().get(instances, in, snc);
+
+            v += svc; n += sic; e += sec * 4; in += snc;
+            bb.position(end);
+        }
+        vStart[count] = v; iStart[count] = n; eStart[count] = e; nStart[count] = in;
+
+        short[] i16 = null;
+        int[] i32 = null;
+        if (vc <= 0x10000) {
+            i16 = new short[ic];
+            for (int k = 0; k < ic; k++) i16[k] = (short) idx[k];
+        } else {
+            i32 = idx;
+        }
+        return new ChunkMesh(positions, faces, uvs, tints, i16, i32, emitters, instances,
+                new ChunkMesh.Sections(minSection, vStart, iStart, eStart, nStart, layerStart, versions), light, ao);
+    }
+}
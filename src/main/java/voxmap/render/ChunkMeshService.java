@@ -1,6 +1,7 @@
 package voxmap.render;
 
 import voxmap.config.WorldsConfig;
+import voxmap.metrics.RenderMetrics;
 import voxmap.texture.TextureAtlasService;
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
@@ -12,93 +13,166 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class ChunkMeshService {
     private final JavaPlugin plugin;
-    private final ChunkMeshCache cacheFactory;
     private final WorldsConfig worlds;
     private final TextureAtlasService atlas; // NEW
-    private final ExecutorService pool;
+    // fork-join, so idle mesher threads can steal the sections of a chunk another one is meshing
+    private final ForkJoinPool pool;
 
-    private final ConcurrentHashMap<String, ChunkMeshCache.LruCache<String, ChunkMesh>> worldCaches = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Long> dirtyDebounce = new ConcurrentHashMap<>();
+    // chunk loads in flight for unloaded-chunk snapshots (render.requireChunkLoaded: false)
+    private final Semaphore chunkLoads;
 
-    public ChunkMeshService(JavaPlugin plugin, ChunkMeshCache cacheFactory, WorldsConfig worlds, TextureAtlasService atlas) {
+    public ChunkMeshService(JavaPlugin plugin, WorldsConfig worlds, TextureAtlasService atlas) {
         this.plugin = plugin;
-        this.cacheFactory = cacheFactory;
         this.worlds = worlds;
         this.atlas = atlas;
 
         int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
         AtomicInteger c = new AtomicInteger(1);
-        this.pool = Executors.newFixedThreadPool(threads, r -> {
-            Thread t = new Thread(r, "Voxmap-Mesher-" + c.getAndIncrement());
+        this.pool = new ForkJoinPool(threads, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("Voxmap-Mesher-" + c.getAndIncrement());
             t.setDaemon(true);
             return t;
-        });
-    }
+        }, null, false);
 
-    public void shutdown() { pool.shutdownNow(); }
+        RenderMetrics.gauge("voxmap_mesher_queue_depth", "Mesh jobs waiting for a mesher thread.", this::queueDepth);
+        RenderMetrics.gauge("voxmap_mesher_active_threads", "Mesher threads currently building.", pool::getActiveThreadCount);
+        RenderMetrics.gauge("voxmap_mesher_threads", "Size of the mesher pool.", pool::getParallelism);
 
-    private ChunkMeshCache.LruCache<String, ChunkMesh> cacheFor(World world) {
-        return worldCaches.computeIfAbsent(world.getName(), k -> cacheFactory.createWorldCache());
+        this.chunkLoads = new Semaphore(Math.max(1, plugin.getConfig().getInt("performance.maxConcurrentChunkLoads", 4)));
+        RenderMetrics.gauge("voxmap_chunk_loads_inflight", "Chunks being loaded for viewers of unloaded chunks.",
+                () -> Math.max(1, plugin.getConfig().getInt("performance.maxConcurrentChunkLoads", 4)) - chunkLoads.availablePermits());
     }
 
-    private static String chunkKey(int cx, int cz) { return cx + "," + cz; }
-
-    public ChunkMesh getOrBuild(World world, int cx, int cz) throws Exception {
-        if (!worlds.isWorldEnabled(world.getName()))
-            return new ChunkMesh(new float[0], new float[0], new float[0], new float[0], new int[0], new float[0]);
+    /** Mesh jobs waiting for a thread (whole chunks; queued section tasks aren't counted). */
+    public int queueDepth() {
+        return pool.getQueuedSubmissionCount();
+    }
 
-        boolean requireLoaded = plugin.getConfig().getBoolean("render.requireChunkLoaded", true);
-        var cache = cacheFor(world);
-        String k = chunkKey(cx, cz);
+    public void shutdown() {
+        pool.shutdownNow();
+    }
 
-        synchronized (cache) {
-            ChunkMesh existing = cache.get(k);
-            if (existing != null) return existing;
-        }
+    public static long columnKey(int cx, int cz) {
+        return (((long) cx) << 32) ^ (cz & 0xffffffffL);
+    }
 
+    /**
+     * Takes a ChunkSnapshot on the main thread. Completes with null when the chunk
+     * isn't loaded and requireLoaded is set; otherwise see {@link #loadAndSnapshot}.
+     */
+    public CompletableFuture<org.bukkit.ChunkSnapshot> snapshotAsync(World world, int cx, int cz, boolean requireLoaded) {
+        if (!requireLoaded) return loadAndSnapshot(world, cx, cz);
         CompletableFuture<org.bukkit.ChunkSnapshot> snapF = new CompletableFuture<>();
+        final long requested = System.nanoTime();
         Bukkit.getScheduler().runTask(plugin, () -> {
+            long t0 = System.nanoTime();
             try {
-                if (requireLoaded && !world.isChunkLoaded(cx, cz)) { snapF.complete(null); return; }
-                Chunk chunk = world.getChunkAt(cx, cz); // will load if requireLoaded=false
-                snapF.complete(chunk.getChunkSnapshot(true, true, false));
+                if (!world.isChunkLoaded(cx, cz)) { snapF.complete(null); return; }
+                Chunk chunk = world.getChunkAt(cx, cz);
+                org.bukkit.ChunkSnapshot snap = chunk.getChunkSnapshot(true, true, false);
+                RenderMetrics.SNAPSHOT_MAIN_THREAD.recordSince(t0);
+                RenderMetrics.SNAPSHOT_WAIT.recordSince(requested);
+                snapF.complete(snap);
             } catch (Throwable t) {
                 snapF.completeExceptionally(t);
             }
         });
+        return snapF;
+    }
 
-        org.bukkit.ChunkSnapshot snap = snapF.get(2, TimeUnit.SECONDS);
-        if (snap == null) return new ChunkMesh(new float[0], new float[0], new float[0], new float[0], new int[0], new float[0]);
+    /**
+     * Snapshot of a chunk that may be unloaded. It is loaded with Paper's getChunkAtAsync
+     * (never generated unless render.generateChunks is set, so it completes with null for
+     * unexplored land) and released again right after the snapshot if nothing held it before.
+     * At most performance.maxConcurrentChunkLoads run at once; past that the future fails
+     * with a RejectedExecutionException instead of queueing, so viewers can't pile up loads.
+     */
+    public CompletableFuture<org.bukkit.ChunkSnapshot> loadAndSnapshot(World world, int cx, int cz) {
+        if (!chunkLoads.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("chunk load limit reached"));
+        }
+        boolean generate = plugin.getConfig().getBoolean("render.generateChunks", false);
+        CompletableFuture<org.bukkit.ChunkSnapshot> snapF = new CompletableFuture<>();
+        final long requested = System.nanoTime();
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            try {
+                boolean wasLoaded = world.isChunkLoaded(cx, cz);
+                // Paper completes this on the main thread
+                world.getChunkAtAsync(cx, cz, generate).whenComplete((chunk, err) -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        if (err != null) { snapF.completeExceptionally(err); return; }
+                        if (chunk == null) { snapF.complete(null); return; }
+                        org.bukkit.ChunkSnapshot snap = chunk.getChunkSnapshot(true, true, false);
+                        if (!wasLoaded) world.unloadChunkRequest(cx, cz);
+                        RenderMetrics.SNAPSHOT_MAIN_THREAD.recordSince(t0);
+                        RenderMetrics.SNAPSHOT_WAIT.recordSince(requested);
+                        snapF.complete(snap);
+                    } catch (Throwable t) {
+                        snapF.completeExceptionally(t);
+                    }
+                });
+            } catch (Throwable t) {
+                snapF.completeExceptionally(t);
+            }
+        });
+        return snapF.whenComplete((snap, err) -> chunkLoads.release());
+    }
 
+    public Future<ChunkMesh> meshAsync(org.bukkit.ChunkSnapshot snap, int minY, int maxYInclusive) {
+        return pool.submit(() -> mesh(snap, minY, maxYInclusive));
+    }
 
+    public RenderProfile profile(String worldName) {
+        return worlds.profile(worldName);
+    }
 
-        Future<ChunkMesh> meshF = pool.submit(() ->
-                ExposedFaceMesher.meshChunkSnapshot(
-                        snap,
-                        world.getMinHeight(),
-                        world.getMaxHeight() - 1,
-                        atlas
-                )
-        );
+    /** Culling rules of render.culling. */
+    public CullRules cullRules() {
+        var cfg = plugin.getConfig();
+        CullRules def = CullRules.DEFAULT;
+        return new CullRules(
+                cfg.getBoolean("render.culling.sameFluid", def.sameFluid),
+                cfg.getBoolean("render.culling.sameGlass", def.sameGlass),
+                CullRules.Leaves.parse(cfg.getString("render.culling.leaves"), def.leaves));
+    }
 
-        ChunkMesh mesh = meshF.get(12, TimeUnit.SECONDS);
+    /** Meshes a snapshot under its world's render profile. Runs on a mesher thread. */
+    private ChunkMesh mesh(org.bukkit.ChunkSnapshot snap, int minY, int maxYInclusive) {
+        atlas.awaitReady(); // only waits during startup, while the atlas is built
+        RenderProfile profile = worlds.profile(snap.getWorldName());
+        int caveDepth = plugin.getConfig().getInt("render.surfaceCaveDepth", 8);
+        return profile.mesh(new ChunkSnapshotSource(snap, minY, maxYInclusive), minY, maxYInclusive, atlas, caveDepth,
+                cullRules());
+    }
 
-        synchronized (cache) { cache.put(k, mesh); }
-        return mesh;
+    /**
+     * Meshes pieces of a column for vertical slices, each within one section:
+     * {@code pieces[i] = {lo, hi, capBottom, capTop}} (caps 0/1). Every face is kept
+     * (only the profile's lighting and the culling rules apply), blocks outside a piece still cull its uncapped ends.
+     */
+    public Future<ChunkMesh[]> meshPiecesAsync(org.bukkit.ChunkSnapshot snap, int minY, int maxYInclusive, int[][] pieces) {
+        return pool.submit(() -> {
+            atlas.awaitReady();
+            BlockSource src = new ChunkSnapshotSource(snap, minY, maxYInclusive);
+            boolean baked = worlds.profile(snap.getWorldName()).bakedLighting;
+            CullRules rules = cullRules();
+            ChunkMesh[] out = new ChunkMesh[pieces.length];
+            for (int i = 0; i < pieces.length; i++) {
+                int[] p = pieces[i];
+                out[i] = ExposedFaceMesher.mesh(src, p[0], p[1], atlas, null, rules, p[2] != 0, p[3] != 0, baked);
+            }
+            return out;
+        });
     }
 
-    public void markDirty(World world, int cx, int cz) {
-        String wk = world.getName() + ":" + chunkKey(cx, cz);
-        dirtyDebounce.put(wk, System.currentTimeMillis());
-        int debounceMs = plugin.getConfig().getInt("performance.chunkDirtyDebounceMs", 500);
-
-        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, () -> {
-            Long t = dirtyDebounce.get(wk);
-            if (t == null) return;
-            if (System.currentTimeMillis() - t < debounceMs) return;
-            dirtyDebounce.remove(wk);
-            var cache = cacheFor(world);
-            synchronized (cache) { cache.remove(chunkKey(cx, cz)); }
-        }, Math.max(1, debounceMs / 50));
+    /**
+     * Snapshot + mesh without blocking the caller (used for background rebuilds).
+     * Completes with null when the chunk isn't loaded and requireLoaded is set.
+     */
+    public CompletableFuture<ChunkMesh> buildAsync(World world, int cx, int cz, int minY, int maxYInclusive, boolean requireLoaded) {
+        return snapshotAsync(world, cx, cz, requireLoaded).thenApplyAsync(snap ->
+                snap == null ? null : mesh(snap, minY, maxYInclusive), pool);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package voxmap.render;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.block.data.Bisected;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Directional;
+import org.bukkit.block.data.type.Slab;
+
+import java.util.Arrays;
+
+/** {@link BlockSource} over a Bukkit {@link ChunkSnapshot}. */
+public class ChunkSnapshotSource implements BlockSource {
+
+    // Material ordinal -> block id, with the server's traits; filled once when the class loads,
+    // so mesher threads only ever read it
+    private static final int[] MATERIAL_IDS = new int[Material.values().length];
+
+    static {
+        Arrays.fill(MATERIAL_IDS, -1);
+        for (Material m : Material.values()) {
+            if (m.isLegacy() || !m.isBlock()) continue;
+            int id = BlockRegistry.id(m.name());
+            if (!m.isAir()) BlockRegistry.define(id, BlockTraits.compute(BlockRegistry.name(id), m.isSolid(), m.isOccluding()));
+            MATERIAL_IDS[m.ordinal()] = id;
+        }
+    }
+
+    private final ChunkSnapshot snap;
+    private final int minY;
+    private final int maxY;
+
+    public ChunkSnapshotSource(ChunkSnapshot snap, int minY, int maxYInclusive) {
+        this.snap = snap;
+        this.minY = minY;
+        this.maxY = maxYInclusive;
+    }
+
+    /** Registers every block material; call on the main thread while enabling, before any meshing. */
+    public static void init() {}
+
+    public static int blockId(Material m) {
+        int id = MATERIAL_IDS[m.ordinal()];
+        return id >= 0 ? id : BlockRegistry.id(m.name()); // not a block: guessed traits, never redefined
+    }
+
+    @Override public int minY() { return minY; }
+    @Override public int maxY() { return maxY; }
+
+    // getType: the material is all the id needs, without a BlockData per block
+    @Override
+    public int blockId(int x, int y, int z) {
+        return blockId(snap.getType(x, y, z));
+    }
+
+    @Override
+    public int skyLight(int x, int y, int z) {
+        return snap.getBlockSkyLight(x, y, z);
+    }
+
+    @Override
+    public int blockLight(int x, int y, int z) {
+        return snap.getBlockEmittedLight(x, y, z);
+    }
+
+    @Override
+    public String biome(int x, int y, int z) {
+        return snap.getBiome(x, y, z).getKey().getKey();
+    }
+
+    @Override
+    public int modelState(int x, int y, int z) {
+        int model = BlockTraits.model(BlockRegistry.traits(blockId(x, y, z)));
+        if (model != BlockModels.SLAB && model != BlockModels.STAIRS && model != BlockModels.TORCH) return 0;
+        BlockData d = snap.getBlockData(x, y, z);
+        int s = 0;
+        if (d instanceof Directional dir) {
+            s |= BlockModels.rotation(dir.getFacing().name());
+            if (model == BlockModels.TORCH) s |= BlockModels.WALL; // standing torches have no facing
+        }
+        if (d instanceof Bisected b && b.getHalf() == Bisected.Half.TOP) s |= BlockModels.TOP;
+        if (d instanceof Slab slab) {
+            if (slab.getType() == Slab.Type.TOP) s |= BlockModels.TOP;
+            if (slab.getType() == Slab.Type.DOUBLE) s |= BlockModels.DOUBLE;
+        }
+        return s;
+    }
+}
@@ -0,0 +1,59 @@
+package voxmap.render;
+
+import java.util.Locale;
+
+/**
+ * When the mesher drops a face between two non-occluding cubes. A face is always hidden by an
+ * occluding neighbour; these rules add the cases where both sides are see-through, which would
+ * otherwise fill oceans, canopies and glass walls with internal quads.
+ *
+ * <pre>
+ * face between           | sameFluid | sameGlass | leaves: fast
+ * the same fluid         | culled    |           |
+ * the same glass/ice     |           | culled    |
+ * leaves and any leaves  |           |           | culled
+ * </pre>
+ * Read from config.yml {@code render.culling}.
+ */
+public final class CullRules {
+
+    public enum Leaves {
+        /** Every leaf face is drawn, canopies look full from all sides. */
+        FANCY,
+        /** Faces between leaf blocks are dropped, leaving a shell. */
+        FAST;
+
+        public static Leaves parse(String s, Leaves def) {
+            if (s == null) return def;
+            try {
+                return valueOf(s.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return def;
+            }
+        }
+    }
+
+    /** Only occluding neighbours hide faces (the behaviour before these rules). */
+    public static final CullRules NONE = new CullRules(false, false, Leaves.FANCY);
+    public static final CullRules DEFAULT = new CullRules(true, true, Leaves.FAST);
+
+    public final boolean sameFluid;
+    public final boolean sameGlass;
+    public final Leaves leaves;
+
+    public CullRules(boolean sameFluid, boolean sameGlass, Leaves leaves) {
+        this.sameFluid = sameFluid;
+        this.sameGlass = sameGlass;
+        this.leaves = leaves;
+    }
+
+    /** Whether the face of block {@code id} (traits {@code f}) towards block {@code other} is hidden. */
+    public boolean hides(int id, int f, int other) {
+        int of = BlockRegistry.traits(other);
+        if ((of & BlockTraits.OCCLUDER) != 0) return true;
+        if ((f & BlockTraits.LEAVES) != 0) return leaves == Leaves.FAST && (of & BlockTraits.LEAVES) != 0;
+        if (id != other) return false;
+        if ((f & (BlockTraits.WATER | BlockTraits.LAVA)) != 0) return sameFluid;
+        return sameGlass && (f & (BlockTraits.CUTOUT | BlockTraits.TRANSLUCENT)) != 0;
+    }
+}
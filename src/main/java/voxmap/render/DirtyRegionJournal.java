@@ -0,0 +1,123 @@
+package voxmap.render;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+import voxmap.metrics.RenderMetrics;
+import voxmap.util.LongHashSet;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Per-tick journal of dirty 16x16x16 sections.
+ *
+ * Block events only add packed section coordinates to a primitive set; once per tick
+ * the journal is flushed and every touched chunk column is marked dirty exactly once,
+ * no matter how many blocks changed in it. Blocks on a chunk or section border also
+ * mark the neighbor, since its exposed faces depend on this block.
+ *
+ * Other plugins doing bulk edits (WorldEdit and friends) can call {@link #markBox}.
+ */
+public class DirtyRegionJournal {
+
+    private final JavaPlugin plugin;
+    private final ChunkMeshCacheService cache;
+
+    // worldName -> dirty section keys since the last flush
+    private final Map<String, LongHashSet> pending = new HashMap<>();
+    private final LongHashSet columns = new LongHashSet(); // flush scratch
+
+    // fast path: most events in a tick hit the same world
+    private String lastWorld;
+    private LongHashSet lastSet;
+
+    private BukkitTask task;
+
+    public DirtyRegionJournal(JavaPlugin plugin, ChunkMeshCacheService cache) {
+        this.plugin = Objects.requireNonNull(plugin);
+        this.cache = Objects.requireNonNull(cache);
+    }
+
+    public void start() {
+        if (task == null) task = Bukkit.getScheduler().runTaskTimer(plugin, this::flush, 1L, 1L);
+    }
+
+    public void stop() {
+        if (task != null) { task.cancel(); task = null; }
+        synchronized (this) { pending.clear(); lastWorld = null; lastSet = null; }
+    }
+
+    // --- packed section coordinates: cx 22 bits | cz 22 bits | sy 20 bits (all signed) ---
+
+    public static long sectionKey(int cx, int sy, int cz) {
+        return ((long) (cx & 0x3FFFFF) << 42) | ((long) (cz & 0x3FFFFF) << 20) | (sy & 0xFFFFF);
+    }
+
+    public static int sectionX(long k) { return (int) (k >> 42); }
+    public static int sectionZ(long k) { return (int) (k << 22 >> 42); }
+    public static int sectionY(long k) { return (int) (k << 44 >> 44); }
+
+    private LongHashSet setFor(String worldName) {
+        if (worldName.equals(lastWorld)) return lastSet;
+        LongHashSet s = pending.computeIfAbsent(worldName, w -> new LongHashSet(256));
+        lastWorld = worldName;
+        lastSet = s;
+        return s;
+    }
+
+    public void markBlock(Block b) {
+        markBlock(b.getWorld(), b.getX(), b.getY(), b.getZ());
+    }
+
+    public synchronized void markBlock(World world, int x, int y, int z) {
+        LongHashSet s = setFor(world.getName());
+        int cx = x >> 4, cz = z >> 4, sy = y >> 4;
+        s.add(sectionKey(cx, sy, cz));
+
+        int lx = x & 15, ly = y & 15, lz = z & 15;
+        if (lx == 0) s.add(sectionKey(cx - 1, sy, cz));
+        else if (lx == 15) s.add(sectionKey(cx + 1, sy, cz));
+        if (lz == 0) s.add(sectionKey(cx, sy, cz - 1));
+        else if (lz == 15) s.add(sectionKey(cx, sy, cz + 1));
+        if (ly == 0) s.add(sectionKey(cx, sy - 1, cz));
+        else if (ly == 15) s.add(sectionKey(cx, sy + 1, cz));
+    }
+
+    /** Marks every section overlapping the box (inclusive block coordinates), plus a one-block border. */
+    public synchronized void markBox(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        LongHashSet s = setFor(world.getName());
+        int minY0 = Math.max(minY - 1, world.getMinHeight());
+        int maxY0 = Math.min(maxY + 1, world.getMaxHeight() - 1);
+        for (int cx = (minX - 1) >> 4; cx <= (maxX + 1) >> 4; cx++)
+            for (int cz = (minZ - 1) >> 4; cz <= (maxZ + 1) >> 4; cz++)
+                for (int sy = minY0 >> 4; sy <= maxY0 >> 4; sy++)
+                    s.add(sectionKey(cx, sy, cz));
+    }
+
+    public void markChunk(World world, int cx, int cz) {
+        markBox(world, cx << 4, world.getMinHeight(), cz << 4, (cx << 4) + 15, world.getMaxHeight() - 1, (cz << 4) + 15);
+    }
+
+    /** Runs once per tick on the main thread. */
+    public synchronized void flush() {
+        if (pending.isEmpty()) return;
+        for (var e : pending.entrySet()) {
+            LongHashSet sections = e.getValue();
+            if (sections.isEmpty()) continue;
+
+            String worldName = e.getKey();
+            columns.clear();
+            sections.forEach(k -> {
+                int cx = sectionX(k), cz = sectionZ(k);
+                if (!columns.add(ChunkMeshService.columnKey(cx, cz))) return;
+                cache.markDirty(worldName, cx, cz);
+                RenderMetrics.DIRTY_CHUNKS.increment();
+            });
+            sections.clear();
+        }
+    }
+}
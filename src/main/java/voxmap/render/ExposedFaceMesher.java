@@ -1,13 +1,12 @@
 package voxmap.render;
 
-import org.bukkit.ChunkSnapshot;
-import org.bukkit.Material;
-import org.bukkit.block.data.BlockData;
+import voxmap.metrics.RenderMetrics;
 import voxmap.texture.TextureAtlasService;
-import voxmap.texture.TextureAtlasService.UVRect;
 
-import java.util.ArrayList;
-import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
 
 public class ExposedFaceMesher {
 
@@ -22,284 +21,360 @@ public class ExposedFaceMesher {
     private static final float[] TINT_LAVA   = new float[]{1.25f, 0.90f, 0.21f};
     private static final float[] TINT_NONE    = new float[]{1f, 1f, 1f};
 
+    // Tints are sent as a palette index per vertex instead of three floats.
+    public static final int TINT_IDX_NONE = 0;
+    public static final int TINT_IDX_GRASS = 1;
+    public static final int TINT_IDX_FOLIAGE = 2;
+    public static final int TINT_IDX_WATER = 3;
+    public static final int TINT_IDX_LAVA = 4;
+    public static final float[][] TINT_PALETTE = { TINT_NONE, TINT_GRASS, TINT_FOLIAGE, TINT_WATER, TINT_LAVA };
 
-    public enum Face { UP, DOWN, NORTH, SOUTH, EAST, WEST }
-
-    private static boolean isAirLike(Material m) {
-        return m == Material.AIR || m == Material.CAVE_AIR || m == Material.VOID_AIR;
-    }
 
-    private static boolean isLeaves(Material m) {
-        String n = m.name().toLowerCase(Locale.ROOT);
-        return n.endsWith("_leaves") || n.contains("leaves");
-    }
+    // Ordinals are part of the wire format (face byte per vertex), don't reorder.
+    public enum Face { UP, DOWN, NORTH, SOUTH, EAST, WEST }
 
-    private static boolean isWater(Material m) {
-        return m == Material.WATER;
-    }
-    private static boolean isLava(Material m) {
-        return m == Material.LAVA;
+    private static float emitterIntensity(int id) {
+        String n = BlockRegistry.name(id);
+        if (n.contains("soul_torch") || n.contains("soul_lantern")) return 0.7f;
+        if (n.contains("torch") || n.contains("lantern")) return 1.0f;
+        if (n.contains("glowstone") || n.contains("sea_lantern")) return 1.2f;
+        if (n.contains("jack_o_lantern")) return 1.1f;
+        return 0.9f;
     }
 
-    private static boolean isGrassLikePlant(Material m) {
-        String mn = m.name().toLowerCase(Locale.ROOT);
-        return mn.equals("grass") || mn.equals("short_grass") || mn.equals("tall_grass")
-                || mn.equals("fern") || mn.equals("large_fern")
-                || mn.equals("seagrass") || mn.equals("tall_seagrass")
-                || mn.equals("sugar_cane") || mn.contains("vine");
+    /** Border face test: exposed unless the neighbouring column is known and hides it. */
+    private static boolean exposedAcross(CullRules rules, int id, int f, BlockSource n, int x, int y, int z) {
+        return n == null || y < n.minY() || y > n.maxY() || !rules.hides(id, f, n.blockId(x, y, z));
     }
 
     /**
-     * Blocks that should render as “cutout/transparent-ish” and also should NOT occlude neighbors.
-     * For phase-1 cube meshing, we treat these as cube surfaces but not occluders.
+     * Meshes y = minY..maxYInclusive of a column with the {@link CullRules#DEFAULT} rules. Faces on
+     * the column border are culled against {@link BlockSource#neighbor} where available, otherwise
+     * always emitted.
      */
-    private static boolean isTransparentCutout(Material m) {
-        // Leaves + water treated as non-occluding for our face culling logic
-        if (isLeaves(m)) return true;
-        if (isWater(m)) return true;
-        if (isLava(m)) return true;
-        return false;
+    public static ChunkMesh mesh(
+            BlockSource src,
+            int minY,
+            int maxYInclusive,
+            TextureAtlasService atlas
+    ) {
+        return mesh(src, minY, maxYInclusive, atlas, null);
     }
 
-    private static boolean isSolidOccluder(BlockData bd) {
-        Material m = bd.getMaterial();
-        if (isAirLike(m)) return false;
-
-        // Leaves/water shouldn’t occlude like full cubes (so we still render faces behind/around them)
-        if (isTransparentCutout(m)) return false;
-
-        return m.isSolid() && m.isOccluding();
+    /**
+     * Like {@link #mesh(BlockSource, int, int, TextureAtlasService)}, but with a mask only faces
+     * looking into a cell visible from the surface are emitted (surface-only mode).
+     */
+    public static ChunkMesh mesh(
+            BlockSource src,
+            int minY,
+            int maxYInclusive,
+            TextureAtlasService atlas,
+            VisibilityMask mask
+    ) {
+        return mesh(src, minY, maxYInclusive, atlas, mask, CullRules.DEFAULT, true, true, false);
     }
 
-    private static boolean isEmitter(Material m) {
-        String n = m.name().toLowerCase(Locale.ROOT);
-        return n.endsWith("_torch") || n.equals("torch")
-                || n.endsWith("_lantern") || n.equals("lantern")
-                || n.equals("jack_o_lantern")
-                || n.equals("glowstone")
-                || n.equals("sea_lantern");
+    /**
+     * Core mesher. With {@code capBottom}/{@code capTop} the faces at minY / maxYInclusive are
+     * always emitted (the cut surface of a slice); without, they are culled against the blocks
+     * just outside the range like any other face, so the result matches the same sections of a
+     * taller mesh. With {@code bakeLight} every vertex gets smooth light and ambient occlusion.
+     * {@code rules} decides which faces between see-through blocks are dropped.
+     */
+    public static ChunkMesh mesh(
+            BlockSource src,
+            int minY,
+            int maxYInclusive,
+            TextureAtlasService atlas,
+            VisibilityMask mask,
+            CullRules rules,
+            boolean capBottom,
+            boolean capTop,
+            boolean bakeLight
+    ) {
+        final long t0 = System.nanoTime();
+        ChunkMesh mesh = meshRange(src, minY, maxYInclusive, atlas, mask, rules, capBottom, capTop, bakeLight);
+        RenderMetrics.MESH_BUILD.recordSince(t0);
+        RenderMetrics.MESH_QUADS.add(mesh.indexCount() / 6);
+        return mesh;
     }
 
-    private static float emitterIntensity(Material m) {
-        String n = m.name().toLowerCase(Locale.ROOT);
-        if (n.contains("soul_torch") || n.contains("soul_lantern")) return 0.7f;
-        if (n.contains("torch") || n.contains("lantern")) return 1.0f;
-        if (n.contains("glowstone") || n.contains("sea_lantern")) return 1.2f;
-        if (n.contains("jack_o_lantern")) return 1.1f;
-        return 0.9f;
+    /**
+     * Same result as the core {@link #mesh}, with every 16-high section meshed as its own
+     * fork-join task and the pieces joined, so one tall chunk is spread over idle workers.
+     * Only splits when called from a fork-join worker whose pool has nothing else queued and
+     * threads to spare; under load (or elsewhere) it meshes in one piece, as the split only adds
+     * the join there. The source and mask are only read, so tasks share them.
+     */
+    public static ChunkMesh meshSections(
+            BlockSource src,
+            int minY,
+            int maxYInclusive,
+            TextureAtlasService atlas,
+            VisibilityMask mask,
+            CullRules rules,
+            boolean capBottom,
+            boolean capTop,
+            boolean bakeLight
+    ) {
+        int s0 = minY >> 4, s1 = maxYInclusive >> 4;
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        boolean idle = pool != null && pool.getQueuedSubmissionCount() == 0
+                && pool.getActiveThreadCount() < pool.getParallelism();
+        if (!idle || s0 == s1 || maxYInclusive < minY) {
+            return mesh(src, minY, maxYInclusive, atlas, mask, rules, capBottom, capTop, bakeLight);
+        }
+        final long t0 = System.nanoTime();
+        ChunkMesh[] parts = new ChunkMesh[s1 - s0 + 1];
+        // a parallel stream started on a pool worker runs in that pool
+        IntStream.rangeClosed(s0, s1).parallel().forEach(sy -> {
+            int lo = Math.max(minY, sy << 4), hi = Math.min(maxYInclusive, (sy << 4) + 15);
+            parts[sy - s0] = meshRange(src, lo, hi, atlas, mask, rules,
+                    capBottom && sy == s0, capTop && sy == s1, bakeLight);
+        });
+        ChunkMesh mesh = ChunkMesh.join(s0, parts);
+        RenderMetrics.MESH_BUILD.recordSince(t0);
+        RenderMetrics.MESH_QUADS.add(mesh.indexCount() / 6);
+        return mesh;
     }
 
-    public static ChunkMesh meshChunkSnapshot(
-            ChunkSnapshot snap,
+    private static ChunkMesh meshRange(
+            BlockSource src,
             int minY,
             int maxYInclusive,
-            TextureAtlasService atlas
+            TextureAtlasService atlas,
+            VisibilityMask mask,
+            CullRules rules,
+            boolean capBottom,
+            boolean capTop,
+            boolean bakeLight
     ) {
-        ArrayList<Float> v = new ArrayList<>(160000);
-        ArrayList<Float> n = new ArrayList<>(160000);
-        ArrayList<Float> uv = new ArrayList<>(160000);
-        ArrayList<Float> col = new ArrayList<>(160000);
-        ArrayList<Integer> idx = new ArrayList<>(160000);
-
-        ArrayList<Float> emitters = new ArrayList<>(2048);
-
-        int index = 0;
+        MeshBuilder mb = new MeshBuilder(4096);
+        if (bakeLight) mb.enableLight();
+        int tilesPerRow = atlas.getTilesPerRow();
+        BlockSource west = src.neighbor(-1, 0), east = src.neighbor(1, 0);
+        BlockSource north = src.neighbor(0, -1), south = src.neighbor(0, 1);
 
         for (int y = minY; y <= maxYInclusive; y++) {
+            if (y == minY || (y & 15) == 0) mb.beginSection(y >> 4);
             for (int z = 0; z < D; z++) {
                 for (int x = 0; x < W; x++) {
-                    BlockData bd = snap.getBlockData(x, y, z);
-                    Material m = bd.getMaterial();
-                    if (isAirLike(m)) continue;
-
-                    // record emitters
-                    if (isEmitter(m)) {
-                        emitters.add(x + 0.5f);
-                        emitters.add((float) y + 0.7f);
-                        emitters.add(z + 0.5f);
-                        emitters.add(emitterIntensity(m));
+                    int m = src.blockId(x, y, z);
+                    int f = BlockRegistry.traits(m);
+                    if ((f & BlockTraits.AIR) != 0) continue;
+
+                    // record emitters (with a mask, buried non-occluding ones are dropped here,
+                    // occluding ones below when none of their faces is visible)
+                    boolean emitter = (f & BlockTraits.EMITTER) != 0;
+                    if (emitter && (mask == null || ((f & BlockTraits.OCCLUDER) == 0 && mask.visible(x, y, z)))) {
+                        mb.emitter(x + 0.5f, (float) y + 0.7f, z + 0.5f, emitterIntensity(m));
+                        emitter = false;
                     }
 
-                    // Phase-1 cube mesher:
-                    // Skip non-cube model blocks to avoid “weird planes” artifacts,
-                    // but allow leaves/water as cutout cubes, and allow glass/ice cubes.
-                    if (!m.isSolid() && !m.isOccluding() && !isLeaves(m) && !isWater(m) && !isLava(m)) {
-                        String name = m.name().toLowerCase(Locale.ROOT);
-                        boolean allow = name.contains("glass") || name.contains("ice");
-                        if (!allow) continue;
+                    // Shared-model blocks (plants, slabs, stairs, torches...) become instances, see BlockModels
+                    int model = BlockTraits.model(f);
+                    if (model != BlockModels.NONE) {
+                        if (mask == null || mask.visible(x, y, z)) {
+                            Face side = model == BlockModels.CROSS || model == BlockModels.TORCH ? Face.NORTH : Face.UP;
+                            int tint = (f & BlockTraits.GRASS_TINT) != 0 ? TINT_IDX_GRASS : TINT_IDX_NONE;
+                            mb.instance(model, src.modelState(x, y, z), x, y, z, tint, atlas.tileFor(m, side));
+                        }
+                        continue;
+                    }
+
+                    // Other non-cube blocks (doors, fences...) are skipped (see BlockTraits.CUBE).
+                    if ((f & BlockTraits.CUBE) == 0) continue;
+
+                    boolean nx = (x == 0)  ? exposedAcross(rules, m, f, west, 15, y, z) : !rules.hides(m, f, src.blockId(x - 1, y, z));
+                    boolean px = (x == 15) ? exposedAcross(rules, m, f, east, 0, y, z)  : !rules.hides(m, f, src.blockId(x + 1, y, z));
+                    boolean nz = (z == 0)  ? exposedAcross(rules, m, f, north, x, y, 15) : !rules.hides(m, f, src.blockId(x, y, z - 1));
+                    boolean pz = (z == 15) ? exposedAcross(rules, m, f, south, x, y, 0)  : !rules.hides(m, f, src.blockId(x, y, z + 1));
+                    boolean ny = (y == minY && (capBottom || y <= src.minY())) || !rules.hides(m, f, src.blockId(x, y - 1, z));
+                    boolean py = (y == maxYInclusive && (capTop || y >= src.maxY())) || !rules.hides(m, f, src.blockId(x, y + 1, z));
+
+                    if (mask != null) {
+                        nx &= (x == 0)  ? mask.visibleAcross(west, 15, y, z) : mask.visible(x - 1, y, z);
+                        px &= (x == 15) ? mask.visibleAcross(east, 0, y, z)  : mask.visible(x + 1, y, z);
+                        nz &= (z == 0)  ? mask.visibleAcross(north, x, y, 15) : mask.visible(x, y, z - 1);
+                        pz &= (z == 15) ? mask.visibleAcross(south, x, y, 0)  : mask.visible(x, y, z + 1);
+                        ny &= mask.visible(x, y - 1, z);
+                        py &= mask.visible(x, y + 1, z);
+                        if (emitter && (nx || px || nz || pz || ny || py)) {
+                            mb.emitter(x + 0.5f, (float) y + 0.7f, z + 0.5f, emitterIntensity(m));
+                        }
+                        if (!(nx || px || nz || pz || ny || py)) continue;
                     }
 
-                    boolean nx = (x == 0)  || !isSolidOccluder(snap.getBlockData(x - 1, y, z));
-                    boolean px = (x == 15) || !isSolidOccluder(snap.getBlockData(x + 1, y, z));
-                    boolean nz = (z == 0)  || !isSolidOccluder(snap.getBlockData(x, y, z - 1));
-                    boolean pz = (z == 15) || !isSolidOccluder(snap.getBlockData(x, y, z + 1));
-                    boolean ny = (y == minY) || !isSolidOccluder(snap.getBlockData(x, y - 1, z));
-                    boolean py = (y == maxYInclusive) || !isSolidOccluder(snap.getBlockData(x, y + 1, z));
+                    mb.layer((f & BlockTraits.TRANSLUCENT) != 0 ? ChunkMesh.LAYER_TRANSLUCENT
+                            : (f & BlockTraits.CUTOUT) != 0 ? ChunkMesh.LAYER_CUTOUT : ChunkMesh.LAYER_OPAQUE);
 
-                    // --- Tint selection (vertex color multiplier) ---
-                    float cr = TINT_NONE[0], cg = TINT_NONE[1], cb = TINT_NONE[2];
+                    // --- Tint selection (palette index, vertex color multiplier) ---
+                    int tint = TINT_IDX_NONE;
 
                     // Leaves: mid foliage green
-                    if (isLeaves(m)) {
-                        cr = TINT_FOLIAGE[0];
-                        cg = TINT_FOLIAGE[1];
-                        cb = TINT_FOLIAGE[2];
-                    }
+                    if ((f & BlockTraits.LEAVES) != 0) tint = TINT_IDX_FOLIAGE;
 
                     // Grass-like plants: lighter grass green
-                    if (isGrassLikePlant(m)) {
-                        cr = TINT_GRASS[0];
-                        cg = TINT_GRASS[1];
-                        cb = TINT_GRASS[2];
-                    }
+                    if ((f & BlockTraits.GRASS_TINT) != 0) tint = TINT_IDX_GRASS;
 
-                    // Water: bluish tint (translucent look is handled client-side by material settings)
-                    if (isWater(m)) {
-                        cr = TINT_WATER[0];
-                        cg = TINT_WATER[1];
-                        cb = TINT_WATER[2];
-                    }
-                    if (isLava(m)) {
-                        cr = TINT_LAVA[0];
-                        cg = TINT_LAVA[1];
-                        cb = TINT_LAVA[2];
-                    }
+                    // Water: bluish tint (blended in the translucent layer client-side)
+                    if ((f & BlockTraits.WATER) != 0) tint = TINT_IDX_WATER;
+                    if ((f & BlockTraits.LAVA) != 0) tint = TINT_IDX_LAVA;
 
                     // Emit faces
-                    if (nx) index = faceXNeg(v, n, uv, col, idx, index, x, y, z, atlas.uvFor(m, Face.WEST), cr, cg, cb);
-                    if (px) index = faceXPos(v, n, uv, col, idx, index, x, y, z, atlas.uvFor(m, Face.EAST), cr, cg, cb);
-                    if (nz) index = faceZNeg(v, n, uv, col, idx, index, x, y, z, atlas.uvFor(m, Face.NORTH), cr, cg, cb);
-                    if (pz) index = faceZPos(v, n, uv, col, idx, index, x, y, z, atlas.uvFor(m, Face.SOUTH), cr, cg, cb);
+                    if (nx) {
+                        faceXNeg(mb, x, y, z, atlas.tileFor(m, Face.WEST), tilesPerRow, tint);
+                        if (bakeLight) shadeQuad(mb, src, west, east, north, south, x, y, z, -1, 0, 0);
+                    }
+                    if (px) {
+                        faceXPos(mb, x, y, z, atlas.tileFor(m, Face.EAST), tilesPerRow, tint);
+                        if (bakeLight) shadeQuad(mb, src, west, east, north, south, x, y, z, 1, 0, 0);
+                    }
+                    if (nz) {
+                        faceZNeg(mb, x, y, z, atlas.tileFor(m, Face.NORTH), tilesPerRow, tint);
+                        if (bakeLight) shadeQuad(mb, src, west, east, north, south, x, y, z, 0, 0, -1);
+                    }
+                    if (pz) {
+                        faceZPos(mb, x, y, z, atlas.tileFor(m, Face.SOUTH), tilesPerRow, tint);
+                        if (bakeLight) shadeQuad(mb, src, west, east, north, south, x, y, z, 0, 0, 1);
+                    }
 
-                    if (ny) index = faceYNeg(v, n, uv, col, idx, index, x, y, z, atlas.uvFor(m, Face.DOWN), cr, cg, cb);
+                    if (ny) {
+                        faceYNeg(mb, x, y, z, atlas.tileFor(m, Face.DOWN), tilesPerRow, tint);
+                        if (bakeLight) shadeQuad(mb, src, west, east, north, south, x, y, z, 0, -1, 0);
+                    }
 
                     if (py) {
                         // Grass block: ONLY the top face gets the grass tint (like vanilla)
-                        float tr = cr, tg = cg, tb = cb;
-                        if (m == Material.GRASS_BLOCK) {
-                            tr = TINT_GRASS[0];
-                            tg = TINT_GRASS[1];
-                            tb = TINT_GRASS[2];
-                        }
-                        index = faceYPos(v, n, uv, col, idx, index, x, y, z, atlas.uvFor(m, Face.UP), tr, tg, tb);
+                        int topTint = (m == BlockRegistry.GRASS_BLOCK) ? TINT_IDX_GRASS : tint;
+                        faceYPos(mb, x, y, z, atlas.tileFor(m, Face.UP), tilesPerRow, topTint);
+                        if (bakeLight) shadeQuad(mb, src, west, east, north, south, x, y, z, 0, 1, 0);
                     }
                 }
             }
         }
 
-        return new ChunkMesh(toFloat(v), toFloat(n), toFloat(uv), toFloat(col), toInt(idx), toFloat(emitters));
+        return mb.build();
     }
 
-    private static float[] toFloat(ArrayList<Float> a) {
-        float[] out = new float[a.size()];
-        for (int i = 0; i < a.size(); i++) out[i] = a.get(i);
-        return out;
-    }
-
-    private static int[] toInt(ArrayList<Integer> a) {
-        int[] out = new int[a.size()];
-        for (int i = 0; i < a.size(); i++) out[i] = a.get(i);
-        return out;
-    }
+    // packed cell sample for shading: bit 8 = occluder, bits 4..7 sky light, bits 0..3 block light
+    private static final int CELL_OCCLUDER = 256;
 
-    private static void add3(ArrayList<Float> a, float x, float y, float z) { a.add(x); a.add(y); a.add(z); }
-    private static void add2(ArrayList<Float> a, float u, float v) { a.add(u); a.add(v); }
-    private static void addColor4(ArrayList<Float> c, float r, float g, float b) {
-        for (int i = 0; i < 4; i++) { c.add(r); c.add(g); c.add(b); }
+    /**
+     * Light and occluder flag of any cell around the column, across a border from the
+     * neighbouring column when known. Unknown cells (no neighbour, diagonal columns) count
+     * as open sky, like border faces count as exposed.
+     */
+    private static int cell(BlockSource src, BlockSource west, BlockSource east, BlockSource north, BlockSource south,
+                            int x, int y, int z) {
+        BlockSource s = src;
+        boolean inX = x >= 0 && x < 16, inZ = z >= 0 && z < 16;
+        if (!inX || !inZ) {
+            if (!inX && !inZ) return 15 << 4;
+            if (x < 0) { s = west; x += 16; }
+            else if (x > 15) { s = east; x -= 16; }
+            else if (z < 0) { s = north; z += 16; }
+            else { s = south; z -= 16; }
+            if (s == null) return 15 << 4;
+        }
+        if (y > s.maxY()) return 15 << 4;
+        if (y < s.minY()) return CELL_OCCLUDER;
+        int occ = (BlockRegistry.traits(s.blockId(x, y, z)) & BlockTraits.OCCLUDER) != 0 ? CELL_OCCLUDER : 0;
+        return occ | (s.skyLight(x, y, z) << 4) | s.blockLight(x, y, z);
     }
 
-    private static int quad(
-            ArrayList<Float> v, ArrayList<Float> n, ArrayList<Float> uv, ArrayList<Float> col,
-            ArrayList<Integer> idx, int index,
-            float x0, float y0, float z0,
-            float x1, float y1, float z1,
-            float x2, float y2, float z2,
-            float x3, float y3, float z3,
-            float nx, float ny, float nz,
-            UVRect r,
-            float cr, float cg, float cb
-    ) {
-        add3(v, x0, y0, z0); add3(v, x1, y1, z1); add3(v, x2, y2, z2); add3(v, x3, y3, z3);
-
-        for (int i = 0; i < 4; i++) add3(n, nx, ny, nz);
-
-        add2(uv, r.u0(), r.v1());
-        add2(uv, r.u0(), r.v0());
-        add2(uv, r.u1(), r.v0());
-        add2(uv, r.u1(), r.v1());
-
-        addColor4(col, cr, cg, cb);
-
-        // CCW winding (fixed earlier)
-        idx.add(index); idx.add(index + 2); idx.add(index + 1);
-        idx.add(index); idx.add(index + 3); idx.add(index + 2);
-
-        return index + 4;
+    /**
+     * Smooth light and ambient occlusion for the four corners of the quad just added for the
+     * face of block (x, y, z) facing (dx, dy, dz). Each corner samples the four cells around it
+     * in the layer in front of the face, like vanilla smooth lighting.
+     */
+    private static void shadeQuad(MeshBuilder mb, BlockSource src,
+                                  BlockSource west, BlockSource east, BlockSource north, BlockSource south,
+                                  int x, int y, int z, int dx, int dy, int dz) {
+        int fx = x + dx, fy = y + dy, fz = z + dz;
+        int front = cell(src, west, east, north, south, fx, fy, fz);
+        // tangent axes of the face: a1 is x or y, a2 is y or z; (t1x, t1y, 0) and (0, t2y, t2z) step along them
+        int a1 = dx != 0 ? 1 : 0;
+        int a2 = dz != 0 ? 1 : 2;
+        int t1x = a1 == 0 ? 1 : 0, t1y = 1 - t1x;
+        int t2y = a2 == 1 ? 1 : 0, t2z = 1 - t2y;
+        int b1 = a1 == 0 ? x : y, b2 = a2 == 1 ? y : z;
+        for (int c = 0; c < 4; c++) {
+            int v = mb.vertexCount() - 4 + c;
+            if ((front & CELL_OCCLUDER) != 0) {
+                // the capped cut of a slice: nothing in front to take light from
+                mb.shade(v, 15 << 4, 3);
+                continue;
+            }
+            // step towards the corner along each tangent axis
+            int o1 = mb.pos(v, a1) > b1 ? 1 : -1;
+            int o2 = mb.pos(v, a2) > b2 ? 1 : -1;
+            int s1x = fx + t1x * o1, s1y = fy + t1y * o1;
+            int s2y = fy + t2y * o2, s2z = fz + t2z * o2;
+            int side1 = cell(src, west, east, north, south, s1x, s1y, fz);
+            int side2 = cell(src, west, east, north, south, fx, s2y, s2z);
+            int corner = cell(src, west, east, north, south, s1x, s1y + t2y * o2, s2z);
+            boolean o1c = (side1 & CELL_OCCLUDER) != 0, o2c = (side2 & CELL_OCCLUDER) != 0;
+            boolean occC = (corner & CELL_OCCLUDER) != 0 || (o1c && o2c);
+            int ao = (o1c && o2c) ? 0 : 3 - (o1c ? 1 : 0) - (o2c ? 1 : 0) - (occC ? 1 : 0);
+
+            int sky = (front >> 4) & 15, blk = front & 15, n = 1;
+            if (!o1c) { sky += (side1 >> 4) & 15; blk += side1 & 15; n++; }
+            if (!o2c) { sky += (side2 >> 4) & 15; blk += side2 & 15; n++; }
+            if (!occC) { sky += (corner >> 4) & 15; blk += corner & 15; n++; }
+            mb.shade(v, (((sky + n / 2) / n) << 4) | ((blk + n / 2) / n), ao);
+        }
     }
 
-    private static int faceXNeg(ArrayList<Float> v, ArrayList<Float> n, ArrayList<Float> uv, ArrayList<Float> col,
-                                ArrayList<Integer> idx, int index, int x, int y, int z, UVRect r, float cr, float cg, float cb) {
-        float fx = x;
-        return quad(v, n, uv, col, idx, index,
-                fx, y, z,
-                fx, y + 1, z,
-                fx, y + 1, z + 1,
-                fx, y, z + 1,
-                -1, 0, 0, r, cr, cg, cb);
+    private static void faceXNeg(MeshBuilder mb, int x, int y, int z, int tile, int tilesPerRow, int tint) {
+        mb.quad(x, y, z,
+                x, y + 1, z,
+                x, y + 1, z + 1,
+                x, y, z + 1,
+                Face.WEST.ordinal(), tile % tilesPerRow, tile / tilesPerRow, tint);
     }
 
-    private static int faceXPos(ArrayList<Float> v, ArrayList<Float> n, ArrayList<Float> uv, ArrayList<Float> col,
-                                ArrayList<Integer> idx, int index, int x, int y, int z, UVRect r, float cr, float cg, float cb) {
-        float fx = x + 1;
-        return quad(v, n, uv, col, idx, index,
-                fx, y, z + 1,
+    private static void faceXPos(MeshBuilder mb, int x, int y, int z, int tile, int tilesPerRow, int tint) {
+        int fx = x + 1;
+        mb.quad(fx, y, z + 1,
                 fx, y + 1, z + 1,
                 fx, y + 1, z,
                 fx, y, z,
-                1, 0, 0, r, cr, cg, cb);
+                Face.EAST.ordinal(), tile % tilesPerRow, tile / tilesPerRow, tint);
     }
 
-    private static int faceZNeg(ArrayList<Float> v, ArrayList<Float> n, ArrayList<Float> uv, ArrayList<Float> col,
-                                ArrayList<Integer> idx, int index, int x, int y, int z, UVRect r, float cr, float cg, float cb) {
-        float fz = z;
-        return quad(v, n, uv, col, idx, index,
-                x + 1, y, fz,
-                x + 1, y + 1, fz,
-                x, y + 1, fz,
-                x, y, fz,
-                0, 0, -1, r, cr, cg, cb);
+    private static void faceZNeg(MeshBuilder mb, int x, int y, int z, int tile, int tilesPerRow, int tint) {
+        mb.quad(x + 1, y, z,
+                x + 1, y + 1, z,
+                x, y + 1, z,
+                x, y, z,
+                Face.NORTH.ordinal(), tile % tilesPerRow, tile / tilesPerRow, tint);
     }
 
-    private static int faceZPos(ArrayList<Float> v, ArrayList<Float> n, ArrayList<Float> uv, ArrayList<Float> col,
-                                ArrayList<Integer> idx, int index, int x, int y, int z, UVRect r, float cr, float cg, float cb) {
-        float fz = z + 1;
-        return quad(v, n, uv, col, idx, index,
-                x, y, fz,
+    private static void faceZPos(MeshBuilder mb, int x, int y, int z, int tile, int tilesPerRow, int tint) {
+        int fz = z + 1;
+        mb.quad(x, y, fz,
                 x, y + 1, fz,
                 x + 1, y + 1, fz,
                 x + 1, y, fz,
-                0, 0, 1, r, cr, cg, cb);
+                Face.SOUTH.ordinal(), tile % tilesPerRow, tile / tilesPerRow, tint);
     }
 
-    private static int faceYNeg(ArrayList<Float> v, ArrayList<Float> n, ArrayList<Float> uv, ArrayList<Float> col,
-                                ArrayList<Integer> idx, int index, int x, int y, int z, UVRect r, float cr, float cg, float cb) {
-        float fy = y;
-        return quad(v, n, uv, col, idx, index,
-                x, fy, z + 1,
-                x + 1, fy, z + 1,
-                x + 1, fy, z,
-                x, fy, z,
-                0, -1, 0, r, cr, cg, cb);
+    private static void faceYNeg(MeshBuilder mb, int x, int y, int z, int tile, int tilesPerRow, int tint) {
+        mb.quad(x, y, z + 1,
+                x + 1, y, z + 1,
+                x + 1, y, z,
+                x, y, z,
+                Face.DOWN.ordinal(), tile % tilesPerRow, tile / tilesPerRow, tint);
     }
 
-    private static int faceYPos(ArrayList<Float> v, ArrayList<Float> n, ArrayList<Float> uv, ArrayList<Float> col,
-                                ArrayList<Integer> idx, int index, int x, int y, int z, UVRect r, float cr, float cg, float cb) {
-        float fy = y + 1;
-        return quad(v, n, uv, col, idx, index,
-                x, fy, z,
+    private static void faceYPos(MeshBuilder mb, int x, int y, int z, int tile, int tilesPerRow, int tint) {
+        int fy = y + 1;
+        mb.quad(x, fy, z,
                 x + 1, fy, z,
                 x + 1, fy, z + 1,
                 x, fy, z + 1,
-                0, 1, 0, r, cr, cg, cb);
+                Face.UP.ordinal(), tile % tilesPerRow, tile / tilesPerRow, tint);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,264 @@
+package voxmap.render;
+
+import java.util.Arrays;
+
+/**
+ * Growable primitive buffers for building a {@link ChunkMesh} without boxing.
+ */
+final class MeshBuilder {
+
+    private short[] pos;
+    private byte[] faces;
+    private short[] uvs;
+    private byte[] tints;
+    private int[] idx;
+    private float[] emitters;
+    private short[] instances;
+    // baked lighting, per vertex; null unless enableLight() was called
+    private byte[] light;
+    private byte[] ao;
+    // render layer per quad (ChunkMesh.LAYER_*), set by layer() before the quads
+    private byte[] quadLayer;
+    private int layer;
+
+    private int vertexCount;
+    private int indexCount;
+    private int emitterFloats;
+    private int instanceShorts;
+
+    // edge of the grid cells emitters are merged in (see clusterEmitters)
+    static final int EMITTER_CELL = 8;
+
+    // section boundaries, recorded by beginSection()
+    private int minSection = Integer.MIN_VALUE;
+    private int sectionCount;
+    private int[] secVertex = new int[32];
+    private int[] secIndex = new int[32];
+    private int[] secEmitter = new int[32];
+    private int[] secInstance = new int[32];
+
+    MeshBuilder(int quadCapacity) {
+        int vc = Math.max(4, quadCapacity * 4);
+        pos = new short[vc * 3];
+        faces = new byte[vc];
+        uvs = new short[vc * 2];
+        tints = new byte[vc];
+        idx = new int[quadCapacity * 6 + 6];
+        quadLayer = new byte[idx.length / 6];
+        emitters = new float[64];
+        instances = new short[64];
+    }
+
+    int vertexCount() { return vertexCount; }
+
+    /** Records baked light and AO for every vertex from now on (see {@link #shade}). */
+    void enableLight() {
+        light = new byte[faces.length];
+        ao = new byte[faces.length];
+    }
+
+    boolean hasLight() { return light != null; }
+
+    /** Position component (0 = x, 1 = y, 2 = z) of a vertex. */
+    int pos(int vertex, int axis) { return pos[vertex * 3 + axis]; }
+
+    /** Light ((sky << 4) | block) and ambient occlusion (0..3, 3 = open) of a vertex. */
+    void shade(int vertex, int packedLight, int occlusion) {
+        light[vertex] = (byte) packedLight;
+        ao[vertex] = (byte) occlusion;
+    }
+
+    /** Render layer of the quads added from now on (see {@link ChunkMesh#LAYER_OPAQUE}). */
+    void layer(int layer) { this.layer = layer; }
+
+    /** Starts the next 16-high section; sections must be started in ascending order. */
+    void beginSection(int sectionY) {
+        if (sectionCount == 0) minSection = sectionY;
+        if (secVertex.length < sectionCount + 2) {
+            int n = secVertex.length * 2;
+            secVertex = Arrays.copyOf(secVertex, n);
+            secIndex = Arrays.copyOf(secIndex, n);
+            secEmitter = Arrays.copyOf(secEmitter, n);
+            secInstance = Arrays.copyOf(secInstance, n);
+        }
+        secVertex[sectionCount] = vertexCount;
+        secIndex[sectionCount] = indexCount;
+        secEmitter[sectionCount] = emitterFloats;
+        secInstance[sectionCount] = instanceShorts;
+        sectionCount++;
+    }
+
+    private void ensureQuad() {
+        if (faces.length < vertexCount + 4) {
+            int n = Math.max(faces.length * 2, vertexCount + 4);
+            pos = Arrays.copyOf(pos, n * 3);
+            faces = Arrays.copyOf(faces, n);
+            uvs = Arrays.copyOf(uvs, n * 2);
+            tints = Arrays.copyOf(tints, n);
+            if (light != null) {
+                light = Arrays.copyOf(light, n);
+                ao = Arrays.copyOf(ao, n);
+            }
+        }
+        if (idx.length < indexCount + 6) {
+            idx = Arrays.copyOf(idx, Math.max(idx.length * 2, indexCount + 6));
+            quadLayer = Arrays.copyOf(quadLayer, idx.length / 6);
+        }
+    }
+
+    /**
+     * Appends one quad. Corners are given in the order the mesher always used
+     * (uv corners: u0v1, u0v0, u1v0, u1v1), tile coordinates are the tile's
+     * column/row in the atlas grid.
+     */
+    void quad(int x0, int y0, int z0,
+              int x1, int y1, int z1,
+              int x2, int y2, int z2,
+              int x3, int y3, int z3,
+              int face, int tileU, int tileV, int tint) {
+        ensureQuad();
+        int base = vertexCount;
+        int p = base * 3;
+        pos[p]     = (short) x0; pos[p + 1]  = (short) y0; pos[p + 2]  = (short) z0;
+        pos[p + 3] = (short) x1; pos[p + 4]  = (short) y1; pos[p + 5]  = (short) z1;
+        pos[p + 6] = (short) x2; pos[p + 7]  = (short) y2; pos[p + 8]  = (short) z2;
+        pos[p + 9] = (short) x3; pos[p + 10] = (short) y3; pos[p + 11] = (short) z3;
+
+        int u = base * 2;
+        uvs[u]     = (short) tileU;       uvs[u + 1] = (short) (tileV + 1);
+        uvs[u + 2] = (short) tileU;       uvs[u + 3] = (short) tileV;
+        uvs[u + 4] = (short) (tileU + 1); uvs[u + 5] = (short) tileV;
+        uvs[u + 6] = (short) (tileU + 1); uvs[u + 7] = (short) (tileV + 1);
+
+        for (int i = 0; i < 4; i++) {
+            faces[base + i] = (byte) face;
+            tints[base + i] = (byte) tint;
+        }
+
+        quadLayer[indexCount / 6] = (byte) layer;
+        // CCW winding (fixed earlier)
+        idx[indexCount++] = base; idx[indexCount++] = base + 2; idx[indexCount++] = base + 1;
+        idx[indexCount++] = base; idx[indexCount++] = base + 3; idx[indexCount++] = base + 2;
+
+        vertexCount += 4;
+    }
+
+    void emitter(float x, float y, float z, float intensity) {
+        if (emitters.length < emitterFloats + 4) emitters = Arrays.copyOf(emitters, emitters.length * 2);
+        emitters[emitterFloats++] = x;
+        emitters[emitterFloats++] = y;
+        emitters[emitterFloats++] = z;
+        emitters[emitterFloats++] = intensity;
+    }
+
+    /** Appends one {@link BlockModels} instance (layout: see {@link ChunkMesh#instances}). */
+    void instance(int model, int state, int x, int y, int z, int tint, int tile) {
+        if (instances.length < instanceShorts + 4) instances = Arrays.copyOf(instances, instances.length * 2);
+        instances[instanceShorts++] = (short) (model | state << 8);
+        instances[instanceShorts++] = (short) (x | z << 4 | tint << 8);
+        instances[instanceShorts++] = (short) y;
+        instances[instanceShorts++] = (short) tile;
+    }
+
+    /**
+     * Merges the emitters of each section into one weighted light per
+     * {@value #EMITTER_CELL}-block cell: intensity-weighted centre, summed intensity.
+     * A lit base then sends a handful of lights per section instead of one per torch.
+     */
+    private void clusterEmitters() {
+        if (emitterFloats == 0) return;
+        float[] out = new float[emitterFloats];
+        int n = 0;
+        int sections = Math.max(1, sectionCount);
+        for (int s = 0; s < sections; s++) {
+            int e0 = sectionCount == 0 ? 0 : secEmitter[s];
+            int e1 = sectionCount == 0 || s + 1 == sectionCount ? emitterFloats : secEmitter[s + 1];
+            if (sectionCount > 0) secEmitter[s] = n;
+            // cell -> slot in out (first-seen order keeps the output deterministic)
+            java.util.HashMap<Integer, Integer> cells = new java.util.HashMap<>();
+            for (int i = e0; i < e1; i += 4) {
+                float x = emitters[i], y = emitters[i + 1], z = emitters[i + 2], w = emitters[i + 3];
+                int cell = (((int) Math.floor(y / EMITTER_CELL) & 0x3ff) << 8)
+                        | (((int) x / EMITTER_CELL) << 4) | ((int) z / EMITTER_CELL);
+                Integer slot = cells.get(cell);
+                if (slot == null) {
+                    cells.put(cell, n);
+                    out[n] = x * w; out[n + 1] = y * w; out[n + 2] = z * w; out[n + 3] = w;
+                    n += 4;
+                } else {
+                    out[slot] += x * w; out[slot + 1] += y * w; out[slot + 2] += z * w; out[slot + 3] += w;
+                }
+            }
+            for (int i = sectionCount == 0 ? 0 : secEmitter[s]; i < n; i += 4) {
+                float w = out[i + 3];
+                if (w <= 0) continue;
+                out[i] /= w; out[i + 1] /= w; out[i + 2] /= w;
+            }
+        }
+        emitters = out;
+        emitterFloats = n;
+    }
+
+    /**
+     * Reorders the quads of each section (the whole mesh when unsectioned) by render layer,
+     * keeping their order within a layer. Returns where the cutout and translucent quads of
+     * each section start, as indices.
+     */
+    private int[] sortLayers() {
+        int sections = Math.max(1, sectionCount);
+        int[] starts = new int[sections * 2];
+        int[] sorted = new int[indexCount];
+        for (int s = 0; s < sections; s++) {
+            int i0 = sectionCount == 0 ? 0 : secIndex[s];
+            int i1 = sectionCount == 0 || s + 1 == sectionCount ? indexCount : secIndex[s + 1];
+            int out = i0;
+            for (int l = 0; l < ChunkMesh.LAYERS; l++) {
+                if (l > 0) starts[s * 2 + l - 1] = out;
+                for (int i = i0; i < i1; i += 6) {
+                    if (quadLayer[i / 6] != l) continue;
+                    System.arraycopy(idx, i, sorted, out, 6);
+                    out += 6;
+                }
+            }
+        }
+        System.arraycopy(sorted, 0, idx, 0, indexCount);
+        return starts;
+    }
+
+    ChunkMesh build() {
+        clusterEmitters();
+        int[] layerStart = sortLayers();
+        short[] i16 = null;
+        int[] i32 = null;
+        if (vertexCount <= 0x10000) {
+            i16 = new short[indexCount];
+            for (int i = 0; i < indexCount; i++) i16[i] = (short) idx[i];
+        } else {
+            i32 = Arrays.copyOf(idx, indexCount);
+        }
+        ChunkMesh.Sections sections = null;
+        if (sectionCount > 0) {
+            int[] vs = Arrays.copyOf(secVertex, sectionCount + 1);
+            int[] is = Arrays.copyOf(secIndex, sectionCount + 1);
+            int[] es = Arrays.copyOf(secEmitter, sectionCount + 1);
+            int[] ns = Arrays.copyOf(secInstance, sectionCount + 1);
+            vs[sectionCount] = vertexCount;
+            is[sectionCount] = indexCount;
+            es[sectionCount] = emitterFloats;
+            ns[sectionCount] = instanceShorts;
+            sections = new ChunkMesh.Sections(minSection, vs, is, es, ns, layerStart, null);
+        }
+        return new ChunkMesh(
+                Arrays.copyOf(pos, vertexCount * 3),
+                Arrays.copyOf(faces, vertexCount),
+                Arrays.copyOf(uvs, vertexCount * 2),
+                Arrays.copyOf(tints, vertexCount),
+                i16, i32,
+                Arrays.copyOf(emitters, emitterFloats),
+                Arrays.copyOf(instances, instanceShorts),
+                sections,
+                light == null ? null : Arrays.copyOf(light, vertexCount),
+                ao == null ? null : Arrays.copyOf(ao, vertexCount)
+        );
+    }
+}
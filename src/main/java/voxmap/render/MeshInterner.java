@@ -0,0 +1,102 @@
+package voxmap.render;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets byte-identical chunk meshes (ocean, superflat, void columns) share one set of arrays.
+ * Meshes are keyed by a hash of their chunk-local geometry; a hit is only used after a full
+ * comparison, so a hash collision costs a miss, never a wrong mesh.
+ *
+ * Entries are weak: the registered mesh is one of the cached ones, and once no cache holds it
+ * the next identical mesh takes its place.
+ */
+public final class MeshInterner {
+
+    private static final class Entry extends WeakReference<ChunkMesh> {
+        final long hash;
+
+        Entry(long hash, ChunkMesh mesh, ReferenceQueue<ChunkMesh> q) {
+            super(mesh, q);
+            this.hash = hash;
+        }
+    }
+
+    private final Map<Long, Entry> byHash = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ChunkMesh> cleared = new ReferenceQueue<>();
+
+    /**
+     * A mesh with the geometry of {@code fresh}: a registered identical one (its arrays can be
+     * shared, e.g. via {@link ChunkMesh#withSectionVersions}) or {@code fresh} itself.
+     */
+    public ChunkMesh share(long hash, ChunkMesh fresh) {
+        expunge();
+        Entry e = byHash.get(hash);
+        ChunkMesh known = e == null ? null : e.get();
+        return known != null && sameGeometry(known, fresh) ? known : fresh;
+    }
+
+    /** Registers a cached mesh as the one to share for its hash, unless a live one is registered. */
+    public void remember(long hash, ChunkMesh cached) {
+        byHash.compute(hash, (h, e) -> e != null && e.get() != null ? e : new Entry(h, cached, cleared));
+    }
+
+    /** Registered hashes whose mesh is still alive (roughly: distinct meshes shared). */
+    public int size() {
+        expunge();
+        return byHash.size();
+    }
+
+    private void expunge() {
+        for (Object r; (r = cleared.poll()) != null; ) {
+            Entry e = (Entry) r;
+            byHash.remove(e.hash, e);
+        }
+    }
+
+    /** Hash of a mesh's geometry, section layout included (versions excluded). */
+    public static long hash(ChunkMesh m) {
+        long h = 0xcbf29ce484222325L;
+        h = mix(h, m.vertexCount());
+        for (short s : m.positions) h = mix(h, s);
+        for (short s : m.uvs) h = mix(h, s);
+        for (byte b : m.faces) h = mix(h, b);
+        for (byte b : m.tints) h = mix(h, b);
+        for (int i = 0, n = m.indexCount(); i < n; i++) h = mix(h, m.index(i));
+        for (float f : m.emitters) h = mix(h, Float.floatToIntBits(f));
+        for (short s : m.instances) h = mix(h, s);
+        if (m.light != null) {
+            for (byte b : m.light) h = mix(h, b);
+            for (byte b : m.ao) h = mix(h, b);
+        }
+        ChunkMesh.Sections s = m.sections;
+        if (s != null) {
+            h = mix(h, s.minSection());
+            for (int i = 0; i <= s.count(); i++) {
+                h = mix(h, s.vertexStart()[i]);
+                h = mix(h, s.indexStart()[i]);
+            }
+        }
+        return h;
+    }
+
+    private static long mix(long h, int v) {
+        return (h ^ v) * 0x100000001b3L;
+    }
+
+    /** True when both meshes hold the same sections with the same geometry. */
+    static boolean sameGeometry(ChunkMesh a, ChunkMesh b) {
+        if (a == b) return true;
+        ChunkMesh.Sections sa = a.sections, sb = b.sections;
+        if (sa == null || sb == null) return false;
+        if (sa.minSection() != sb.minSection() || sa.count() != sb.count()) return false;
+        if ((a.indices16 == null) != (b.indices16 == null)) return false;
+        for (int i = 0; i < sa.count(); i++) {
+            if (sa.vertexStart()[i] != sb.vertexStart()[i] || sa.indexStart()[i] != sb.indexStart()[i]) return false;
+            if (!ChunkMesh.sameSection(a, i, b, i)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,373 @@
+package voxmap.render;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Persistent chunk meshes on disk, written by the offline renderer (and kept current by the
+ * plugin) so chunks that aren't loaded can still be served.
+ *
+ * Layout: {@code <root>/<world>/store.properties} plus one file per 32x32 region:
+ * <pre>
+ * r.&lt;rx&gt;.&lt;rz&gt;.vxr:
+ *   u32 magic "VXR1", u32 reserved
+ *   1024 x { u32 offset, u32 length }   (index = (cz &amp; 31) * 32 + (cx &amp; 31); length 0 = absent)
+ *   deflated {@link ChunkMeshCodec#encodeSections} containers, versions zeroed
+ * </pre>
+ * Containers are content-addressed within a file: chunks with identical meshes (ocean,
+ * superflat, void) point at one copy.
+ * Tile coordinates in a mesh are only valid for the atlas they were built with, so each world
+ * records the atlas fingerprint and mesh format; a store built for another atlas is ignored
+ * and replaced on the next write.
+ */
+public class MeshStore {
+
+    /** Bump when the mesher's output changes for the same blocks. */
+    public static final int FORMAT = 4;
+
+    private static final int MAGIC = 0x31525856; // "VXR1" little-endian
+    private static final int HEADER = 8 + 1024 * 8;
+
+    private final File root;
+    private final java.util.function.Supplier<String> atlasFingerprint; // "" until the atlas is built
+    private final Logger log;
+
+    // world -> compatible?
+    private final Map<String, Boolean> compatible = new ConcurrentHashMap<>();
+    // region files, striped by region: reads share a lock, replacing a file takes it exclusively.
+    // A reader always takes the index from the file it has open, so it never pairs an old
+    // index with a new file.
+    private final ReadWriteLock[] fileLocks = new ReadWriteLock[64];
+
+    // write-behind: "world/rx,rz" -> chunk index -> mesh (TOMBSTONE = remove)
+    private static final ChunkMesh TOMBSTONE = new ChunkMesh(new short[0], new byte[0], new short[0], new byte[0],
+            new short[0], null, new float[0]);
+    private final Map<String, Map<Integer, ChunkMesh>> pending = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Voxmap-MeshStore");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public MeshStore(File root, String atlasFingerprint, Logger log) {
+        this(root, () -> atlasFingerprint, log);
+    }
+
+    /** For an atlas still being built: nothing is read or claimed before the fingerprint is known. */
+    public MeshStore(File root, java.util.function.Supplier<String> atlasFingerprint, Logger log) {
+        this.root = root;
+        this.atlasFingerprint = atlasFingerprint;
+        this.log = log;
+        for (int i = 0; i < fileLocks.length; i++) fileLocks[i] = new ReentrantReadWriteLock();
+    }
+
+    public File getRoot() { return root; }
+
+    private File worldDir(String world) {
+        return new File(root, world);
+    }
+
+    private static String regionKey(String world, int rx, int rz) {
+        return world + "/" + rx + "," + rz;
+    }
+
+    private ReadWriteLock fileLock(String world, int rx, int rz) {
+        return fileLocks[Math.floorMod(regionKey(world, rx, rz).hashCode(), fileLocks.length)];
+    }
+
+    private File regionFile(String world, int rx, int rz) {
+        return new File(worldDir(world), "r." + rx + "." + rz + ".vxr");
+    }
+
+    private boolean isCompatible(String world) {
+        String fp = atlasFingerprint.get();
+        if (fp.isEmpty()) return false;
+        return compatible.computeIfAbsent(world, w -> {
+            Properties p = new Properties();
+            File f = new File(worldDir(w), "store.properties");
+            if (!f.isFile()) return false;
+            try (InputStream in = new FileInputStream(f)) {
+                p.load(in);
+            } catch (IOException e) {
+                return false;
+            }
+            return fp.equals(p.getProperty("atlas"))
+                    && String.valueOf(FORMAT).equals(p.getProperty("format"));
+        });
+    }
+
+    /** Makes the world's directory match this store's atlas, clearing meshes built for another one. */
+    private synchronized void claim(String world) throws IOException {
+        if (isCompatible(world)) return;
+        String fp = atlasFingerprint.get();
+        if (fp.isEmpty()) throw new IOException("texture atlas is not ready");
+        File dir = worldDir(world);
+        File[] old = dir.listFiles((d, n) -> n.endsWith(".vxr"));
+        if (old != null) for (File f : old) Files.deleteIfExists(f.toPath());
+        dir.mkdirs();
+        Properties p = new Properties();
+        p.setProperty("atlas", fp);
+        p.setProperty("format", String.valueOf(FORMAT));
+        try (OutputStream out = new FileOutputStream(new File(dir, "store.properties"))) {
+            p.store(out, "Voxmap mesh store");
+        }
+        compatible.put(world, true);
+    }
+
+    /** Stored mesh for a chunk, or null when there is none (or the store doesn't match the atlas). */
+    public ChunkMesh get(String world, int cx, int cz) throws IOException {
+        if (!isCompatible(world)) return null;
+        int rx = cx >> 5, rz = cz >> 5;
+        int slot = (cz & 31) * 32 + (cx & 31);
+
+        Map<Integer, ChunkMesh> queued = pending.get(regionKey(world, rx, rz));
+        if (queued != null) {
+            ChunkMesh m = queued.get(slot);
+            if (m != null) return m == TOMBSTONE ? null : m;
+        }
+
+        File f = regionFile(world, rx, rz);
+        byte[] buf;
+        Lock lock = fileLock(world, rx, rz).readLock();
+        lock.lock();
+        try {
+            if (!f.isFile()) return null;
+            try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+                int[] index = readIndex(raf);
+                int off = index[slot * 2], len = index[slot * 2 + 1];
+                if (len == 0) return null;
+                buf = new byte[len];
+                raf.seek(off & 0xFFFFFFFFL);
+                raf.readFully(buf);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return ChunkMeshCodec.decodeSections(inflate(buf));
+    }
+
+    private static int[] readIndex(RandomAccessFile raf) throws IOException {
+        byte[] h = new byte[HEADER];
+        raf.seek(0);
+        raf.readFully(h);
+        ByteBuffer bb = ByteBuffer.wrap(h).order(ByteOrder.LITTLE_ENDIAN);
+        if (bb.getInt() != MAGIC) throw new IOException("Not a VXR1 region file");
+        bb.getInt();
+        int[] index = new int[2048];
+        bb.asIntBuffer().get(index);
+        return index;
+    }
+
+    /** Regions stored for a world as {rx, rz} pairs (empty when the store doesn't match the atlas). */
+    public List<int[]> regions(String world) {
+        List<int[]> out = new ArrayList<>();
+        if (!isCompatible(world)) return out;
+        File[] files = worldDir(world).listFiles((d, n) -> n.startsWith("r.") && n.endsWith(".vxr"));
+        if (files == null) return out;
+        for (File f : files) {
+            String[] p = f.getName().split("\\.");
+            if (p.length != 4) continue;
+            try {
+                out.add(new int[]{Integer.parseInt(p[1]), Integer.parseInt(p[2])});
+            } catch (NumberFormatException ignored) {}
+        }
+        return out;
+    }
+
+    /**
+     * Every stored mesh of a region (index = (cz &amp; 31) * 32 + (cx &amp; 31), null = absent),
+     * queued writes included; one file read instead of one per chunk.
+     */
+    public ChunkMesh[] getRegion(String world, int rx, int rz) throws IOException {
+        ChunkMesh[] out = new ChunkMesh[1024];
+        if (!isCompatible(world)) return out;
+        byte[][] blobs = readBlobs(world, rx, rz);
+        for (int i = 0; i < blobs.length; i++) {
+            if (blobs[i] != null) out[i] = ChunkMeshCodec.decodeSections(inflate(blobs[i]));
+        }
+        Map<Integer, ChunkMesh> queued = pending.get(regionKey(world, rx, rz));
+        if (queued != null) {
+            for (var e : queued.entrySet()) out[e.getKey()] = e.getValue() == TOMBSTONE ? null : e.getValue();
+        }
+        return out;
+    }
+
+    /**
+     * The encoded {@link ChunkMeshCodec#encodeSections} container of every stored chunk in a
+     * region (index = (cz &amp; 31) * 32 + (cx &amp; 31), null = absent), without decoding meshes.
+     */
+    public byte[][] regionSections(String world, int rx, int rz) throws IOException {
+        if (!isCompatible(world)) return new byte[1024][];
+        byte[][] blobs = readBlobs(world, rx, rz);
+        for (int i = 0; i < blobs.length; i++) if (blobs[i] != null) blobs[i] = inflate(blobs[i]);
+        return blobs;
+    }
+
+    /**
+     * Writes a whole region at once (used by the offline renderer); meshes[slot] may be null.
+     * Replaces whatever was stored for that region.
+     */
+    public void putRegion(String world, int rx, int rz, ChunkMesh[] meshes) throws IOException {
+        byte[][] blobs = new byte[1024][];
+        for (int i = 0; i < 1024; i++) {
+            if (meshes[i] != null) blobs[i] = encode(meshes[i]);
+        }
+        claim(world);
+        writeRegion(world, rx, rz, blobs);
+    }
+
+    /** Queues a chunk's mesh to be persisted in the background. */
+    public void putAsync(String world, int cx, int cz, ChunkMesh mesh) {
+        queue(world, cx, cz, mesh);
+    }
+
+    /** Queues removal of a chunk's stored mesh (e.g. it changed and wasn't re-meshed). */
+    public void removeAsync(String world, int cx, int cz) {
+        queue(world, cx, cz, TOMBSTONE);
+    }
+
+    private void queue(String world, int cx, int cz, ChunkMesh mesh) {
+        int rx = cx >> 5, rz = cz >> 5;
+        String key = regionKey(world, rx, rz);
+        Map<Integer, ChunkMesh> region = pending.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+        boolean first = region.isEmpty();
+        region.put((cz & 31) * 32 + (cx & 31), mesh);
+        if (first) writer.execute(() -> flushRegion(world, rx, rz));
+    }
+
+    private void flushRegion(String world, int rx, int rz) {
+        String key = regionKey(world, rx, rz);
+        Map<Integer, ChunkMesh> region = pending.get(key);
+        if (region == null || region.isEmpty()) return;
+        try {
+            claim(world);
+            byte[][] blobs = readBlobs(world, rx, rz);
+            // snapshot the queued entries; anything queued meanwhile triggers another flush
+            Map<Integer, ChunkMesh> batch = new HashMap<>(region);
+            for (var e : batch.entrySet()) {
+                ChunkMesh m = e.getValue();
+                blobs[e.getKey()] = m == TOMBSTONE ? null : encode(m);
+            }
+            writeRegion(world, rx, rz, blobs);
+            for (var e : batch.entrySet()) region.remove(e.getKey(), e.getValue());
+        } catch (Exception e) {
+            region.clear();
+            log.warning("Mesh store write failed for " + key + ": " + e.getMessage());
+        }
+        if (!region.isEmpty()) writer.execute(() -> flushRegion(world, rx, rz));
+        else pending.remove(key, region);
+    }
+
+    private byte[][] readBlobs(String world, int rx, int rz) throws IOException {
+        byte[][] blobs = new byte[1024][];
+        File f = regionFile(world, rx, rz);
+        Lock lock = fileLock(world, rx, rz).readLock();
+        lock.lock();
+        try {
+            if (!f.isFile()) return blobs;
+            try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+                int[] index = readIndex(raf);
+                for (int i = 0; i < 1024; i++) {
+                    int len = index[i * 2 + 1];
+                    if (len == 0) continue;
+                    blobs[i] = new byte[len];
+                    raf.seek(index[i * 2] & 0xFFFFFFFFL);
+                    raf.readFully(blobs[i]);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return blobs;
+    }
+
+    // versionless, so identical meshes of different chunks give identical blobs
+    private static byte[] encode(ChunkMesh mesh) {
+        return deflate(ChunkMeshCodec.withoutVersions(ChunkMeshCodec.encodeSections(mesh, null, 0)));
+    }
+
+    private void writeRegion(String world, int rx, int rz, byte[][] blobs) throws IOException {
+        File f = regionFile(world, rx, rz);
+        File tmp = new File(f.getParentFile(), f.getName() + ".tmp");
+        ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(0);
+        // each distinct blob is written once, duplicates share its offset
+        Map<ByteBuffer, Integer> written = new HashMap<>();
+        List<byte[]> body = new ArrayList<>();
+        long off = HEADER;
+        for (byte[] b : blobs) {
+            if (b == null) { header.putInt(0).putInt(0); continue; }
+            Integer at = written.get(ByteBuffer.wrap(b));
+            if (at == null) {
+                at = (int) off;
+                written.put(ByteBuffer.wrap(b), at);
+                body.add(b);
+                off += b.length;
+            }
+            header.putInt(at).putInt(b.length);
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16)) {
+            out.write(header.array());
+            for (byte[] b : body) out.write(b);
+        }
+        Lock lock = fileLock(world, rx, rz).writeLock();
+        lock.lock();
+        try {
+            Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater d = new Deflater(Deflater.BEST_SPEED);
+        d.setInput(raw);
+        d.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+        byte[] buf = new byte[16384];
+        while (!d.finished()) out.write(buf, 0, d.deflate(buf));
+        d.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] packed) throws IOException {
+        Inflater inf = new Inflater();
+        inf.setInput(packed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(packed.length * 4);
+        byte[] buf = new byte[16384];
+        try {
+            while (!inf.finished()) {
+                int n = inf.inflate(buf);
+                if (n == 0 && (inf.needsInput() || inf.needsDictionary())) throw new IOException("Truncated mesh blob");
+                out.write(buf, 0, n);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt mesh blob", e);
+        } finally {
+            inf.end();
+        }
+        return out.toByteArray();
+    }
+
+    /** Waits for queued writes (bounded) and stops the writer. */
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package voxmap.render;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+import voxmap.metrics.RenderMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opt-in (warm.enabled) background pre-meshing, so the first viewer of freshly explored land
+ * doesn't wait for the mesher.
+ *
+ * Loaded chunks around online players (warm.radiusChunks) and spawn (warm.spawnRadiusChunks)
+ * are queued nearest-first. A job is only handed to the mesher pool while no viewer request
+ * is queued there, and at most warm.maxThreads run at once, so warming never delays a viewer
+ * and never takes more than that many cores.
+ *
+ * Viewer requests are tallied per mesh store region (32 x 32 chunks) into warm.yml, off the
+ * main thread; at startup the most viewed regions (warm.startupRegions per world) are read
+ * from the mesh store into memory.
+ */
+public class MeshWarmer {
+
+    private record Job(String world, int cx, int cz, int prio, long seq) {}
+
+    private static final Comparator<Job> ORDER = Comparator.comparingInt(Job::prio).thenComparingLong(Job::seq);
+
+    private final JavaPlugin plugin;
+    private final ChunkMeshCacheService cache;
+    private final ChunkMeshService meshes;
+    private final File statsFile;
+
+    // main thread only (size() aside)
+    private final PriorityQueue<Job> queue = new PriorityQueue<>(ORDER);
+    private final Map<String, Map<Long, Integer>> queued = new HashMap<>(); // world -> key -> best queued prio
+    private long seq;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // world -> region key -> view score; guarded by itself (tallied on async tasks)
+    private final Map<String, Map<Long, Double>> scores = new HashMap<>();
+    private long lastTally = System.currentTimeMillis(); // main thread
+    private long snapshots; // guarded by scores
+    private long written;   // guarded by statsFile
+
+    private BukkitTask pumpTask, tallyTask;
+
+    public MeshWarmer(JavaPlugin plugin, ChunkMeshCacheService cache, ChunkMeshService meshes) {
+        this.plugin = Objects.requireNonNull(plugin);
+        this.cache = Objects.requireNonNull(cache);
+        this.meshes = Objects.requireNonNull(meshes);
+        this.statsFile = new File(plugin.getDataFolder(), "warm.yml");
+        RenderMetrics.gauge("voxmap_warm_queue", "Chunks waiting to be pre-meshed by the warmer.", this::size);
+    }
+
+    public boolean enabled() {
+        return plugin.getConfig().getBoolean("warm.enabled", false);
+    }
+
+    private int radius() {
+        return Math.max(0, plugin.getConfig().getInt("warm.radiusChunks", 6));
+    }
+
+    /** Main thread; the atlas must be ready (the mesh store isn't readable before). */
+    public void start() {
+        if (!enabled() || pumpTask != null) return;
+        synchronized (scores) { loadScores(); }
+        pumpTask = Bukkit.getScheduler().runTaskTimer(plugin, this::pump, 1L, 1L);
+        tallyTask = Bukkit.getScheduler().runTaskTimer(plugin, this::tally, 1200L, 1200L);
+
+        int spawnRadius = Math.max(0, plugin.getConfig().getInt("warm.spawnRadiusChunks", 4));
+        for (World w : Bukkit.getWorlds()) {
+            Location s = w.getSpawnLocation();
+            // after anything near a player
+            offerSquare(w, s.getBlockX() >> 4, s.getBlockZ() >> 4, spawnRadius, radius() + 1);
+        }
+        for (Player p : Bukkit.getOnlinePlayers()) offerAround(p);
+
+        int perWorld = Math.max(0, plugin.getConfig().getInt("warm.startupRegions", 4));
+        Map<String, List<Long>> hottest = new HashMap<>();
+        synchronized (scores) {
+            for (var e : scores.entrySet()) hottest.put(e.getKey(), new ArrayList<>(top(e.getValue(), perWorld)));
+        }
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> preload(hottest));
+    }
+
+    public void stop() {
+        if (pumpTask == null) return;
+        pumpTask.cancel();
+        tallyTask.cancel();
+        pumpTask = tallyTask = null;
+        // the plugin is disabling and can't schedule tasks any more: last tally on this thread
+        tallyAndSave(worldNames(), lastTally);
+        synchronized (this) { queue.clear(); queued.clear(); }
+    }
+
+    public synchronized long size() {
+        return queue.size();
+    }
+
+    // ------------------------------------------------------------------------------------
+    // Queue
+    // ------------------------------------------------------------------------------------
+
+    /** Queues the loaded chunks around a player; call when they enter a new chunk. */
+    public void offerAround(Player p) {
+        if (pumpTask == null) return;
+        Location l = p.getLocation();
+        offerSquare(p.getWorld(), l.getBlockX() >> 4, l.getBlockZ() >> 4, radius(), 0);
+    }
+
+    /** Queues a chunk that just loaded, if it is within reach of a player in its world. */
+    public void offerLoaded(World w, int cx, int cz) {
+        if (pumpTask == null) return;
+        int r = radius(), best = Integer.MAX_VALUE;
+        for (Player p : w.getPlayers()) {
+            Location l = p.getLocation();
+            best = Math.min(best, Math.max(Math.abs((l.getBlockX() >> 4) - cx), Math.abs((l.getBlockZ() >> 4) - cz)));
+        }
+        if (best <= r) offer(w.getName(), cx, cz, best);
+    }
+
+    private void offerSquare(World w, int ccx, int ccz, int r, int basePrio) {
+        for (int dz = -r; dz <= r; dz++) {
+            for (int dx = -r; dx <= r; dx++) {
+                if (!w.isChunkLoaded(ccx + dx, ccz + dz)) continue;
+                offer(w.getName(), ccx + dx, ccz + dz, basePrio + Math.max(Math.abs(dx), Math.abs(dz)));
+            }
+        }
+    }
+
+    private synchronized void offer(String world, int cx, int cz, int prio) {
+        Map<Long, Integer> q = queued.computeIfAbsent(world, w -> new HashMap<>());
+        long k = ChunkMeshService.columnKey(cx, cz);
+        Integer had = q.get(k);
+        if (had != null && had <= prio) return;
+        if (had == null && queue.size() >= plugin.getConfig().getInt("warm.maxQueued", 4096)) return;
+        q.put(k, prio); // a better offer re-queues; the older job is skipped when it comes up
+        queue.add(new Job(world, cx, cz, prio, seq++));
+    }
+
+    private synchronized Job poll() {
+        for (Job j; (j = queue.poll()) != null; ) {
+            Map<Long, Integer> q = queued.get(j.world);
+            long k = ChunkMeshService.columnKey(j.cx, j.cz);
+            Integer best = q == null ? null : q.get(k);
+            if (best == null || best != j.prio) continue; // superseded
+            q.remove(k);
+            return j;
+        }
+        return null;
+    }
+
+    /** Hands jobs to the mesher pool while it has nothing queued from viewers. */
+    private void pump() {
+        int cap = Math.max(1, plugin.getConfig().getInt("warm.maxThreads", 1));
+        while (inFlight.get() < cap && meshes.queueDepth() == 0) {
+            Job j = poll();
+            if (j == null) return;
+            World w = Bukkit.getWorld(j.world);
+            if (w == null || !w.isChunkLoaded(j.cx, j.cz)) continue;
+            inFlight.incrementAndGet();
+            cache.prefetch(w, j.cx, j.cz).whenComplete((built, err) -> {
+                inFlight.decrementAndGet();
+                if (Boolean.TRUE.equals(built)) RenderMetrics.WARMED.increment();
+            });
+        }
+    }
+
+    // ------------------------------------------------------------------------------------
+    // View statistics and startup preload
+    // ------------------------------------------------------------------------------------
+
+    private static long regionKey(int rx, int rz) {
+        return ChunkMeshService.columnKey(rx, rz);
+    }
+
+    private static List<String> worldNames() {
+        List<String> names = new ArrayList<>();
+        for (World w : Bukkit.getWorlds()) names.add(w.getName());
+        return names;
+    }
+
+    /** Main thread timer: hands the tally and the warm.yml write to an async task. */
+    private void tally() {
+        long since = lastTally;
+        lastTally = System.currentTimeMillis();
+        List<String> worlds = worldNames();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> tallyAndSave(worlds, since));
+    }
+
+    /** Adds the chunks viewed after {@code since} to their regions' scores and saves them. */
+    private void tallyAndSave(List<String> worlds, long since) {
+        YamlConfiguration yml;
+        long seq;
+        synchronized (scores) {
+            for (String world : worlds) {
+                Map<Long, Double> s = null;
+                for (var e : cache.viewedChunks(world).entrySet()) {
+                    if (e.getValue() <= since) continue;
+                    long k = e.getKey();
+                    int cx = (int) (k >> 32), cz = (int) k;
+                    if (s == null) s = scores.computeIfAbsent(world, n -> new HashMap<>());
+                    s.merge(regionKey(cx >> 5, cz >> 5), 1.0, Double::sum);
+                }
+            }
+            yml = snapshotScores();
+            seq = ++snapshots;
+        }
+        saveScores(yml, seq);
+    }
+
+    private static List<Long> top(Map<Long, Double> s, int n) {
+        List<Long> keys = new ArrayList<>(s.keySet());
+        keys.sort(Comparator.comparingDouble((Long k) -> s.get(k)).reversed());
+        return keys.subList(0, Math.min(n, keys.size()));
+    }
+
+    private void preload(Map<String, List<Long>> hottest) {
+        int chunks = 0, regions = 0;
+        for (var e : hottest.entrySet()) {
+            for (long k : e.getValue()) {
+                try {
+                    chunks += cache.preloadStored(e.getKey(), (int) (k >> 32), (int) k);
+                    regions++;
+                } catch (IOException ex) {
+                    plugin.getLogger().warning("Warm preload of " + e.getKey() + " region " + (int) (k >> 32) + ","
+                            + (int) k + " failed: " + ex.getMessage());
+                }
+            }
+        }
+        if (regions > 0) plugin.getLogger().info("[Voxmap] Warmed " + chunks + " stored chunk meshes from " + regions + " regions.");
+    }
+
+    // Old views count half after every restart, so yesterday's hot spot fades out.
+    private void loadScores() {
+        if (!statsFile.isFile()) return;
+        YamlConfiguration yml = YamlConfiguration.loadConfiguration(statsFile);
+        ConfigurationSection root = yml.getConfigurationSection("regions");
+        if (root == null) return;
+        for (String world : root.getKeys(false)) {
+            ConfigurationSection sec = root.getConfigurationSection(world);
+            if (sec == null) continue;
+            Map<Long, Double> s = scores.computeIfAbsent(world, n -> new HashMap<>());
+            for (String key : sec.getKeys(false)) {
+                String[] p = key.split(",");
+                if (p.length != 2) continue;
+                try {
+                    s.put(regionKey(Integer.parseInt(p[0]), Integer.parseInt(p[1])), sec.getDouble(key, 0) * 0.5);
+                } catch (NumberFormatException ignored) {}
+            }
+        }
+    }
+
+    // caller holds the scores lock
+    private YamlConfiguration snapshotScores() {
+        YamlConfiguration yml = new YamlConfiguration();
+        for (var e : scores.entrySet()) {
+            Map<Long, Double> s = e.getValue();
+            for (long k : top(s, 64)) {
+                yml.set("regions." + e.getKey() + "." + (int) (k >> 32) + "," + (int) k, s.get(k));
+            }
+        }
+        return yml;
+    }
+
+    // via a temp file, like markers.yml; one write at a time, and never an older snapshot over a newer one
+    private void saveScores(YamlConfiguration yml, long seq) {
+        synchronized (statsFile) {
+            if (seq <= written) return;
+            written = seq;
+            File tmp = new File(statsFile.getParentFile(), statsFile.getName() + ".tmp");
+            try {
+                yml.save(tmp);
+                Files.move(tmp.toPath(), statsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                plugin.getLogger().warning("Failed saving warm.yml: " + ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package voxmap.render;
+
+/**
+ * A size x size square of chunk meshes merged into one, so the far rings of the web view
+ * cost one draw call per layer instead of one per chunk. Region (rx, rz) covers chunks
+ * rx * size .. rx * size + size - 1 (same for z).
+ *
+ * Positions and emitters are region-local (x/z in 0..size * 16, which still fits the i16
+ * positions for size 8). Instances keep their chunk-local x/z (4 bits each, see
+ * {@link ChunkMesh#instances}); member m = dz * size + dx owns instances
+ * [memberInstances[m], memberInstances[m + 1]). The merged mesh is a single section whose
+ * indices are ordered opaque, cutout, translucent across all members.
+ *
+ * contentHash combines the members' {@link ChunkMesh#contentHash}es, so the same members
+ * always give the same value.
+ */
+public record RegionMesh(int rx, int rz, int size, ChunkMesh mesh, int[] memberInstances, long contentHash) {
+
+    /** Merges {@code members} (dz * size + dx order, none null). Baked light is kept when every non-empty member has it. */
+    public static RegionMesh merge(int rx, int rz, int size, ChunkMesh[] members) {
+        int vc = 0, ic = 0, ec = 0, nc = 0;
+        boolean lit = true;
+        long hash = 0xcbf29ce484222325L;
+        for (ChunkMesh m : members) {
+            hash = (hash ^ m.contentHash()) * 0x100000001b3L;
+            vc += m.vertexCount();
+            ic += m.indexCount();
+            ec += m.emitters.length;
+            nc += m.instances.length;
+            if (m.vertexCount() > 0) lit &= m.light != null;
+        }
+        lit &= vc > 0;
+        byte[] light = lit ? new byte[vc] : null;
+        byte[] ao = lit ? new byte[vc] : null;
+        short[] pos = new short[vc * 3];
+        byte[] faces = new byte[vc];
+        short[] uvs = new short[vc * 2];
+        byte[] tints = new byte[vc];
+        short[] i16 = vc <= 0x10000 ? new short[ic] : null;
+        int[] i32 = i16 == null ? new int[ic] : null;
+        float[] emitters = new float[ec];
+        short[] instances = new short[nc];
+        int[] memberInstances = new int[members.length + 1];
+        int[] base = new int[members.length];
+
+        int v = 0, e = 0, in = 0;
+        for (int n = 0; n < members.length; n++) {
+            ChunkMesh m = members[n];
+            int ox = (n % size) * 16, oz = (n / size) * 16;
+            int mv = m.vertexCount();
+            base[n] = v;
+            for (int j = 0; j < mv; j++) {
+                pos[(v + j) * 3] = (short) (m.positions[j * 3] + ox);
+                pos[(v + j) * 3 + 1] = m.positions[j * 3 + 1];
+                pos[(v + j) * 3 + 2] = (short) (m.positions[j * 3 + 2] + oz);
+            }
+            System.arraycopy(m.faces, 0, faces, v, mv);
+            System.arraycopy(m.uvs, 0, uvs, v * 2, mv * 2);
+            System.arraycopy(m.tints, 0, tints, v, mv);
+            if (lit && mv > 0) {
+                System.arraycopy(m.light, 0, light, v, mv);
+                System.arraycopy(m.ao, 0, ao, v, mv);
+            }
+            for (int j = 0; j < m.emitters.length; j += 4) {
+                emitters[e + j] = m.emitters[j] + ox;
+                emitters[e + j + 1] = m.emitters[j + 1];
+                emitters[e + j + 2] = m.emitters[j + 2] + oz;
+                emitters[e + j + 3] = m.emitters[j + 3];
+            }
+            memberInstances[n] = in / 4;
+            System.arraycopy(m.instances, 0, instances, in, m.instances.length);
+            v += mv;
+            e += m.emitters.length;
+            in += m.instances.length;
+        }
+        memberInstances[members.length] = in / 4;
+
+        // layer by layer over every member and section, so each layer is one contiguous range
+        int[] layerStart = new int[2];
+        int i = 0;
+        for (int layer = ChunkMesh.LAYER_OPAQUE; layer < ChunkMesh.LAYERS; layer++) {
+            if (layer > ChunkMesh.LAYER_OPAQUE) layerStart[layer - 1] = i;
+            for (int n = 0; n < members.length; n++) {
+                ChunkMesh m = members[n];
+                ChunkMesh.Sections s = m.sections;
+                int count = s == null ? 1 : s.count();
+                for (int sec = 0; sec < count; sec++) {
+                    int a, b;
+                    if (s == null) {
+                        a = layer == ChunkMesh.LAYER_OPAQUE ? 0 : m.indexCount();
+                        b = m.indexCount();
+                    } else {
+                        a = s.layerStart(sec, layer);
+                        b = s.layerStart(sec, layer + 1);
+                    }
+                    for (int j = a; j < b; j++, i++) {
+                        int idx = m.index(j) + base[n];
+                        if (i16 != null) i16[i] = (short) idx; else i32[i] = idx;
+                    }
+                }
+            }
+        }
+
+        ChunkMesh merged = new ChunkMesh(pos, faces, uvs, tints, i16, i32, emitters, instances,
+                new ChunkMesh.Sections(0, new int[]{0, vc}, new int[]{0, ic}, new int[]{0, ec},
+                        new int[]{0, nc}, layerStart, null),
+                light, ao);
+        return new RegionMesh(rx, rz, size, merged, memberInstances, hash);
+    }
+
+    /** Approximate heap footprint, see {@link ChunkMesh#sizeBytes}. */
+    public long sizeBytes() {
+        return mesh.sizeBytes() + memberInstances.length * 4L;
+    }
+}
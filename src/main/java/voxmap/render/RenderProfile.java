@@ -0,0 +1,78 @@
+package voxmap.render;
+
+import voxmap.texture.TextureAtlasService;
+
+import java.util.Locale;
+
+/**
+ * How a world is meshed: meshing mode, a max-Y clip, nether ceiling removal, baked lighting
+ * and the view distance offered to the web client. Read per world from {@code worlds.yml}; the defaults
+ * for each dimension keep heavy ones (the nether roof) cheap without any setup.
+ */
+public final class RenderProfile {
+
+    public enum Mode {
+        /** Every exposed face. */
+        FULL,
+        /** Only what can be seen from above, see {@link VisibilityMask}. */
+        SURFACE;
+
+        public static Mode parse(String s, Mode def) {
+            if (s == null) return def;
+            try {
+                return valueOf(s.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return def;
+            }
+        }
+    }
+
+    /** Roof scan of {@link CeilingCutSource}: how far below the clip a ceiling may reach. */
+    public static final int CEILING_SCAN_DEPTH = 40;
+
+    public final Mode mode;
+    /** Highest meshed Y, or {@link Integer#MAX_VALUE} for the world height. */
+    public final int maxY;
+    public final boolean ceilingCut;
+    /** Chunk radius for the web client, 0 = render.defaultViewDistanceChunks. */
+    public final int viewDistanceChunks;
+    /** Bake smooth light and ambient occlusion into the vertices (the client then skips point lights). */
+    public final boolean bakedLighting;
+
+    public RenderProfile(Mode mode, int maxY, boolean ceilingCut, int viewDistanceChunks, boolean bakedLighting) {
+        this.mode = mode;
+        this.maxY = maxY;
+        this.ceilingCut = ceilingCut;
+        this.viewDistanceChunks = viewDistanceChunks;
+        this.bakedLighting = bakedLighting;
+    }
+
+    /** Defaults by dimension: "normal", "nether" or "the_end" (Bukkit environment names). */
+    public static RenderProfile defaults(String environment) {
+        return switch (environment.toLowerCase(Locale.ROOT)) {
+            // the roof is bedrock from 123 up; cut below it and strip the netherrack ceiling
+            case "nether" -> new RenderProfile(Mode.SURFACE, 122, true, 6, false);
+            case "the_end" -> new RenderProfile(Mode.FULL, Integer.MAX_VALUE, false, 0, false);
+            default -> new RenderProfile(Mode.SURFACE, Integer.MAX_VALUE, false, 0, false);
+        };
+    }
+
+    /** True when meshes of this profile hold every exposed face up to {@code y} (nothing culled or cut). */
+    public boolean keepsAllFaces(int y) {
+        return mode == Mode.FULL && !ceilingCut && maxY >= y;
+    }
+
+    /**
+     * Meshes y = minY..maxYInclusive of a column under this profile. {@code caveDepth} is
+     * the reach of surface mode into caves (render.surfaceCaveDepth), {@code rules} the
+     * see-through culling of render.culling. On a fork-join pool the sections are meshed in parallel.
+     */
+    public ChunkMesh mesh(BlockSource src, int minY, int maxYInclusive, TextureAtlasService atlas, int caveDepth,
+                          CullRules rules) {
+        int top = Math.min(maxYInclusive, maxY);
+        if (top < minY) return ChunkMesh.empty();
+        BlockSource s = ceilingCut ? new CeilingCutSource(src, top, CEILING_SCAN_DEPTH) : src;
+        VisibilityMask mask = mode == Mode.SURFACE ? VisibilityMask.surface(s, minY, top, caveDepth) : null;
+        return ExposedFaceMesher.meshSections(s, minY, top, atlas, mask, rules, true, true, bakedLighting);
+    }
+}
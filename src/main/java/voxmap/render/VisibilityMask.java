@@ -0,0 +1,128 @@
+package voxmap.render;
+
+/**
+ * Which non-occluding cells of a column can be seen from above, for surface-only meshing.
+ * The mesher then only emits faces that look into a visible cell, which drops cave walls,
+ * ore pockets and buried structures that an orbit camera never sees.
+ *
+ * Seeds: every cell open straight up to the sky, every cell with sky light, and border cells
+ * next to a visible cell of a known neighbour column. From there a breadth-first fill through
+ * non-occluding cells reaches up to {@code depth} blocks further (cave mouths, overhangs).
+ *
+ * Without a neighbour column, faces on that border are kept from {@code depth} blocks below
+ * the column's lowest surface upwards, since the neighbour's surface is unknown.
+ */
+public final class VisibilityMask {
+
+    private final int minY;
+    private final int maxY;
+    private final boolean[] visible;
+    private final int borderFloor;
+
+    private VisibilityMask(int minY, int maxY, boolean[] visible, int borderFloor) {
+        this.minY = minY;
+        this.maxY = maxY;
+        this.visible = visible;
+        this.borderFloor = borderFloor;
+    }
+
+    private static boolean occludes(BlockSource src, int x, int y, int z) {
+        return (BlockRegistry.traits(src.blockId(x, y, z)) & BlockTraits.OCCLUDER) != 0;
+    }
+
+    /** Highest occluding block of a column, or minY - 1 when the column is open to the void. */
+    private static int surface(BlockSource src, int x, int z, int minY, int maxY) {
+        int y = maxY;
+        while (y >= minY && !occludes(src, x, y, z)) y--;
+        return y;
+    }
+
+    public static VisibilityMask surface(BlockSource src, int minY, int maxY, int depth) {
+        int height = maxY - minY + 1;
+        boolean[] visible = new boolean[height * 256];
+        byte[] dist = new byte[height * 256];
+        int[] queue = new int[height * 256];
+        int head = 0, tail = 0;
+        int d = Math.max(0, Math.min(depth, 126));
+
+        // open to the sky: everything above the top occluder of each column
+        int lowestSurface = maxY;
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int s = surface(src, x, z, minY, maxY);
+                lowestSurface = Math.min(lowestSurface, s);
+                for (int y = s + 1; y <= maxY; y++) {
+                    int i = ((y - minY) * 16 + z) * 16 + x;
+                    visible[i] = true;
+                    queue[tail++] = i;
+                }
+            }
+        }
+
+        // lit by the sky (overhangs, cave mouths), or visible across a known border
+        BlockSource[] nb = {src.neighbor(-1, 0), src.neighbor(1, 0), src.neighbor(0, -1), src.neighbor(0, 1)};
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    int i = ((y - minY) * 16 + z) * 16 + x;
+                    if (visible[i] || occludes(src, x, y, z)) continue;
+                    if (src.skyLight(x, y, z) > 0
+                            || (x == 0 && openAcross(nb[0], 15, y, z))
+                            || (x == 15 && openAcross(nb[1], 0, y, z))
+                            || (z == 0 && openAcross(nb[2], x, y, 15))
+                            || (z == 15 && openAcross(nb[3], x, y, 0))) {
+                        visible[i] = true;
+                        queue[tail++] = i;
+                    }
+                }
+            }
+        }
+
+        // a few blocks further in through air, water, leaves...
+        while (head < tail) {
+            int i = queue[head++];
+            int di = dist[i];
+            if (di >= d) continue;
+            int x = i & 15, z = (i >> 4) & 15, y = (i >> 8) + minY;
+            if (x > 0) tail = visit(src, visible, dist, queue, tail, i - 1, x - 1, y, z, di);
+            if (x < 15) tail = visit(src, visible, dist, queue, tail, i + 1, x + 1, y, z, di);
+            if (z > 0) tail = visit(src, visible, dist, queue, tail, i - 16, x, y, z - 1, di);
+            if (z < 15) tail = visit(src, visible, dist, queue, tail, i + 16, x, y, z + 1, di);
+            if (y > minY) tail = visit(src, visible, dist, queue, tail, i - 256, x, y - 1, z, di);
+            if (y < maxY) tail = visit(src, visible, dist, queue, tail, i + 256, x, y + 1, z, di);
+        }
+
+        return new VisibilityMask(minY, maxY, visible, lowestSurface - d);
+    }
+
+    private static int visit(BlockSource src, boolean[] visible, byte[] dist, int[] queue, int tail,
+                             int i, int x, int y, int z, int di) {
+        if (visible[i] || occludes(src, x, y, z)) return tail;
+        visible[i] = true;
+        dist[i] = (byte) (di + 1);
+        queue[tail] = i;
+        return tail + 1;
+    }
+
+    /** A neighbour's cell counts as visible when it is open to the sky or lit by it. */
+    private static boolean openAcross(BlockSource n, int x, int y, int z) {
+        if (n == null || y < n.minY() || y > n.maxY() || occludes(n, x, y, z)) return false;
+        return n.skyLight(x, y, z) > 0 || y > surface(n, x, z, y, n.maxY());
+    }
+
+    /** Whether a face looking into cell (x, y, z) of this column can be seen. */
+    public boolean visible(int x, int y, int z) {
+        if (y > maxY) return true;
+        if (y < minY) return false;
+        return visible[((y - minY) * 16 + z) * 16 + x];
+    }
+
+    /**
+     * Whether a border face looking into cell (x, y, z) of neighbour column {@code n} can be seen.
+     * Without the neighbour, faces from {@code depth} blocks below this column's lowest surface up are kept.
+     */
+    public boolean visibleAcross(BlockSource n, int x, int y, int z) {
+        if (n == null) return y >= borderFloor;
+        return y > n.maxY() || openAcross(n, x, y, z);
+    }
+}
@@ -1,14 +1,18 @@
 package voxmap.texture;
 
-import org.bukkit.Material;
 import org.bukkit.plugin.java.JavaPlugin;
+import voxmap.render.BlockRegistry;
 import voxmap.render.ExposedFaceMesher.Face;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -23,6 +27,12 @@ public class TextureAtlasService {
     private final Map<String, Integer> keyToIndex = new HashMap<>();
     private BufferedImage atlas;
     private int tilesCount;
+    private volatile String fingerprint = "";
+    private volatile byte[] png; // encoded atlas, built on first request
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    // blockId * 6 + face -> tile index + 1 (0 = not resolved yet); reset when the atlas is rebuilt
+    private volatile int[] tileCache = new int[0];
 
     // Aliases if a material texture is missing in the pack or not yet mapped.
     private static final Map<String, String> ALIASES = Map.ofEntries(
@@ -44,7 +54,23 @@ public class TextureAtlasService {
 
             // Common grass naming differences across packs
             Map.entry("grass", "short_grass"),
-            Map.entry("tall_grass", "short_grass")
+            Map.entry("tall_grass", "short_grass"),
+
+            // Model blocks (BlockModels) whose texture is named after a state or a part
+            Map.entry("large_fern", "fern"),
+            Map.entry("wheat", "wheat_stage7"),
+            Map.entry("carrots", "carrots_stage3"),
+            Map.entry("potatoes", "potatoes_stage3"),
+            Map.entry("beetroots", "beetroots_stage3"),
+            Map.entry("nether_wart", "nether_wart_stage2"),
+            Map.entry("sweet_berry_bush", "sweet_berry_bush_stage3"),
+            Map.entry("sunflower", "sunflower_front"),
+            Map.entry("lilac", "lilac_top"),
+            Map.entry("rose_bush", "rose_bush_top"),
+            Map.entry("peony", "peony_top"),
+            Map.entry("wall_torch", "torch"),
+            Map.entry("soul_wall_torch", "soul_torch"),
+            Map.entry("redstone_wall_torch", "redstone_torch")
     );
 
     // --- Backward compatible constructor used by your Voxmap.java ---
@@ -66,6 +92,49 @@ public class TextureAtlasService {
     public int getTilesCount() { return tilesCount; }
     public int getTilesPerRow() { return tilesPerRow; }
     public int getTileSize() { return tileSize; }
+    public int getTileRows() { return (int) Math.ceil(tilesCount / (double) tilesPerRow); }
+
+    /**
+     * Identifies the tile layout (tile size, row width and texture keys): meshes built against
+     * an atlas with the same fingerprint have valid UVs for this one.
+     */
+    public String fingerprint() { return fingerprint; }
+
+    /** True once an atlas has been built (or loaded from the atlas cache). */
+    public boolean isReady() { return ready.isDone() && !ready.isCompletedExceptionally(); }
+
+    /** True when neither the pack nor the fallback atlas could be built; nothing can be meshed. */
+    public boolean isFailed() { return ready.isCompletedExceptionally(); }
+
+    /** Blocks until {@link #isReady()}; throws a CompletionException if the atlas {@link #isFailed()}. */
+    public void awaitReady() { ready.join(); }
+
+    /**
+     * {@link #loadOrCreate()} on a background thread, so decoding the pack doesn't hold up
+     * server startup. Falls back to the solid-colour atlas if that fails; the returned future
+     * always completes, exceptionally if even the fallback fails.
+     */
+    public CompletableFuture<Void> loadOrCreateAsync() {
+        Thread t = new Thread(() -> {
+            try {
+                loadOrCreate();
+            } catch (Throwable e) {
+                plugin.getLogger().warning("[Voxmap] Failed to build texture atlas, using fallback: " + e);
+                try {
+                    buildFallbackAtlas();
+                } catch (Throwable fallback) {
+                    fallback.addSuppressed(e);
+                    plugin.getLogger().severe("[Voxmap] Failed to build the fallback atlas, map disabled: " + fallback);
+                    ready.completeExceptionally(fallback);
+                }
+            } finally {
+                if (!ready.isDone()) ready.completeExceptionally(new IllegalStateException("texture atlas was not built"));
+            }
+        }, "Voxmap-Atlas");
+        t.setDaemon(true);
+        t.start();
+        return ready;
+    }
 
     /**
      * Backward compatible method expected by Voxmap.java
@@ -87,10 +156,24 @@ public class TextureAtlasService {
         File chosen = resolveTexturePack(tpDir, cfg);
 
         if (chosen != null && chosen.isFile() && chosen.getName().toLowerCase(Locale.ROOT).endsWith(".zip")) {
+            long t0 = System.nanoTime();
+            File cacheDir = new File(data, "atlascache");
+            String cacheKey = cacheKey(chosen);
+            if (loadCached(cacheDir, cacheKey)) {
+                plugin.getLogger().info("[Voxmap] Atlas loaded from cache (" + chosen.getName() + "): tiles=" + tilesCount
+                        + " in " + (System.nanoTime() - t0) / 1_000_000 + " ms");
+                return;
+            }
             plugin.getLogger().info("[Voxmap] Loading textures from resource pack: " + chosen.getAbsolutePath());
             loadFromResourcePackZip(chosen.getAbsolutePath());
             plugin.getLogger().info("[Voxmap] Atlas tiles=" + tilesCount + " tilesPerRow=" + tilesPerRow);
-            plugin.getLogger().info("[Voxmap] Atlas ready: " + atlas.getWidth() + "x" + atlas.getHeight() + " tiles=" + tilesCount);
+            plugin.getLogger().info("[Voxmap] Atlas ready: " + atlas.getWidth() + "x" + atlas.getHeight() + " tiles=" + tilesCount
+                    + " in " + (System.nanoTime() - t0) / 1_000_000 + " ms");
+            try {
+                saveCached(cacheDir, cacheKey);
+            } catch (IOException e) {
+                plugin.getLogger().warning("[Voxmap] Failed writing atlas cache: " + e.getMessage());
+            }
             return;
         }
 
@@ -98,6 +181,71 @@ public class TextureAtlasService {
         buildFallbackAtlas();
     }
 
+    // Bump when the atlas layout changes (key order, scaling), so old caches are rebuilt.
+    private static final int CACHE_FORMAT = 1;
+
+    /** Cache file name: hash of the pack's bytes and the tile settings. */
+    private String cacheKey(File pack) throws IOException {
+        try {
+            var md = java.security.MessageDigest.getInstance("SHA-256");
+            md.update((CACHE_FORMAT + ":" + tileSize + ":" + tilesPerRow + ":").getBytes(StandardCharsets.UTF_8));
+            try (InputStream in = new FileInputStream(pack)) {
+                byte[] buf = new byte[1 << 16];
+                for (int n; (n = in.read(buf)) > 0; ) md.update(buf, 0, n);
+            }
+            return HexFormat.of().formatHex(md.digest(), 0, 16);
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Loads atlascache/&lt;key&gt;.png and .keys (texture keys in tile order, one per line).
+     * False when there is no usable cache.
+     */
+    private boolean loadCached(File dir, String key) {
+        File img = new File(dir, key + ".png"), keys = new File(dir, key + ".keys");
+        if (!img.isFile() || !keys.isFile()) return false;
+        try {
+            List<String> list = Files.readAllLines(keys.toPath(), StandardCharsets.UTF_8);
+            byte[] bytes = Files.readAllBytes(img.toPath());
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+            int rows = (int) Math.ceil(list.size() / (double) tilesPerRow);
+            if (image == null || image.getWidth() != tilesPerRow * tileSize || image.getHeight() != rows * tileSize) {
+                return false;
+            }
+            keyToIndex.clear();
+            for (int i = 0; i < list.size(); i++) keyToIndex.put(list.get(i), i);
+            tilesCount = list.size();
+            tileCache = new int[0];
+            fingerprint = fingerprintOf(list);
+            atlas = image;
+            png = bytes;
+            ready.complete(null);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().warning("[Voxmap] Ignoring unreadable atlas cache: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Writes the current atlas under {@code key} and removes caches of other packs/settings. */
+    private void saveCached(File dir, String key) throws IOException {
+        dir.mkdirs();
+        String[] keys = new String[tilesCount];
+        for (var e : keyToIndex.entrySet()) keys[e.getValue()] = e.getKey();
+        File[] old = dir.listFiles((d, n) -> !n.startsWith(key + "."));
+        if (old != null) for (File f : old) Files.deleteIfExists(f.toPath());
+        writeAtomically(new File(dir, key + ".keys"), String.join("\n", keys).getBytes(StandardCharsets.UTF_8));
+        writeAtomically(new File(dir, key + ".png"), getAtlasPngBytes());
+    }
+
+    private static void writeAtomically(File f, byte[] data) throws IOException {
+        File tmp = new File(f.getParentFile(), f.getName() + ".tmp");
+        Files.write(tmp.toPath(), data);
+        Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
     private File resolveTexturePack(File tpDir, String cfg) {
         if (cfg == null || cfg.isBlank()) cfg = "default-1.21.11.zip";
 
@@ -123,15 +271,20 @@ public class TextureAtlasService {
      * Backward compatible method expected by WebServer.java
      */
     public byte[] getAtlasPngBytes() throws IOException {
-        if (atlas == null) return new byte[0];
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(64 * 1024);
-        ImageIO.write(atlas, "png", baos);
-        return baos.toByteArray();
+        BufferedImage img = atlas;
+        if (img == null) return new byte[0];
+        byte[] out = png;
+        if (out == null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(64 * 1024);
+            ImageIO.write(img, "png", baos);
+            png = out = baos.toByteArray();
+        }
+        return out;
     }
 
     public void loadFromResourcePackZip(String zipPath) throws Exception {
-        Map<String, BufferedImage> textures = new HashMap<>();
-
+        // read the block textures' bytes in one pass over the zip, then decode them in parallel
+        Map<String, byte[]> raw = new HashMap<>();
         try (ZipFile zip = new ZipFile(zipPath)) {
             Enumeration<? extends ZipEntry> entries = zip.entries();
             while (entries.hasMoreElements()) {
@@ -149,23 +302,27 @@ public class TextureAtlasService {
                 String key = rel.substring("block/".length(), rel.length() - 4);
 
                 try (InputStream in = zip.getInputStream(e)) {
-                    BufferedImage img = ImageIO.read(in);
-                    if (img != null) {
-                        // Many animated textures (water/lava) are stored as vertical strips:
-                        // 16 x (16*frames). Use the first frame (top 16x16).
-                        if (img.getWidth() == tileSize && img.getHeight() > tileSize) {
-                            img = img.getSubimage(0, 0, tileSize, tileSize);
-                        }
-                        // Some packs ship higher-res textures (e.g. 32x32, 64x64).
-                        // The atlas draw step already scales to tileSize, so no extra handling needed.
-
-                        textures.put(key, img);
-                    }
-                    if (img != null) textures.put(key, img);
-                } catch (Exception ignored) {}
+                    raw.put(key, in.readAllBytes());
+                } catch (IOException ignored) {}
             }
         }
 
+        Map<String, BufferedImage> textures = new ConcurrentHashMap<>();
+        raw.entrySet().parallelStream().forEach(e -> {
+            try {
+                BufferedImage img = ImageIO.read(new ByteArrayInputStream(e.getValue()));
+                if (img == null) return;
+                // Many animated textures (water/lava) are stored as vertical strips:
+                // 16 x (16*frames). Use the first frame (top 16x16).
+                if (img.getWidth() == tileSize && img.getHeight() > tileSize) {
+                    img = img.getSubimage(0, 0, tileSize, tileSize);
+                }
+                // Some packs ship higher-res textures (e.g. 32x32, 64x64).
+                // The atlas draw step already scales to tileSize, so no extra handling needed.
+                textures.put(e.getKey(), img);
+            } catch (Exception ignored) {}
+        });
+
         if (!textures.containsKey("stone")) {
             textures.put("stone", solid(tileSize, tileSize, 120, 120, 120));
         }
@@ -173,6 +330,16 @@ public class TextureAtlasService {
         buildAtlasFromTextures(textures);
     }
 
+    /** Builds the atlas from already decoded block textures (key = texture name, e.g. "stone"). */
+    public void loadFromTextures(Map<String, BufferedImage> textures) {
+        buildAtlasFromTextures(textures);
+    }
+
+    /** Builds the small solid-colour atlas used when no resource pack is available. */
+    public void loadFallback() {
+        buildFallbackAtlas();
+    }
+
     private void buildFallbackAtlas() {
         Map<String, BufferedImage> textures = new HashMap<>();
         textures.put("stone", solid(tileSize, tileSize, 120, 120, 120));
@@ -197,6 +364,9 @@ public class TextureAtlasService {
         var g = atlas.createGraphics();
 
         keyToIndex.clear();
+        tileCache = new int[0];
+        png = null;
+        fingerprint = fingerprintOf(keys);
         for (int i = 0; i < keys.size(); i++) {
             String key = keys.get(i);
             BufferedImage img = textures.get(key);
@@ -210,6 +380,21 @@ public class TextureAtlasService {
             g.drawImage(img, tx, ty, tileSize, tileSize, null);
         }
         g.dispose();
+        ready.complete(null);
+    }
+
+    private String fingerprintOf(List<String> sortedKeys) {
+        try {
+            var md = java.security.MessageDigest.getInstance("SHA-256");
+            md.update((tileSize + ":" + tilesPerRow).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            for (String k : sortedKeys) {
+                md.update((byte) '\n');
+                md.update(k.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(md.digest(), 0, 12);
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     private static BufferedImage solid(int w, int h, int r, int g, int b) {
@@ -221,14 +406,6 @@ public class TextureAtlasService {
         return img;
     }
 
-    private static String normalizeKey(String s) {
-        return s.toLowerCase(Locale.ROOT).replace("minecraft:", "");
-    }
-
-    private String materialBaseKey(Material m) {
-        return normalizeKey(m.name());
-    }
-
     private String resolveKeyOrAlias(String key) {
         if (keyToIndex.containsKey(key)) return key;
         String alias = ALIASES.get(key);
@@ -236,45 +413,67 @@ public class TextureAtlasService {
         return "stone";
     }
 
-    public UVRect uvFor(Material m, Face face) {
-        String k = materialBaseKey(m);
-
-        // Special face mappings for a couple common blocks
-        if (m == Material.GRASS_BLOCK) {
-            if (face == Face.UP) k = "grass_block_top";
-            else if (face == Face.DOWN) k = "dirt";
-            else k = "grass_block_side";
-        } else if (m == Material.DIRT_PATH) {
-            if (face == Face.UP) k = "dirt_path_top";
-            else if (face == Face.DOWN) k = "dirt";
-            else k = "dirt_path_side";
-        } else if (m == Material.FARMLAND) {
-            if (face == Face.UP) k = "farmland_top";
-            else if (face == Face.DOWN) k = "dirt";
-            else k = "farmland_side";
+    /**
+     * Slabs, stairs, carpets and pressure plates have no texture of their own: they use their
+     * base block's (oak_slab -> oak_planks, stone_brick_stairs -> stone_bricks, red_carpet -> red_wool).
+     */
+    private String baseTexture(String k) {
+        if (keyToIndex.containsKey(k) || ALIASES.containsKey(k)) return k;
+        for (String suffix : new String[]{"_slab", "_stairs", "_carpet", "_pressure_plate"}) {
+            if (!k.endsWith(suffix)) continue;
+            String base = k.substring(0, k.length() - suffix.length());
+            String[] candidates = {base + "_wool", base, base + "_planks", base + "s", base + "_block",
+                    base.replace("_brick", "_bricks"), base.replace("_tile", "_tiles")};
+            for (String c : candidates) if (keyToIndex.containsKey(c)) return c;
+            return base;
         }
-        if (m == Material.DIAMOND_ORE) {
-            if (face == Face.UP || face == Face.DOWN) k = "stone";
-            k = "stone";
+        return k;
+    }
+
+    /**
+     * Atlas tile index for a block face (block id from {@link BlockRegistry}). The tile's grid
+     * position is (idx % tilesPerRow, idx / tilesPerRow); the mesher sends that instead of float UVs.
+     * Resolved once per block and face, then served from a flat cache.
+     */
+    public int tileFor(int blockId, Face face) {
+        int slot = blockId * 6 + face.ordinal();
+        int[] cache = tileCache;
+        if (slot < cache.length && cache[slot] != 0) return cache[slot] - 1;
+
+        int tile = resolveTile(BlockRegistry.name(blockId), face);
+        if (slot >= cache.length) {
+            synchronized (this) {
+                cache = tileCache;
+                if (slot >= cache.length) {
+                    cache = Arrays.copyOf(cache, Math.max(slot + 1, Math.max(BlockRegistry.size() * 6, cache.length * 2)));
+                    tileCache = cache;
+                }
+            }
         }
-        if (m == Material.WATER) {
+        cache[slot] = tile + 1; // racy but idempotent
+        return tile;
+    }
+
+    private int resolveTile(String k, Face face) {
+        // Special face mappings for a couple common blocks
+        switch (k) {
+            case "grass_block" -> k = face == Face.UP ? "grass_block_top" : face == Face.DOWN ? "dirt" : "grass_block_side";
+            case "dirt_path" -> k = face == Face.UP ? "dirt_path_top" : face == Face.DOWN ? "dirt" : "dirt_path_side";
+            case "farmland" -> k = face == Face.UP ? "farmland_top" : face == Face.DOWN ? "dirt" : "farmland_side";
+            case "diamond_ore" -> k = "stone";
             // Vanilla pack keys
-            if (face == Face.UP || face == Face.DOWN) k = "water_still";
-            else k = "water_flow";
-        }
-        if (m == Material.LAVA) {
-            if (face == Face.UP || face == Face.DOWN) k = "lava_still";
-            else k = "lava_flow";
-        }
-        if (m == Material.SNOW) {
-            k = "snow";
+            case "water" -> k = (face == Face.UP || face == Face.DOWN) ? "water_still" : "water_flow";
+            case "lava" -> k = (face == Face.UP || face == Face.DOWN) ? "lava_still" : "lava_flow";
+            case "snow", "snow_block" -> k = "snow";
+            default -> { }
         }
-        if (m == Material.SNOW_BLOCK) {
-            k = "snow";
-        }
-        k = resolveKeyOrAlias(k);
+        k = resolveKeyOrAlias(baseTexture(k));
+
+        return keyToIndex.getOrDefault(k, keyToIndex.getOrDefault("stone", 0));
+    }
 
-        int idx = keyToIndex.getOrDefault(k, keyToIndex.getOrDefault("stone", 0));
+    public UVRect uvFor(int blockId, Face face) {
+        int idx = tileFor(blockId, face);
         int x = idx % tilesPerRow;
         int y = idx / tilesPerRow;
 
@@ -288,4 +487,4 @@ public class TextureAtlasService {
 
         return new UVRect(u0, v0, u1, v1);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package voxmap.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Minimal open-addressing set of primitive longs (no boxing, no per-entry garbage).
+ * Not thread-safe.
+ */
+public final class LongHashSet {
+
+    private static final long EMPTY = 0L;
+
+    private long[] table;
+    private int size;
+    private boolean hasZero;
+
+    public LongHashSet() { this(64); }
+
+    public LongHashSet(int expected) {
+        int cap = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+        table = new long[cap];
+    }
+
+    public int size() { return size + (hasZero ? 1 : 0); }
+
+    public boolean isEmpty() { return size() == 0; }
+
+    private static int mix(long k) {
+        long h = k * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public boolean add(long k) {
+        if (k == EMPTY) {
+            if (hasZero) return false;
+            hasZero = true;
+            return true;
+        }
+        int mask = table.length - 1;
+        int i = mix(k) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == k) return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = k;
+        if (++size * 2 > table.length) rehash(table.length * 2);
+        return true;
+    }
+
+    public boolean contains(long k) {
+        if (k == EMPTY) return hasZero;
+        int mask = table.length - 1;
+        int i = mix(k) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == k) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public void forEach(LongConsumer c) {
+        if (hasZero) c.accept(EMPTY);
+        for (long k : table) if (k != EMPTY) c.accept(k);
+    }
+
+    /** Clears the set, keeping its capacity unless it grew very large. */
+    public void clear() {
+        if (table.length > 1 << 16) table = new long[64];
+        else Arrays.fill(table, EMPTY);
+        size = 0;
+        hasZero = false;
+    }
+
+    private void rehash(int cap) {
+        long[] old = table;
+        table = new long[cap];
+        int mask = cap - 1;
+        for (long k : old) {
+            if (k == EMPTY) continue;
+            int i = mix(k) & mask;
+            while (table[i] != EMPTY) i = (i + 1) & mask;
+            table[i] = k;
+        }
+    }
+}
@@ -12,25 +12,52 @@ const elCursor = document.getElementById("cursorPos");
 const REQUEST_INTERVAL_MS = 10_000;
 const STILL_AFTER_MS = 450;
 const MAX_INFLIGHT = 6;
-const MAX_TORCH_LIGHTS_PER_CHUNK = 18;
+// Emitters arrive clustered (one weighted light per 8-block cell); only the LIGHT_BUDGET
+// strongest near the view get a PointLight. The pool is fixed so shaders never recompile.
+const LIGHT_BUDGET = 16;
+const LIGHT_BUDGET_MS = 300;
 const TORCH_DISTANCE = 14;
+const CHANGES_POLL_MS = 2000;
+
+// Static export (see StaticExporter.java): index.html carries <meta name="voxmap-static" content="data/">
+// and everything is read from plain files under that folder instead of /api.
+const STATIC_ROOT = document.querySelector('meta[name="voxmap-static"]')?.getAttribute("content") ?? null;
+const STATIC_POLL_MS = 10_000;
+const OVERLAY_POLL_MS = STATIC_ROOT ? 5000 : 1200;
+// the marker dropdown needs the whole list; pins only ask for the view area every OVERLAY_POLL_MS
+const MARKER_LIST_POLL_MS = 30000;
 const markerSelect = document.getElementById("markerSelect");
+const sliceMin = document.getElementById("sliceMin");
+const sliceMax = document.getElementById("sliceMax");
 
 const state = {
   world: null,
   viewDistance: 6,
-  chunkMeshes: new Map(),
+  defaultViewDistance: 10,
+  worldViewDistance: {}, // world -> chunk radius override from /api/worlds
+  regionMesh: null, // { chunks, beyondChunks } from /api/worlds: merged meshes for the far rings
+  slice: null, // { minY, maxY }: vertical slice, null = whole column (live API only)
+  chunkMeshes: new Map(), // chunk key, or region key for merged region meshes
   chunkLights: new Map(),
+  chunkSections: new Map(), // key -> { minSection, count, sections: Map(sectionY -> { version, mesh }) }
+  changesVersion: 0,
   requested: new Set(),
   inflight: 0,
   requestQueue: [],
   atlasTex: null,
-  mat: null,
+  atlasGrid: { tilesPerRow: 32, rows: 1 },
+  atlasFile: null,
+  staticManifest: null, // static mode: current world's manifest.json
+  staticRegions: new Map(), // static mode: "rx,rz" -> { hash, chunks: Promise<array|null> }
+  mats: null, // per render layer, see layerMaterialParams()
+  bakedMats: null,
+  instanceMats: null, // model instances: [opaque, cutout]
 
   // overlays
   markerGroup: new THREE.Group(),
   playerGroup: new THREE.Group(),
-  markerObjs: new Map(), // name -> object3d
+  markerObjs: new Map(), // name -> pin (userData.sig: label and position it was built for)
+  markerList: [], // every marker of the world, for the dropdown; pins only cover the view
   playerObjs: new Map(), // uuid -> sprite
 };
 // --- WASD fly controls (camera + target together) ---
@@ -86,8 +113,22 @@ window.addEventListener("keyup", (e) => {
     case "AltRight": keys.alt = false; break;
   }
 });
-function api(path) { return fetch(path, { cache: "no-store" }).then(r => r.json()); }
+function api(path) { return fetch(STATIC_ROOT ? staticPath(path) : path, { cache: "no-store" }).then(r => r.json()); }
+
+// Maps an /api URL to the file the static export writes for it.
+function staticPath(path) {
+  const u = new URL(path, location.href);
+  const world = encodeURIComponent(u.searchParams.get("world") || state.world || "");
+  switch (u.pathname) {
+    case "/api/worlds": return `${STATIC_ROOT}worlds.json`;
+    case "/api/players": return `${STATIC_ROOT}players.json`;
+    case "/api/status": return `${STATIC_ROOT}${world}/status.json`;
+    case "/api/markers": return `${STATIC_ROOT}${world}/markers.json`;
+    default: return path;
+  }
+}
 function keyChunk(cx, cz) { return `${cx},${cz}`; }
+function keyRegion(rx, rz) { return `r${rx},${rz}`; }
 
 function fmtTime(ticks) {
   const t = (ticks % 24000 + 24000) % 24000;
@@ -142,6 +183,13 @@ scene.add(sun);
 const moon = new THREE.DirectionalLight(0xbad7ff, 0.30);
 scene.add(moon);
 
+const lightPool = [];
+for (let i = 0; i < LIGHT_BUDGET; i++) {
+  const l = new THREE.PointLight(0xffb35a, 0, TORCH_DISTANCE, 2.0);
+  scene.add(l);
+  lightPool.push(l);
+}
+
 function makeDiscSprite(color) {
   const c = document.createElement("canvas");
   c.width = 128; c.height = 128;
@@ -200,6 +248,7 @@ function applySkyAndLights(ticks, weather) {
   hemi.intensity = lerp(0.70, 0.55, dayFactor) * weatherDim;
 
   sun.intensity = lerp(0.0, 1.35, dayFactor) * weatherDim;
+  bakedUniforms.uDaylight.value = lerp(0.22, 1.0, dayFactor) * weatherDim;
   moon.intensity = lerp(0.35, 0.0, dayFactor);
 
   // Arc across sky directly "over top"
@@ -223,11 +272,43 @@ function applySkyAndLights(ticks, weather) {
   moonSprite.visible = dayFactor < 0.35;
 }
 
+// Chunks with baked light are drawn unlit: texture * tint * AO * max(block light, sky light * daylight).
+const bakedUniforms = { uDaylight: { value: 1.0 } };
+
+function makeBakedMaterial(params) {
+  const mat = new THREE.MeshBasicMaterial(params);
+  mat.onBeforeCompile = (shader) => {
+    shader.uniforms.uDaylight = bakedUniforms.uDaylight;
+    shader.vertexShader = "attribute vec2 vxLight;\nvarying vec2 vVxLight;\n" + shader.vertexShader
+        .replace("#include <color_vertex>", "#include <color_vertex>\n  vVxLight = vxLight;");
+    shader.fragmentShader = "uniform float uDaylight;\nvarying vec2 vVxLight;\n" + shader.fragmentShader
+        .replace("#include <color_fragment>", [
+          "#include <color_fragment>",
+          "  vec3 vxTorch = vec3(1.0, 0.82, 0.6) * vVxLight.x;",
+          "  vec3 vxSky = vec3(vVxLight.y * uDaylight);",
+          "  diffuseColor.rgb *= 0.05 + 0.95 * max(vxTorch, vxSky);",
+        ].join("\n"));
+  };
+  return mat;
+}
+
+// Render layers of the mesh format, in index order: opaque terrain skips alpha work entirely,
+// cutout (leaves, glass) is alpha-tested, only translucent faces (water, ice) blend and sort.
+const LAYER_COUNT = 3;
+
+function layerMaterialParams(tex) {
+  return [
+    { map: tex, vertexColors: true },
+    { map: tex, vertexColors: true, alphaTest: 0.5 },
+    { map: tex, vertexColors: true, transparent: true, depthWrite: false },
+  ];
+}
+
 async function loadAtlas() {
   return new Promise((resolve, reject) => {
     const loader = new THREE.TextureLoader();
     loader.load(
-        "/api/atlas.png",
+        STATIC_ROOT ? `${STATIC_ROOT}${state.atlasFile}` : "/api/atlas.png",
         (tex) => {
           tex.flipY = false;      // IMPORTANT
           tex.needsUpdate = true; // IMPORTANT
@@ -240,15 +321,13 @@ async function loadAtlas() {
 
           state.atlasTex = tex;
 
-          // KEY FIXES:
-          // - alphaTest makes leaves cut out correctly
-          // - vertexColors allows our leaf tint multiplier
-          state.mat = new THREE.MeshStandardMaterial({
-            map: tex,
-            vertexColors: true,
-            transparent: true,
-            alphaTest: 0.5,
-          });
+          // One material per layer (geometry group index = layer), vertexColors for the tints
+          state.mats = layerMaterialParams(tex).map(p => new THREE.MeshStandardMaterial(p));
+          state.bakedMats = layerMaterialParams(tex).map(makeBakedMaterial);
+          // model instances: opaque (slabs, stairs) and double-sided cutout (plants, torches, rails)
+          const [opaque, cutout] = layerMaterialParams(tex);
+          state.instanceMats = [makeInstanceMaterial(opaque), makeInstanceMaterial({ ...cutout, side: THREE.DoubleSide })];
+          instanceUniforms.uTileScale.value.set(1 / state.atlasGrid.tilesPerRow, 1 / state.atlasGrid.rows);
 
           resolve();
         },
@@ -268,13 +347,13 @@ function disposeChunk(key) {
   const mesh = state.chunkMeshes.get(key);
   if (mesh) {
     mesh.geometry.dispose();
+    disposeChunkInstances(mesh);
     scene.remove(mesh);
   }
   state.chunkMeshes.delete(key);
 
-  const lights = state.chunkLights.get(key);
-  if (lights) for (const l of lights) scene.remove(l);
   state.chunkLights.delete(key);
+  state.chunkSections.delete(key);
 }
 
 function enqueueChunk(world, cx, cz) {
@@ -284,69 +363,652 @@ function enqueueChunk(world, cx, cz) {
   state.requestQueue.push({ world, cx, cz, k });
 }
 
+function enqueueRegion(world, rx, rz) {
+  const k = keyRegion(rx, rz);
+  if (state.chunkMeshes.has(k) || state.requested.has(k)) return;
+  state.requested.add(k);
+  state.requestQueue.push({ world, rx, rz, k, region: true });
+}
+
+function refreshRegion(world, rx, rz) {
+  const k = keyRegion(rx, rz);
+  if (state.requested.has(k)) return;
+  state.requested.add(k);
+  state.requestQueue.unshift({ world, rx, rz, k, region: true });
+}
+
+// Re-fetch a loaded chunk; only sections whose version changed come back.
+function refreshChunk(world, cx, cz) {
+  const k = keyChunk(cx, cz);
+  if (state.requested.has(k)) return;
+  state.requested.add(k);
+  state.requestQueue.unshift({ world, cx, cz, k });
+}
+
 async function pumpQueue() {
   while (state.inflight < MAX_INFLIGHT && state.requestQueue.length > 0) {
     const job = state.requestQueue.shift();
     state.inflight++;
-    loadChunkMesh(job.world, job.cx, job.cz, job.k)
+    (job.region ? loadRegionMesh(job.world, job.rx, job.rz, job.k) : loadChunkMesh(job.world, job.cx, job.cz, job.k))
         .catch(() => {})
         .finally(() => state.inflight--);
   }
 }
 
+// Face ordinal -> normal (matches ExposedFaceMesher.Face: UP, DOWN, NORTH, SOUTH, EAST, WEST)
+const FACE_NORMALS = [
+  [0, 1, 0], [0, -1, 0], [0, 0, -1], [0, 0, 1], [1, 0, 0], [-1, 0, 0],
+];
+// Baked ambient occlusion level (0 = corner fully enclosed .. 3 = open) -> color multiplier
+const AO_SHADE = [0.5, 0.68, 0.84, 1.0];
+const MESH_MAGIC = 0x314D5856; // "VXM1"
+const SECTIONS_MAGIC = 0x31535856; // "VXS1"
+const REGION_MAGIC = 0x31475856; // "VXG1"
+
+function pad4(n) { return (n + 3) & ~3; }
+
+// Decodes the compact binary chunk mesh (see ChunkMeshCodec.java).
+// Section blobs carry no palette; the container's palette is passed in instead.
+function decodeChunkMesh(buf, base = 0, sharedPalette = null) {
+  const dv = new DataView(buf, base);
+  if (dv.byteLength < 20 || dv.getUint32(0, true) !== MESH_MAGIC) return null;
+  const indexBytes = dv.getUint8(5);
+  const paletteSize = dv.getUint8(6);
+  const flags = dv.getUint8(7);
+  const vc = dv.getUint32(8, true);
+  const ic = dv.getUint32(12, true);
+  const ec = dv.getUint32(16, true);
+
+  let off = base + 20;
+  // draw ranges: indices run opaque, cutout, translucent; [cutoutStart, translucentStart]
+  let layers = [ic, ic];
+  if (flags & 2) {
+    layers = [dv.getUint32(20, true), dv.getUint32(24, true)];
+    off += 8;
+  }
+  // model instances (non-cube blocks), 4 x u16 each, after the emitters
+  let nc = 0;
+  if (flags & 4) {
+    nc = dv.getUint32(off - base, true);
+    off += 4;
+  }
+  const palette = paletteSize ? new Float32Array(buf, off, paletteSize * 3) : sharedPalette;
+  off += paletteSize * 12;
+  const positions = new Int16Array(buf, off, vc * 3); off += pad4(vc * 6);
+  const uvs = new Uint16Array(buf, off, vc * 2); off += pad4(vc * 4);
+  const faces = new Uint8Array(buf, off, vc); off += pad4(vc);
+  const tints = new Uint8Array(buf, off, vc); off += pad4(vc);
+  // baked lighting (worlds.yml render.lighting: baked): (sky << 4 | block) and AO 0..3 per vertex
+  let light = null, ao = null;
+  if (flags & 1) {
+    light = new Uint8Array(buf, off, vc); off += pad4(vc);
+    ao = new Uint8Array(buf, off, vc); off += pad4(vc);
+  }
+  const indices = indexBytes === 2 ? new Uint16Array(buf, off, ic) : new Uint32Array(buf, off, ic);
+  off += pad4(ic * indexBytes);
+  const emitters = new Float32Array(buf, off, ec * 4);
+  const instances = new Uint16Array(buf, off + ec * 16, nc * 4);
+
+  return { vc, palette, positions, uvs, faces, tints, light, ao, indices, layers, emitters, instances };
+}
+
+// Section container: only the sections the client didn't already hold.
+function decodeSections(buf) {
+  const dv = new DataView(buf);
+  if (buf.byteLength < 16 || dv.getUint32(0, true) !== SECTIONS_MAGIC) return null;
+  const paletteSize = dv.getUint8(5);
+  const count = dv.getUint16(6, true);
+  const minSection = dv.getInt32(8, true);
+  const changedCount = dv.getUint32(12, true);
+  const palette = new Float32Array(buf, 16, paletteSize * 3);
+
+  let off = 16 + paletteSize * 12;
+  const changed = [];
+  for (let i = 0; i < changedCount; i++) {
+    const sy = dv.getInt32(off, true);
+    const len = dv.getUint32(off + 4, true);
+    const version = dv.getFloat64(off + 8, true);
+    off += 16;
+    changed.push({ sy, version, mesh: decodeChunkMesh(buf, off, palette) });
+    off += pad4(len);
+  }
+  return { count, minSection, changed };
+}
+
+// Region mesh (see RegionMesh.java): one region-local mesh; instances stay chunk-local, so each
+// gets its member chunk's offset from the per-member instance ranges.
+function decodeRegion(buf) {
+  const dv = new DataView(buf);
+  if (buf.byteLength < 16 || dv.getUint32(0, true) !== REGION_MAGIC) return null;
+  const size = dv.getUint8(5);
+  const rx = dv.getInt32(8, true), rz = dv.getInt32(12, true);
+  const members = size * size;
+  const mesh = decodeChunkMesh(buf, 16 + (members + 1) * 4);
+  if (!mesh) return null;
+  const origin = new Uint8Array(mesh.instances.length / 2);
+  for (let n = 0; n < members; n++) {
+    const a = dv.getUint32(16 + n * 4, true), b = dv.getUint32(20 + n * 4, true);
+    for (let i = a; i < b; i++) { origin[i * 2] = n % size; origin[i * 2 + 1] = Math.floor(n / size); }
+  }
+  mesh.instanceOrigin = origin;
+  return { size, rx, rz, mesh };
+}
+
+// Concatenates the held sections of a chunk into one mesh, indices regrouped by layer
+// (one draw call per layer the chunk uses).
+function mergeSections(entry) {
+  const parts = [];
+  let vc = 0, ic = 0, ec = 0, nc = 0;
+  for (let sy = entry.minSection; sy < entry.minSection + entry.count; sy++) {
+    const s = entry.sections.get(sy);
+    if (!s || !s.mesh) continue;
+    parts.push(s.mesh);
+    vc += s.mesh.vc; ic += s.mesh.indices.length; ec += s.mesh.emitters.length; nc += s.mesh.instances.length;
+  }
+  const out = {
+    vc,
+    palette: parts.length ? parts[0].palette : new Float32Array(3),
+    positions: new Int16Array(vc * 3),
+    uvs: new Uint16Array(vc * 2),
+    faces: new Uint8Array(vc),
+    tints: new Uint8Array(vc),
+    indices: vc <= 65536 ? new Uint16Array(ic) : new Uint32Array(ic),
+    emitters: new Float32Array(ec),
+    instances: new Uint16Array(nc),
+    light: null,
+    ao: null,
+    groups: [], // [start, count, layer]
+  };
+  if (parts.length && parts.every(m => m.light)) {
+    out.light = new Uint8Array(vc);
+    out.ao = new Uint8Array(vc);
+  }
+  let v = 0, ii = 0, e = 0, n = 0;
+  if (parts.length === 1) out.instanceOrigin = parts[0].instanceOrigin || null;
+  for (const m of parts) {
+    out.positions.set(m.positions, v * 3);
+    out.uvs.set(m.uvs, v * 2);
+    out.faces.set(m.faces, v);
+    out.tints.set(m.tints, v);
+    if (out.light) { out.light.set(m.light, v); out.ao.set(m.ao, v); }
+    out.emitters.set(m.emitters, e);
+    out.instances.set(m.instances, n);
+    v += m.vc; e += m.emitters.length; n += m.instances.length;
+  }
+  for (let layer = 0; layer < LAYER_COUNT; layer++) {
+    const start = ii;
+    v = 0;
+    for (const m of parts) {
+      const a = layer === 0 ? 0 : m.layers[layer - 1];
+      const b = layer === LAYER_COUNT - 1 ? m.indices.length : m.layers[layer];
+      for (let j = a; j < b; j++) out.indices[ii++] = m.indices[j] + v;
+      v += m.vc;
+    }
+    if (ii > start) out.groups.push([start, ii - start, layer]);
+  }
+  return out;
+}
+
+function buildChunkGeometry(m) {
+  const { tilesPerRow, rows } = state.atlasGrid;
+  const su = 1 / tilesPerRow, sv = 1 / rows;
+
+  const normals = new Int8Array(m.vc * 3);
+  const uv = new Float32Array(m.vc * 2);
+  const colors = new Float32Array(m.vc * 3);
+  for (let i = 0; i < m.vc; i++) {
+    const n = FACE_NORMALS[m.faces[i]] || FACE_NORMALS[0];
+    normals[i * 3] = n[0]; normals[i * 3 + 1] = n[1]; normals[i * 3 + 2] = n[2];
+    uv[i * 2] = m.uvs[i * 2] * su;
+    uv[i * 2 + 1] = m.uvs[i * 2 + 1] * sv;
+    const t = m.tints[i] * 3;
+    const shade = m.ao ? AO_SHADE[m.ao[i]] : 1;
+    colors[i * 3] = m.palette[t] * shade;
+    colors[i * 3 + 1] = m.palette[t + 1] * shade;
+    colors[i * 3 + 2] = m.palette[t + 2] * shade;
+  }
+
+  const geom = new THREE.BufferGeometry();
+  geom.setAttribute("position", new THREE.BufferAttribute(m.positions, 3));
+  geom.setAttribute("normal", new THREE.BufferAttribute(normals, 3, true));
+  geom.setAttribute("uv", new THREE.BufferAttribute(uv, 2));
+  geom.setAttribute("color", new THREE.BufferAttribute(colors, 3));
+  if (m.light) {
+    // block, sky (0..1); the baked material mixes them with the time of day
+    const vxLight = new Uint8Array(m.vc * 2);
+    for (let i = 0; i < m.vc; i++) {
+      vxLight[i * 2] = (m.light[i] & 15) * 17;
+      vxLight[i * 2 + 1] = (m.light[i] >> 4) * 17;
+    }
+    geom.setAttribute("vxLight", new THREE.BufferAttribute(vxLight, 2, true));
+  }
+  geom.setIndex(new THREE.BufferAttribute(m.indices, 1));
+  for (const [start, count, layer] of m.groups) geom.addGroup(start, count, layer);
+  geom.computeBoundingSphere();
+  return geom;
+}
+
+// --- Model instances (BlockModels.java): one InstancedMesh per shape and chunk ---
+const MODEL_CROSS = 1, MODEL_SLAB = 2, MODEL_STAIRS = 3, MODEL_TORCH = 4, MODEL_FLAT = 5;
+const MODEL_TOP = 4, MODEL_WALL = 8, MODEL_DOUBLE = 16;
+const instanceUniforms = { uTileScale: { value: new THREE.Vector2(1 / 32, 1) } };
+
+// Box spanning x/z in -0.5..0.5 (block centred), y in 0..1; UVs follow the block grid like vanilla.
+function modelBox(x0, y0, z0, x1, y1, z1) {
+  const g = new THREE.BoxGeometry(x1 - x0, y1 - y0, z1 - z0);
+  g.translate((x0 + x1) / 2, (y0 + y1) / 2, (z0 + z1) / 2);
+  const p = g.attributes.position, n = g.attributes.normal, uv = g.attributes.uv;
+  for (let i = 0; i < p.count; i++) {
+    const x = p.getX(i) + 0.5, y = p.getY(i), z = p.getZ(i) + 0.5;
+    if (n.getY(i) !== 0) uv.setXY(i, x, z);
+    else if (n.getX(i) !== 0) uv.setXY(i, z, 1 - y);
+    else uv.setXY(i, x, 1 - y);
+  }
+  return g;
+}
+
+function mergeModelParts(parts) {
+  const pos = [], nor = [], uv = [], idx = [];
+  for (const g of parts) {
+    const base = pos.length / 3;
+    pos.push(...g.attributes.position.array);
+    nor.push(...g.attributes.normal.array);
+    uv.push(...g.attributes.uv.array);
+    for (const i of g.index.array) idx.push(i + base);
+  }
+  const out = new THREE.BufferGeometry();
+  out.setAttribute("position", new THREE.Float32BufferAttribute(pos, 3));
+  out.setAttribute("normal", new THREE.Float32BufferAttribute(nor, 3));
+  out.setAttribute("uv", new THREE.Float32BufferAttribute(uv, 2));
+  out.setIndex(idx);
+  return out;
+}
+
+// Two diagonal planes (drawn double-sided)
+function crossGeometry() {
+  const d = 0.45;
+  const pos = [
+    -d, 0, -d,  d, 0, d,  d, 1, d,  -d, 1, -d,
+    d, 0, -d,  -d, 0, d,  -d, 1, d,  d, 1, -d,
+  ];
+  const uv = [0, 1, 1, 1, 1, 0, 0, 0, 0, 1, 1, 1, 1, 0, 0, 0];
+  const g = new THREE.BufferGeometry();
+  g.setAttribute("position", new THREE.Float32BufferAttribute(pos, 3));
+  g.setAttribute("uv", new THREE.Float32BufferAttribute(uv, 2));
+  g.setIndex([0, 1, 2, 0, 2, 3, 4, 5, 6, 4, 6, 7]);
+  g.computeVertexNormals();
+  return g;
+}
+
+// Upside-down copy (stairs with half=top): mirrored in y, winding reversed
+function flipModelY(src) {
+  const g = src.clone();
+  const p = g.attributes.position, n = g.attributes.normal;
+  for (let i = 0; i < p.count; i++) { p.setY(i, 1 - p.getY(i)); n.setY(i, -n.getY(i)); }
+  const idx = g.index.array;
+  for (let i = 0; i < idx.length; i += 3) { const t = idx[i + 1]; idx[i + 1] = idx[i + 2]; idx[i + 2] = t; }
+  return g;
+}
+
+// shape key -> { geom, layer }; rotation 0 faces north (-z)
+const MODEL_SHAPES = (() => {
+  const stairs = mergeModelParts([modelBox(-0.5, 0, -0.5, 0.5, 0.5, 0.5), modelBox(-0.5, 0.5, -0.5, 0.5, 1, 0)]);
+  return {
+    [MODEL_CROSS]: { geom: crossGeometry(), layer: 1 },
+    [MODEL_SLAB]: { geom: modelBox(-0.5, 0, -0.5, 0.5, 0.5, 0.5), layer: 0 },
+    [MODEL_STAIRS]: { geom: stairs, layer: 0 },
+    stairsTop: { geom: flipModelY(stairs), layer: 0 },
+    [MODEL_TORCH]: { geom: modelBox(-1 / 16, 0, -1 / 16, 1 / 16, 10 / 16, 1 / 16), layer: 1 },
+    [MODEL_FLAT]: { geom: modelBox(-0.5, 0, -0.5, 0.5, 1 / 16, 0.5), layer: 1 },
+  };
+})();
+
+function makeInstanceMaterial(params) {
+  const mat = new THREE.MeshStandardMaterial({ ...params, vertexColors: false });
+  mat.onBeforeCompile = (shader) => {
+    shader.uniforms.uTileScale = instanceUniforms.uTileScale;
+    shader.vertexShader = "attribute vec2 instTile;\nattribute vec3 instTint;\nuniform vec2 uTileScale;\nvarying vec3 vInstTint;\n"
+        + shader.vertexShader.replace("#include <uv_vertex>",
+            "#include <uv_vertex>\n  vMapUv = (uv + instTile) * uTileScale;\n  vInstTint = instTint;");
+    shader.fragmentShader = "varying vec3 vInstTint;\n" + shader.fragmentShader
+        .replace("#include <color_fragment>", "#include <color_fragment>\n  diffuseColor.rgb *= vInstTint;");
+  };
+  return mat;
+}
+
+const instanceMatrix = new THREE.Matrix4();
+const instancePos = new THREE.Vector3();
+const instanceRot = new THREE.Quaternion();
+const instanceScale = new THREE.Vector3();
+const UP = new THREE.Vector3(0, 1, 0);
+
+function buildChunkInstances(m) {
+  const byShape = new Map(); // shape key -> instance offsets
+  for (let i = 0; i < m.instances.length; i += 4) {
+    const model = m.instances[i] & 255, st = m.instances[i] >> 8;
+    const key = model === MODEL_STAIRS && (st & MODEL_TOP) ? "stairsTop" : model;
+    if (!MODEL_SHAPES[key]) continue;
+    if (!byShape.has(key)) byShape.set(key, []);
+    byShape.get(key).push(i);
+  }
+
+  const { tilesPerRow } = state.atlasGrid;
+  const out = [];
+  for (const [key, list] of byShape) {
+    const shape = MODEL_SHAPES[key];
+    const geom = shape.geom.clone();
+    const tiles = new Float32Array(list.length * 2);
+    const tints = new Float32Array(list.length * 3);
+    const mesh = new THREE.InstancedMesh(geom, state.instanceMats[shape.layer], list.length);
+    list.forEach((i, n) => {
+      const model = m.instances[i] & 255, st = m.instances[i] >> 8;
+      const xz = m.instances[i + 1], tint = (xz >> 8) * 3;
+      const y = (m.instances[i + 2] << 16) >> 16, tile = m.instances[i + 3];
+      const angle = -(st & 3) * Math.PI / 2;
+      instancePos.set((xz & 15) + 0.5, y, ((xz >> 4) & 15) + 0.5);
+      if (m.instanceOrigin) {
+        // region mesh: offset of the instance's member chunk
+        instancePos.x += m.instanceOrigin[i / 2] * 16;
+        instancePos.z += m.instanceOrigin[i / 2 + 1] * 16;
+      }
+      instanceScale.set(1, 1, 1);
+      if (model === MODEL_SLAB && (st & MODEL_DOUBLE)) instanceScale.y = 2;
+      else if (model === MODEL_SLAB && (st & MODEL_TOP)) instancePos.y += 0.5;
+      if (model === MODEL_TORCH && (st & MODEL_WALL)) {
+        // against the block behind its facing
+        instancePos.x += 0.32 * Math.sin(angle);
+        instancePos.z += 0.32 * Math.cos(angle);
+        instancePos.y += 0.2;
+      }
+      instanceRot.setFromAxisAngle(UP, angle);
+      mesh.setMatrixAt(n, instanceMatrix.compose(instancePos, instanceRot, instanceScale));
+      tiles[n * 2] = tile % tilesPerRow;
+      tiles[n * 2 + 1] = Math.floor(tile / tilesPerRow);
+      tints[n * 3] = m.palette[tint];
+      tints[n * 3 + 1] = m.palette[tint + 1];
+      tints[n * 3 + 2] = m.palette[tint + 2];
+    });
+    geom.setAttribute("instTile", new THREE.InstancedBufferAttribute(tiles, 2));
+    geom.setAttribute("instTint", new THREE.InstancedBufferAttribute(tints, 3));
+    mesh.computeBoundingSphere();
+    out.push(mesh);
+  }
+  return out;
+}
+
+function disposeChunkInstances(mesh) {
+  for (const im of [...mesh.children]) {
+    if (!im.isInstancedMesh) continue;
+    im.geometry.dispose();
+    im.dispose();
+    mesh.remove(im);
+  }
+}
+
+function haveParam(entry) {
+  if (!entry) return "";
+  const have = [];
+  for (let sy = entry.minSection; sy < entry.minSection + entry.count; sy++) {
+    const s = entry.sections.get(sy);
+    have.push(s ? s.version : 0);
+  }
+  return `&hmin=${entry.minSection}&have=${have.join(",")}`;
+}
+
+function setChunkLights(k, emitters, ox, oz) {
+  state.chunkLights.delete(k);
+  if (emitters.length < 4) return;
+  // chunk-local on the wire; kept as world-space [x, y, z, weight] for updateLightBudget()
+  const lights = new Float32Array(emitters.length);
+  for (let i = 0; i < emitters.length; i += 4) {
+    lights[i] = emitters[i] + ox;
+    lights[i + 1] = emitters[i + 1];
+    lights[i + 2] = emitters[i + 2] + oz;
+    lights[i + 3] = emitters[i + 3];
+  }
+  state.chunkLights.set(k, lights);
+}
+
+// Hands the pooled lights to the clusters that matter most near the view target.
+function updateLightBudget() {
+  const tx = controls.target.x, ty = controls.target.y, tz = controls.target.z;
+  const best = []; // [score, lights, offset], strongest first, at most LIGHT_BUDGET
+  for (const lights of state.chunkLights.values()) {
+    for (let i = 0; i < lights.length; i += 4) {
+      const dx = lights[i] - tx, dy = lights[i + 1] - ty, dz = lights[i + 2] - tz;
+      const score = lights[i + 3] / (1 + (dx * dx + dy * dy + dz * dz) / 1024);
+      if (best.length === LIGHT_BUDGET && score <= best[best.length - 1][0]) continue;
+      let j = best.length;
+      while (j > 0 && best[j - 1][0] < score) j--;
+      best.splice(j, 0, [score, lights, i]);
+      if (best.length > LIGHT_BUDGET) best.pop();
+    }
+  }
+  for (let n = 0; n < lightPool.length; n++) {
+    const l = lightPool[n];
+    if (n >= best.length) { l.intensity = 0; continue; }
+    const [, lights, i] = best[n];
+    const w = lights[i + 3];
+    l.position.set(lights[i], lights[i + 1], lights[i + 2]);
+    // a cluster of several torches shines brighter and further, within limits
+    l.intensity = 0.9 * Math.min(w, 3);
+    l.distance = TORCH_DISTANCE * Math.min(2, Math.sqrt(Math.max(w, 1)));
+  }
+}
+
+// Static mode: loads the world manifest (region -> region manifest hash).
+async function loadStaticManifest(world) {
+  const res = await fetch(`${STATIC_ROOT}${encodeURIComponent(world)}/manifest.json`, { cache: "no-store" });
+  return res.ok ? res.json() : null;
+}
+
+// Static mode: content hash of a chunk's mesh file, or null when it wasn't exported.
+async function staticChunkHash(world, cx, cz) {
+  if (!state.staticManifest) state.staticManifest = await loadStaticManifest(world);
+  const m = state.staticManifest;
+  const rk = `${cx >> 5},${cz >> 5}`;
+  const hash = m && m.regions ? m.regions[rk] : null;
+  if (!hash) return null;
+
+  let region = state.staticRegions.get(rk);
+  if (!region || region.hash !== hash) {
+    // region manifests are immutable (named by hash), so the browser cache may keep them
+    const chunks = fetch(`${STATIC_ROOT}${encodeURIComponent(world)}/regions/${hash}.json`)
+        .then(r => r.ok ? r.json() : null)
+        .then(j => j ? j.chunks : null);
+    region = { hash, chunks };
+    state.staticRegions.set(rk, region);
+  }
+  const chunks = await region.chunks;
+  return chunks ? chunks[(cz & 31) * 32 + (cx & 31)] : null;
+}
+
 async function loadChunkMesh(world, cx, cz, k) {
   try {
-    const res = await fetch(`/api/chunk?world=${encodeURIComponent(world)}&cx=${cx}&cz=${cz}`, { cache: "no-store" });
+    const held = state.chunkSections.get(k);
+    let url, hash = null;
+    if (STATIC_ROOT) {
+      hash = await staticChunkHash(world, cx, cz);
+      if (!hash || (held && held.hash === hash)) return;
+      url = `${STATIC_ROOT}${encodeURIComponent(world)}/chunks/${hash.slice(0, 2)}/${hash}.vxs`;
+    } else {
+      url = `/api/chunk?world=${encodeURIComponent(world)}&cx=${cx}&cz=${cz}${haveParam(held)}${sliceParam()}`;
+    }
+    // chunk files of a static export never change; the live API is revalidated by ETag (304 = same bytes)
+    const res = await fetch(url, STATIC_ROOT ? {} : { cache: "no-cache" });
     if (!res.ok) return;
-    const data = await res.json();
-    if (!data || !data.vertices || data.vertices.length === 0) return;
+    const data = decodeSections(await res.arrayBuffer());
+    if (!data || world !== state.world) return;
+    // its region mesh took over while this was in flight
+    const region = regionMeshOf(cx, cz);
+    if (!held && region && !region.userData.split) return;
+
+    // Layout changed (or first load, or a whole static file): start from scratch
+    let entry = held;
+    if (!entry || STATIC_ROOT || entry.minSection !== data.minSection || entry.count !== data.count) {
+      entry = { minSection: data.minSection, count: data.count, sections: new Map(), hash };
+    }
+    if (entry === held && data.changed.length === 0) return; // nothing new
+    for (const c of data.changed) entry.sections.set(c.sy, { version: c.version, mesh: c.mesh });
+
+    const merged = mergeSections(entry);
+    const ox = cx * 16, oz = cz * 16;
+    const existing = state.chunkMeshes.get(k);
+
+    if (merged.vc === 0 && merged.instances.length === 0) {
+      if (existing) disposeChunk(k);
+      return;
+    }
+    state.chunkSections.set(k, entry);
+
+    const mat = merged.light ? state.bakedMats : state.mats;
+    if (existing) {
+      // swap geometry in place so the chunk never disappears
+      existing.geometry.dispose();
+      existing.geometry = buildChunkGeometry(merged);
+      existing.material = mat;
+      disposeChunkInstances(existing);
+      for (const im of buildChunkInstances(merged)) existing.add(im);
+    } else {
+      const mesh = new THREE.Mesh(buildChunkGeometry(merged), mat);
+      mesh.position.set(ox, 0, oz);
+      mesh.userData = { cx, cz, span: 1 };
+      for (const im of buildChunkInstances(merged)) mesh.add(im);
+      scene.add(mesh);
+      state.chunkMeshes.set(k, mesh);
+    }
+
+    // baked chunks already carry their torch light
+    setChunkLights(k, merged.light ? new Float32Array(0) : merged.emitters, ox, oz);
+  } finally {
+    state.requested.delete(k);
+    retireSplitRegion(cx, cz);
+  }
+}
+
+// Region size in chunks while region meshes are used, else 0 (slices and static exports are per chunk).
+function regionSize() {
+  return state.regionMesh && !STATIC_ROOT && !state.slice ? state.regionMesh.chunks : 0;
+}
+
+function regionMeshOf(cx, cz) {
+  const size = regionSize();
+  return size ? state.chunkMeshes.get(keyRegion(Math.floor(cx / size), Math.floor(cz / size))) : undefined;
+}
 
-    const geom = new THREE.BufferGeometry();
-    geom.setAttribute("position", new THREE.BufferAttribute(new Float32Array(data.vertices), 3));
-    geom.setAttribute("normal", new THREE.BufferAttribute(new Float32Array(data.normals), 3));
-    geom.setAttribute("uv", new THREE.BufferAttribute(new Float32Array(data.uvs), 2));
+// A region that came into the near rings stays until its chunks have all arrived.
+function retireSplitRegion(cx, cz) {
+  const region = regionMeshOf(cx, cz);
+  if (!region || !region.userData.split) return;
+  const { rx, rz, span } = region.userData;
+  for (let dz = 0; dz < span; dz++) {
+    for (let dx = 0; dx < span; dx++) {
+      if (state.requested.has(keyChunk(rx * span + dx, rz * span + dz))) return;
+    }
+  }
+  disposeChunk(keyRegion(rx, rz));
+}
 
-    // NEW: colors
-    if (data.colors && data.colors.length) {
-      geom.setAttribute("color", new THREE.BufferAttribute(new Float32Array(data.colors), 3));
+async function loadRegionMesh(world, rx, rz, k) {
+  try {
+    const res = await fetch(`/api/region?world=${encodeURIComponent(world)}&rx=${rx}&rz=${rz}`, { cache: "no-cache" });
+    if (!res.ok) return;
+    const existing = state.chunkMeshes.get(k);
+    if (existing && existing.userData.split) return; // being replaced by its chunks
+    // revalidated from the browser cache: same bytes as the mesh on screen
+    const etag = res.headers.get("ETag");
+    if (existing && etag && existing.userData.etag === etag) return;
+    const data = decodeRegion(await res.arrayBuffer());
+    if (!data || world !== state.world || data.size !== regionSize()) return;
+    const merged = mergeSections({ minSection: 0, count: 1, sections: new Map([[0, { mesh: data.mesh }]]) });
+    const size = data.size, ox = rx * size * 16, oz = rz * size * 16;
+    if (merged.vc === 0 && merged.instances.length === 0) {
+      if (existing) disposeChunk(k);
+      return;
     }
 
-    geom.setIndex(new THREE.BufferAttribute(new Uint32Array(data.indices), 1));
-    geom.computeBoundingSphere();
-
-    const mesh = new THREE.Mesh(geom, state.mat);
-    mesh.userData = { cx, cz };
-    scene.add(mesh);
-    state.chunkMeshes.set(k, mesh);
-
-    // Emitters -> point lights
-    if (Array.isArray(data.emitters) && data.emitters.length >= 4) {
-      const lights = [];
-      const count = Math.min(MAX_TORCH_LIGHTS_PER_CHUNK, Math.floor(data.emitters.length / 4));
-      for (let i = 0; i < count; i++) {
-        const x = data.emitters[i * 4 + 0];
-        const y = data.emitters[i * 4 + 1];
-        const z = data.emitters[i * 4 + 2];
-        const intensity = data.emitters[i * 4 + 3];
-
-        const l = new THREE.PointLight(0xffb35a, 0.9 * intensity, TORCH_DISTANCE, 2.0);
-        l.position.set(x, y, z);
-        lights.push(l);
-        scene.add(l);
+    const mat = merged.light ? state.bakedMats : state.mats;
+    if (existing) {
+      existing.geometry.dispose();
+      existing.geometry = buildChunkGeometry(merged);
+      existing.material = mat;
+      existing.userData.etag = etag;
+      disposeChunkInstances(existing);
+      for (const im of buildChunkInstances(merged)) existing.add(im);
+    } else {
+      const mesh = new THREE.Mesh(buildChunkGeometry(merged), mat);
+      mesh.position.set(ox, 0, oz);
+      mesh.userData = { cx: rx * size, cz: rz * size, span: size, region: true, rx, rz, split: false, etag };
+      for (const im of buildChunkInstances(merged)) mesh.add(im);
+      scene.add(mesh);
+      state.chunkMeshes.set(k, mesh);
+      // the merged mesh replaces its member chunks
+      for (let dz = 0; dz < size; dz++) {
+        for (let dx = 0; dx < size; dx++) disposeChunk(keyChunk(rx * size + dx, rz * size + dz));
       }
-      state.chunkLights.set(k, lights);
     }
+    setChunkLights(k, merged.light ? new Float32Array(0) : merged.emitters, ox, oz);
   } finally {
     state.requested.delete(k);
   }
 }
 
+// Static mode: re-reads the world manifest and re-checks loaded chunks of regions that changed.
+async function pollStaticManifest() {
+  const world = state.world;
+  const m = await loadStaticManifest(world);
+  if (!m || world !== state.world) return;
+  const old = state.staticManifest;
+  state.staticManifest = m;
+  if (!old || old.version === m.version) return;
+
+  for (const mesh of state.chunkMeshes.values()) {
+    const { cx, cz } = mesh.userData;
+    const rk = `${cx >> 5},${cz >> 5}`;
+    if ((old.regions || {})[rk] !== (m.regions || {})[rk]) refreshChunk(world, cx, cz);
+  }
+}
+
+// Asks the server which chunks changed since our last poll and re-fetches the loaded ones.
+async function pollChanges() {
+  if (!state.world) return;
+  if (STATIC_ROOT) return pollStaticManifest();
+  const world = state.world;
+  const c = await api(`/api/changes?world=${encodeURIComponent(world)}&since=${state.changesVersion}`);
+  if (world !== state.world) return;
+  const first = state.changesVersion === 0;
+  state.changesVersion = c.version || state.changesVersion;
+  if (first) return;
+
+  if (c.reset) {
+    for (const mesh of state.chunkMeshes.values()) {
+      const u = mesh.userData;
+      if (u.region) refreshRegion(world, u.rx, u.rz); else refreshChunk(world, u.cx, u.cz);
+    }
+    return;
+  }
+  for (const [cx, cz] of c.chunks || []) {
+    if (state.chunkMeshes.has(keyChunk(cx, cz))) refreshChunk(world, cx, cz);
+    const region = regionMeshOf(cx, cz);
+    if (region && !region.userData.split) refreshRegion(world, region.userData.rx, region.userData.rz);
+  }
+}
+
+// Chebyshev distance in chunks from (cx, cz) to the nearest chunk of a span x span square at (x0, z0).
+function squareDistance(cx, cz, x0, z0, span) {
+  const dx = Math.max(x0 - cx, 0, cx - (x0 + span - 1));
+  const dz = Math.max(z0 - cz, 0, cz - (z0 + span - 1));
+  return Math.max(dx, dz);
+}
+
 function pruneChunksAround(centerCx, centerCz) {
   const r = state.viewDistance + 2;
   for (const [k, mesh] of state.chunkMeshes.entries()) {
-    const dx = mesh.userData.cx - centerCx;
-    const dz = mesh.userData.cz - centerCz;
-    if (Math.abs(dx) > r || Math.abs(dz) > r) disposeChunk(k);
+    const u = mesh.userData;
+    const d = squareDistance(centerCx, centerCz, u.cx, u.cz, u.span);
+    if (d > r) disposeChunk(k);
+    // came into the near rings: its chunks get requested, the region goes once they are in
+    else if (u.region && d <= state.regionMesh.beyondChunks) u.split = true;
   }
 }
 
@@ -364,7 +1026,20 @@ function requestChunksAround(x, z) {
     }
   }
   list.sort((a, b) => a[2] - b[2]);
-  for (const [ccx, ccz] of list) enqueueChunk(state.world, ccx, ccz);
+  // outer rings: one merged mesh per region that lies entirely beyond regionMesh.beyondChunks
+  const size = regionSize();
+  for (const [ccx, ccz] of list) {
+    const rx = Math.floor(ccx / size), rz = Math.floor(ccz / size);
+    if (size && squareDistance(cx, cz, rx * size, rz * size, size) > state.regionMesh.beyondChunks) {
+      enqueueRegion(state.world, rx, rz);
+    } else {
+      enqueueChunk(state.world, ccx, ccz);
+    }
+  }
+  // a split region with no chunk left to wait for (all empty or out of range) goes now
+  for (const mesh of [...state.chunkMeshes.values()]) {
+    if (mesh.userData.split) retireSplitRegion(mesh.userData.cx, mesh.userData.cz);
+  }
 }
 
 function clearChunks() {
@@ -373,21 +1048,33 @@ function clearChunks() {
   state.requested.clear();
   state.requestQueue.length = 0;
   state.chunkLights.clear();
+  state.chunkSections.clear();
+  state.changesVersion = 0;
+  state.staticManifest = null;
+  state.staticRegions.clear();
 }
 
 async function refreshWorlds() {
   const data = await api("/api/worlds");
-  state.viewDistance = data.defaultViewDistanceChunks || 10;
+  state.defaultViewDistance = data.defaultViewDistanceChunks || 10;
+  state.regionMesh = data.regionMesh || null;
+  state.worldViewDistance = {};
+  if (data.atlas) {
+    state.atlasGrid = { tilesPerRow: data.atlas.tilesPerRow || 32, rows: data.atlas.rows || 1 };
+    state.atlasFile = data.atlas.file || null;
+  }
   const worlds = data.worlds || [];
   worldSelect.innerHTML = "";
 
   for (const w of worlds) {
+    if (w.viewDistanceChunks) state.worldViewDistance[w.name] = w.viewDistanceChunks;
     const opt = document.createElement("option");
     opt.value = w.name;
     opt.textContent = `${w.icon ? w.icon + " " : ""}${w.displayName || w.name}`;
     worldSelect.appendChild(opt);
   }
 
+  if (state.world) state.viewDistance = state.worldViewDistance[state.world] || state.defaultViewDistance;
   if (!state.world && worlds.length) {
     setWorld(worlds[0].name);
     worldSelect.value = worlds[0].name;
@@ -443,12 +1130,29 @@ function makePin(label) {
 
   return g;
 }
+function disposePin(pin) {
+  pin.traverse(o => {
+    if (o.geometry) o.geometry.dispose();
+    if (o.material) {
+      if (o.material.map) o.material.map.dispose();
+      o.material.dispose();
+    }
+  });
+}
+
+function clearPins() {
+  for (const pin of state.markerObjs.values()) {
+    state.markerGroup.remove(pin);
+    disposePin(pin);
+  }
+  state.markerObjs.clear();
+}
+
 markerSelect.addEventListener("change", async () => {
   const name = markerSelect.value;
   if (!name) return;
 
-  const data = await api(`/api/markers?world=${encodeURIComponent(state.world)}`);
-  const m = (data.markers || []).find(x => x.name === name);
+  const m = state.markerList.find(x => x.name === name);
   if (!m) return;
 
   controls.target.set(m.x, m.y, m.z);
@@ -457,21 +1161,47 @@ markerSelect.addEventListener("change", async () => {
   lastRequestAt = 0;
   requestChunksAround(m.x, m.z);
 });
+// Pins for the markers within view distance of the camera target; unchanged pins are kept.
 async function refreshMarkers() {
   if (!state.world) return;
-  const data = await api(`/api/markers?world=${encodeURIComponent(state.world)}`);
-  const markers = data.markers || [];
-
-  // rebuild for simplicity
-  state.markerGroup.clear();
-  state.markerObjs.clear();
-
+  const world = state.world;
+  const r = (state.viewDistance + 2) * 16;
+  const x = Math.floor(controls.target.x), z = Math.floor(controls.target.z);
+  const minX = x - r, minZ = z - r, maxX = x + r, maxZ = z + r;
+  const data = await api(`/api/markers?world=${encodeURIComponent(world)}&bbox=${minX},${minZ},${maxX},${maxZ}`);
+  if (world !== state.world) return;
+  // a static export has no bbox query and serves the whole list
+  const markers = (data.markers || []).filter(m => m.x >= minX && m.x <= maxX && m.z >= minZ && m.z <= maxZ);
+
+  const seen = new Set();
   for (const m of markers) {
+    seen.add(m.name);
+    const sig = `${m.label || m.name}|${m.x}|${m.y}|${m.z}`;
+    const old = state.markerObjs.get(m.name);
+    if (old && old.userData.sig === sig) continue;
+    if (old) { state.markerGroup.remove(old); disposePin(old); }
     const pin = makePin(m.label || m.name);
+    pin.userData.sig = sig;
     pin.position.set(m.x + 0.5, m.y, m.z + 0.5);
     state.markerGroup.add(pin);
     state.markerObjs.set(m.name, pin);
   }
+  for (const [name, pin] of state.markerObjs) {
+    if (seen.has(name)) continue;
+    state.markerGroup.remove(pin);
+    disposePin(pin);
+    state.markerObjs.delete(name);
+  }
+}
+
+async function refreshMarkerList() {
+  if (!state.world) return;
+  const world = state.world;
+  const data = await api(`/api/markers?world=${encodeURIComponent(world)}`);
+  if (world !== state.world) return;
+  const markers = data.markers || [];
+  state.markerList = markers;
+  const selected = markerSelect.value;
   markerSelect.innerHTML = `<option value="">Markers</option>`;
   for (const m of markers) {
     const opt = document.createElement("option");
@@ -479,6 +1209,7 @@ async function refreshMarkers() {
     opt.textContent = `${m.label || m.name} (${Math.floor(m.x)}, ${Math.floor(m.y)}, ${Math.floor(m.z)})`;
     markerSelect.appendChild(opt);
   }
+  if (markers.some(m => m.name === selected)) markerSelect.value = selected;
 }
 
 function headUrl(uuid) {
@@ -530,7 +1261,11 @@ async function refreshPlayers() {
 
 function setWorld(worldName) {
   state.world = worldName;
+  // heavy dimensions can ask for a smaller radius (worlds.yml render.viewDistanceChunks)
+  state.viewDistance = state.worldViewDistance[worldName] || state.defaultViewDistance;
   clearChunks();
+  clearPins();
+  state.markerList = [];
 
   api(`/api/status?world=${encodeURIComponent(worldName)}`).then(st => {
     if (st && st.spawn) {
@@ -544,11 +1279,46 @@ function setWorld(worldName) {
   }).catch(() => {});
 
   refreshMarkers().catch(() => {});
+  refreshMarkerList().catch(() => {});
   refreshPlayers().catch(() => {});
 }
 
 worldSelect.addEventListener("change", () => setWorld(worldSelect.value));
 
+function sliceParam() {
+  const s = state.slice;
+  if (!s) return "";
+  return `${s.minY != null ? `&minY=${s.minY}` : ""}${s.maxY != null ? `&maxY=${s.maxY}` : ""}`;
+}
+
+// Empty inputs mean "no limit".
+function readSlice() {
+  const lo = sliceMin.value === "" ? null : Math.trunc(Number(sliceMin.value));
+  const hi = sliceMax.value === "" ? null : Math.trunc(Number(sliceMax.value));
+  return lo == null && hi == null ? null : { minY: lo, maxY: hi };
+}
+
+// Reloads the visible chunks with the new slice.
+function applySlice() {
+  const next = readSlice();
+  if (JSON.stringify(next) === JSON.stringify(state.slice)) return;
+  state.slice = next;
+  clearChunks();
+  lastRequestAt = 0;
+}
+
+if (STATIC_ROOT) {
+  // exports only hold whole columns
+  document.getElementById("bottomLeft").style.display = "none";
+} else {
+  const q = new URLSearchParams(location.search);
+  if (q.has("minY")) sliceMin.value = q.get("minY");
+  if (q.has("maxY")) sliceMax.value = q.get("maxY");
+  state.slice = readSlice();
+  sliceMin.addEventListener("change", applySlice);
+  sliceMax.addEventListener("change", applySlice);
+}
+
 playerSelect.addEventListener("change", async () => {
   const uuid = playerSelect.value;
   if (!uuid) return;
@@ -599,6 +1369,8 @@ window.addEventListener("resize", () => {
 });
 
 let lastPoll = 0;
+let lastMarkerListPoll = 0;
+let lastChangesPoll = 0;
 let lastMoveAt = performance.now();
 let lastRequestAt = 0;
 
@@ -649,6 +1421,7 @@ function applyWASD(dtSeconds) {
   lastMoveAt = performance.now();
 }
 let prevTime = performance.now();
+let lastLightBudget = 0;
 function animate(t) {
   requestAnimationFrame(animate);
   const now = performance.now();
@@ -667,21 +1440,42 @@ function animate(t) {
 
   pumpQueue().catch(() => {});
 
-  if (t - lastPoll > 1200) {
+  if (t - lastLightBudget > LIGHT_BUDGET_MS) {
+    lastLightBudget = t;
+    updateLightBudget();
+  }
+
+  if (t - lastChangesPoll > (STATIC_ROOT ? STATIC_POLL_MS : CHANGES_POLL_MS)) {
+    lastChangesPoll = t;
+    pollChanges().catch(() => {});
+  }
+
+  if (t - lastPoll > OVERLAY_POLL_MS) {
     lastPoll = t;
     refreshStatus().catch(() => {});
     refreshMarkers().catch(() => {});
     refreshPlayers().catch(() => {});
   }
 
+  if (t - lastMarkerListPoll > MARKER_LIST_POLL_MS) {
+    lastMarkerListPoll = t;
+    refreshMarkerList().catch(() => {});
+  }
+
   renderer.render(scene, camera);
 }
 
 (async function boot() {
-  await loadAtlas();
+  // the server answers 503 while it builds its texture atlas after a restart
+  while (!STATIC_ROOT && (await fetch("/api/worlds", { cache: "no-store" })).status === 503) {
+    await new Promise(r => setTimeout(r, 1000));
+  }
+  // worlds first: a static export names its atlas file there
   await refreshWorlds();
+  await loadAtlas();
   await refreshStatus().catch(() => {});
   await refreshMarkers().catch(() => {});
+  await refreshMarkerList().catch(() => {});
   await refreshPlayers().catch(() => {});
   animate(0);
 })().catch(err => {